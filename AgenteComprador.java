@@ -10,210 +10,602 @@ import jade.domain.FIPAException;
 import jade.domain.FIPAAgentManagement.DFAgentDescription;
 import jade.domain.FIPAAgentManagement.ServiceDescription;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * ESTRATÉGIA DO COMPRADOR:
  * 
  * 1. BUSCA POR VENDEDORES:
- *    - Consulta o DF (Directory Facilitator) para encontrar todos os vendedores de "venda-livros"
- *    - Envia CFP (Call For Proposal) para todos os vendedores encontrados
+ *    - Modo "assinatura" (padrão): usa o CacheVendedores do container, alimentado por
+ *      notificações do DF, e envia o primeiro CFP assim que surge um vendedor
+ *    - Modo "polling": consulta o DF (Directory Facilitator) a cada 10 segundos;
+ *      a consulta e as novas tentativas rodam em TarefasBloqueantes, e o
+ *      resultado volta pela fila O2A, sem parar as negociações do agente
+ *    - O modo é escolhido pela propriedade -Dcomprador.descoberta=assinatura|polling
+ *    - Envia CFP (Call For Proposal) para todos os vendedores encontrados, ou para
+ *      no máximo -Dcomprador.cfp.max deles, sorteados a cada rodada
+ *    - Vendedores que publicam um Fragmento do catálogo só recebem CFP dos
+ *      títulos desse fragmento
+ *    - O FiltroBloom publicado pelo vendedor descarta, sem troca de mensagens,
+ *      os vendedores que certamente não têm o título em estoque
+ *    - Registra a latência entre a criação do comprador e o primeiro CFP no
+ *      histograma "primeiro.cfp.ns.<modo>", separado por modo de descoberta
+ *    - Cada CFP abre uma conversa com identificador próprio
+ *      ("negociacao-<comprador>-<n>"), usada por toda a negociação que ele originar
+ *    - Preços e quantidades trafegam pelo CodecOferta (texto ou binário)
+ *    - Com -Drastro.arquivo, os pedidos e as mensagens enviadas são gravados
+ *      no Rastro
  * 
- * 2. SELEÇÃO DE OFERTAS:
- *    - Coleta todas as propostas (PROPOSE) recebidas
- *    - Seleciona a oferta com MENOR PREÇO
+ * 2. SELEÇÃO DE OFERTAS (RODADA CONTRACT-NET):
+ *    - O que vai desta seção até a 3.1 fica no MotorComprador, o mesmo código
+ *      usado pela Reproducao; o agente entrega as mensagens e os prazos a ele
+ *    - Cada CFP abre uma rodada com prazo (-Dcomprador.prazo.cfp, padrão 5000 ms)
+ *    - Coleta as propostas (PROPOSE) e recusas (REFUSE) da conversa
+ *    - A rodada termina no prazo ou assim que todos os vendedores contatados
+ *      responderem, o que vier primeiro
+ *    - Seleciona as K ofertas de MENOR PREÇO (-Dcomprador.paralelo, padrão 1) e
+ *      rejeita as demais, liberando as reservas dos outros vendedores
+ *    - Só há uma rodada ou negociação por compra de cada vez; a busca periódica
+ *      abre nova rodada apenas se a anterior terminou sem ofertas
+ *    - Após -Dcomprador.buscas.max buscas (padrão 6; 0 = sem limite) sem
+ *      nenhuma oferta, a compra desiste e termina sem acordo, liberando a vaga
+ *      no gerente ("compras.desistidas")
+ *    - Vendedor sobrecarregado responde REFUSE "ocupado" com a espera sugerida
+ *      no parâmetro "tentar-apos". Se a rodada terminar sem ofertas e com
+ *      recusas desse tipo, a compra recua: espera a maior sugestão, dobrada a
+ *      cada recuo seguido e limitada a -Dcomprador.recuo.max (padrão 10000 ms),
+ *      com metade do valor sorteada, e então abre nova rodada; a busca
+ *      periódica não dispara antes disso
  * 
  * 3. NEGOCIAÇÃO:
+ *    - Estratégia escolhida por -Dcomprador.estrategia (padrao, tempo, adaptativa
+ *      ou nome de classe; ver Estrategias). Na padrão:
  *    - Oferece inicialmente 70% do preço cotado pelo vendedor
  *    - A cada rodada, aumenta 15% da diferença entre sua oferta e a do vendedor
  *    - Critérios de aceitação:
  *      * Se o preço do vendedor ≤ preço máximo do usuário
- *      * Se a oferta estiver dentro de 15% da última proposta
+ *      * Se a oferta estiver dentro de 15% da última proposta, ou for a
+ *        última oferta do vendedor
  *      * Máximo de 5 rodadas de negociação
  *    - Nunca ultrapassa o preço máximo definido pelo usuário
+ *    - Cada resposta do vendedor é esperada por até -Dcomprador.negociacao.prazo
+ *      ms (padrão 10000); vencido o prazo, a negociação é abortada com CANCEL
+ *      e conta como encerrada sem acordo ("negociacoes.expiradas")
+ *    - Se o vendedor desistir antes (CANCEL "prazo-esgotado", sem in-reply-to),
+ *      a negociação termina na hora sem acordo, sem esperar o prazo do comprador
+ * 
+ * 3.1. NEGOCIAÇÃO PARALELA (K > 1):
+ *    - Negocia com os K vendedores ao mesmo tempo, cada um com sua própria
+ *      NegociacaoComprador, na mesma conversa do CFP
+ *    - Um acordo até o preço alvo (-Dcomprador.alvo × preço máximo, padrão 0.9)
+ *      é aceito na hora, e os demais vendedores recebem CANCEL
+ *    - Um acordo acima do alvo fica retido enquanto houver outras negociações
+ *      em andamento; ao final, aceita o menor preço retido
+ *    - Enquanto um acordo está retido, o vendedor recebe a cada
+ *      -Dcomprador.retencao.intervalo ms (padrão 5000) um INFORM que renova
+ *      seu prazo e a reserva
+ *    - Um acordo só conta quando o vendedor confirma o aceite (CONFIRM); com
+ *      CANCEL ou sem resposta no prazo, aceita o próximo acordo retido, e os
+ *      demais vendedores só recebem CANCEL depois da confirmação
+ *      ("acordos.nao.confirmados")
+ *    - A compra só fracassa quando todas as K negociações terminam sem acordo
+ *      confirmado
+ * 
+ * 3.2. LIVRO DE OFERTAS (-Dnegociacao.modo=livro):
+ *    - Em vez do CFP, envia ao AgenteMercado uma ordem de compra com limite no
+ *      preço máximo e soma as execuções informadas até completar a quantidade
+ *    - Sem execução completa em -Dcomprador.negociacao.prazo ms, cancela a
+ *      ordem; quando o mercado confirma, a compra termina como parcial se
+ *      alguma unidade foi executada ("compras.parciais") ou como fracasso
+ * 
+ * 4. RESULTADO:
+ *    - Informa ao ColetorCarga o desfecho, o tempo até o acordo e as mensagens trocadas
+ *    - Métricas (registro "compradores", ou o nome do agente no modo pool):
+ *      CFPs enviados, propostas por rodada, rodadas até o acordo, preço do
+ *      acordo em milésimos do preço máximo, acordos, compras parciais e fracassos, o tempo
+ *      entre cada mensagem da negociação e a resposta do vendedor, latência
+ *      até o primeiro CFP por modo de descoberta, recusas
+ *      "ocupado" recebidas, recuos e compras desistidas
+ * 
+ * 5. MODOS DE OPERAÇÃO:
+ *    - Compra única (argumentos "Título", "Quantidade", "PreçoMáximo"): o agente
+ *      encerra assim que a negociação termina
+ *    - Pool ("pool"): agente de vida longa que recebe tarefas de compra do gerente
+ *      (REQUEST, protocolo "tarefa-compra", conteúdo "Título;Quantidade;PreçoMáximo"),
+ *      conduz várias compras ao mesmo tempo, cada uma com seu próprio estado, e
+ *      responde INFORM "acordo:<preço>", INFORM "parcial:<quantidade>:<preço médio>"
+ *      (livro de ofertas) ou FAILURE "sem-acordo" ao final de cada uma
  */
 
 public class AgenteComprador extends Agent {
-    private String livroDesejado;
-    private int quantidadeDesejada;
-    private double precoMaximo;
-    private Map<AID, Double> ofertas = new HashMap<>();
-    private AID melhorVendedor;
+    public static final String PROTOCOLO_TAREFA = "tarefa-compra";
+    private static final String DESCOBERTA = System.getProperty("comprador.descoberta", "assinatura");
+    static final long PRAZO_CFP = Long.getLong("comprador.prazo.cfp", 5000);
+    static final long PRAZO_NEGOCIACAO = Long.getLong("comprador.negociacao.prazo", 10000);
+    static final int PARALELO = Integer.getInteger("comprador.paralelo", 1);
+    static final int MAX_CFP = Integer.getInteger("comprador.cfp.max", 0);
+    static final double ALVO = Double.parseDouble(System.getProperty("comprador.alvo", "0.9"));
+    static final long RECUO_MAXIMO = Long.getLong("comprador.recuo.max", 10000);
+    static final int BUSCAS_MAXIMAS = Integer.getInteger("comprador.buscas.max", 6);
+    static final long INTERVALO_RETENCAO = Long.getLong("comprador.retencao.intervalo", 5000);
+    static final EstrategiaNegociacao ESTRATEGIA =
+        Estrategias.porNome(System.getProperty("comprador.estrategia", "padrao"));
+
+    private final List<Compra> compras = new ArrayList<>();
+    private boolean modoPool = false;
+    private CacheVendedores cache;
+    private final CacheVendedores.Ouvinte ouvinte = new CacheVendedores.Ouvinte() {
+        public Agent agente() {
+            return AgenteComprador.this;
+        }
+
+        public void vendedoresAtualizados() {
+            ComportamentoO2A.agendar(AgenteComprador.this, () -> {
+                for (Compra compra : new ArrayList<>(compras)) {
+                    if (!compra.primeiroCfpEnviado) {
+                        compra.contatar(cache.vendedores(compra.livroDesejado()));
+                    }
+                }
+            });
+        }
+    };
+    private int conversas = 0;
+    private int mensagensEnviadas = 0;
+    
+    private MotorComprador.Medidas medidas;
+    private Histograma primeiroCfp;
     
     protected void setup() {
-        System.out.println("Comprador " + getAID().getName() + " pronto.");
+        Log.info("Comprador %s pronto.", getAID().getName());
         
         Object[] args = getArguments();
+        boolean pool = args != null && args.length == 1 && "pool".equals(args[0]);
+        iniciarMetricas(Metricas.de(pool ? getLocalName() : "compradores"));
+        
         if (args != null && args.length == 3) {
-            livroDesejado = (String) args[0];
-            quantidadeDesejada = Integer.parseInt((String) args[1]);
-            precoMaximo = Double.parseDouble((String) args[2]);
-            
-            addBehaviour(new TickerBehaviour(this, 10000) {
-                protected void onTick() {
-                    System.out.println("Buscando: " + livroDesejado);
-                    buscarVendedores();
-                }
-            });
+            iniciarDescoberta();
+            addBehaviour(new DescartarRespostasBehaviour(this));
+            iniciarCompra(new PedidoCompra((String) args[0], Integer.parseInt((String) args[1]),
+                Double.parseDouble((String) args[2])), null);
+        } else if (pool) {
+            modoPool = true;
+            iniciarDescoberta();
+            addBehaviour(new ReceberTarefasBehaviour(this));
+            addBehaviour(new DescartarRespostasBehaviour(this));
         } else {
-            System.out.println("Argumentos inválidos");
+            Log.erro("Argumentos inválidos para %s", getLocalName());
             doDelete();
         }
     }
     
-    private void buscarVendedores() {
-        DFAgentDescription template = new DFAgentDescription();
-        ServiceDescription sd = new ServiceDescription();
-        sd.setType("venda-livros");
-        template.addServices(sd);
+    private void iniciarMetricas(Metricas metricas) {
+        ExportadorMetricas.iniciar();
+        medidas = new MotorComprador.Medidas(metricas);
+        primeiroCfp = metricas.histograma(metricaPrimeiroCfp(DESCOBERTA));
+    }
+    
+    /**
+     * Histograma da latência até o primeiro CFP no modo de descoberta "modo".
+     */
+    static String metricaPrimeiroCfp(String modo) {
+        return "primeiro.cfp.ns." + modo;
+    }
+    
+    private void iniciarDescoberta() {
+        // Notificações do cache e resultados de TarefasBloqueantes chegam pela fila O2A
+        setEnabledO2ACommunication(true, 0);
+        addBehaviour(new ComportamentoO2A(this));
+        if (DESCOBERTA.equals("assinatura") && !AgenteMercado.MODO_LIVRO) {
+            cache = CacheVendedores.doContainer(this);
+            cache.inscrever(ouvinte);
+        }
+    }
+    
+    private void iniciarCompra(PedidoCompra pedido, ACLMessage tarefa) {
+        Rastro.pedido(getLocalName(), pedido);
+        Compra compra = new Compra(pedido, tarefa);
+        compras.add(compra);
+        compra.adicionar(compra.comportamento);
+        if (AgenteMercado.MODO_LIVRO) {
+            compra.enviarOrdem();
+        } else if (cache != null) {
+            compra.contatar(cache.vendedores(pedido.titulo));
+        }
+    }
+    
+    private class ReceberTarefasBehaviour extends CyclicBehaviour {
+        private final MessageTemplate mt = MessageTemplate.and(
+            MessageTemplate.MatchPerformative(ACLMessage.REQUEST),
+            MessageTemplate.MatchProtocol(PROTOCOLO_TAREFA));
         
-        try {
-            // Tenta 3 vezes com intervalo de 1 segundo
-            int tentativas = 0;
-            DFAgentDescription[] result = new DFAgentDescription[0];
+        public ReceberTarefasBehaviour(Agent a) {
+            super(a);
+        }
+        
+        public void action() {
+            ACLMessage msg = receive(mt);
+            if (msg == null) {
+                block();
+                return;
+            }
             
-            while (tentativas < 3 && result.length == 0) {
-                result = DFService.search(this, template);
-                System.out.println("Tentativa " + (tentativas+1) + ": " + result.length + " vendedores");
-                if (result.length == 0) {
-                    Thread.sleep(1000);
+            try {
+                iniciarCompra(PedidoCompra.ler(msg.getContent()), msg);
+            } catch (IllegalArgumentException e) {
+                ACLMessage resposta = msg.createReply();
+                resposta.setPerformative(ACLMessage.REFUSE);
+                resposta.setContent("tarefa-invalida");
+                enviarMensagem(resposta);
+            }
+        }
+    }
+    
+    /**
+     * Confirmações e cancelamentos que nenhuma compra espera e respostas a conversas
+     * já encerradas; sem isso elas acumulariam na fila do agente.
+     * Propostas atrasadas são rejeitadas para o vendedor liberar a reserva.
+     */
+    private class DescartarRespostasBehaviour extends CyclicBehaviour {
+        private final MessageTemplate mt = new MessageTemplate((MessageTemplate.MatchExpression) msg -> {
+            // Respostas do DF pertencem às consultas de TarefasBloqueantes
+            if (getDefaultDF().equals(msg.getSender())) {
+                return false;
+            }
+            int performativa = msg.getPerformative();
+            if (performativa != ACLMessage.CONFIRM && performativa != ACLMessage.CANCEL
+                    && performativa != ACLMessage.REFUSE && performativa != ACLMessage.PROPOSE) {
+                return false;
+            }
+            for (Compra compra : compras) {
+                if (compra.espera(msg)) {
+                    return false;
                 }
-                tentativas++;
             }
+            return true;
+        });
+        
+        public DescartarRespostasBehaviour(Agent a) {
+            super(a);
+        }
+        
+        public void action() {
+            ACLMessage msg = receive(mt);
+            if (msg == null) {
+                block();
+                return;
+            }
+            if (msg.getPerformative() == ACLMessage.PROPOSE) {
+                ACLMessage rejeicao = msg.createReply();
+                rejeicao.setPerformative(ACLMessage.REJECT_PROPOSAL);
+                enviarMensagem(rejeicao);
+            }
+        }
+    }
+    
+    /**
+     * Estado de uma compra no agente: o MotorComprador, que conduz rodadas e
+     * negociações, a busca de vendedores e a ordem no livro de ofertas.
+     */
+    private class Compra implements MotorComprador.Ouvinte {
+        private final MotorComprador motor;
+        private final ACLMessage tarefa;
+        private final long criadoEm = System.nanoTime();
+        private final List<Behaviour> comportamentos = new ArrayList<>();
+        private final CompraBehaviour comportamento;
+        private boolean primeiroCfpEnviado = false;
+        // Ordem enviada ao mercado (-Dnegociacao.modo=livro)
+        private ACLMessage ordem;
+        
+        Compra(PedidoCompra pedido, ACLMessage tarefa) {
+            this.tarefa = tarefa;
+            this.motor = new MotorComprador(getLocalName(), pedido, BUSCAS_MAXIMAS, medidas,
+                ThreadLocalRandom.current(), System::nanoTime, this, System.currentTimeMillis());
+            this.comportamento = new CompraBehaviour(motor);
+        }
+        
+        private String livroDesejado() {
+            return motor.pedido().titulo;
+        }
+        
+        /**
+         * Mensagem desta compra: esperada pelo motor, ou do mercado na conversa da ordem.
+         */
+        private boolean espera(ACLMessage msg) {
+            return motor.espera(msg)
+                || (ordem != null && ordem.getConversationId().equals(msg.getConversationId()));
+        }
+        
+        /**
+         * Envia o CFP aos vendedores encontrados e registra a latência até o primeiro.
+         */
+        private void contatar(Collection<AID> vendedores) {
+            if (!motor.contatar(vendedores, System.currentTimeMillis())) {
+                return;
+            }
+            // O prazo da rodada é anterior ao que o comportamento está esperando
+            comportamento.restart();
+            if (!primeiroCfpEnviado) {
+                primeiroCfpEnviado = true;
+                long latencia = System.nanoTime() - criadoEm;
+                primeiroCfp.registrar(latencia);
+                Log.debug("Primeiro CFP de %s após %d ms (descoberta: %s)",
+                    getLocalName(), latencia / 1_000_000, DESCOBERTA);
+            }
+        }
+        
+        public String novaConversa() {
+            return "negociacao-" + getLocalName() + "-" + (++conversas);
+        }
+        
+        public void enviar(ACLMessage msg) {
+            enviarMensagem(msg);
+        }
+        
+        /**
+         * Busca pedida pelo motor: ordem no mercado, cache de vendedores ou consulta ao DF.
+         */
+        public void buscar() {
+            if (AgenteMercado.MODO_LIVRO) {
+                enviarOrdem();
+            } else if (cache != null) {
+                contatar(cache.vendedores(livroDesejado()));
+            } else {
+                buscarVendedores();
+            }
+        }
+        
+        private void buscarVendedores() {
+            DFAgentDescription template = new DFAgentDescription();
+            ServiceDescription sd = new ServiceDescription();
+            sd.setType("venda-livros");
+            template.addServices(sd);
             
-            if (result.length > 0) {
-                ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+            // Consulta e esperas entre tentativas rodam fora da thread do agente
+            TarefasBloqueantes.executar(AgenteComprador.this, () -> {
+                // Tenta 3 vezes com intervalo de 1 segundo
+                int tentativas = 0;
+                DFAgentDescription[] result = new DFAgentDescription[0];
+                
+                while (tentativas < 3 && result.length == 0) {
+                    result = DFService.search(AgenteComprador.this, template);
+                    Log.debug("Tentativa %d: %d vendedores", tentativas + 1, result.length);
+                    if (result.length == 0) {
+                        Thread.sleep(1000);
+                    }
+                    tentativas++;
+                }
+                return result;
+            }, result -> {
+                List<AID> vendedores = new ArrayList<>();
                 for (DFAgentDescription seller : result) {
-                    cfp.addReceiver(seller.getName());
+                    if (Fragmento.daDescricao(seller).contem(livroDesejado())
+                            && FiltroBloom.daDescricao(seller).talvezContenha(livroDesejado())) {
+                        vendedores.add(seller.getName());
+                    }
                 }
-                cfp.setContent(livroDesejado + ":" + quantidadeDesejada);
-                cfp.setConversationId("negociacao-livros");
-                cfp.setReplyWith("cfp" + System.currentTimeMillis());
-                send(cfp);
-                
-                addBehaviour(new ReceberOfertasBehaviour(this, 5000));
-            } else {
-                System.out.println("Nenhum vendedor encontrado para " + livroDesejado);
+                contatar(vendedores);
+            }, e -> {
+                Log.erro(e, "Erro na busca por vendedores");
+                contatar(Collections.emptyList());
+            });
+        }
+        
+        /**
+         * Modo livro: envia ao mercado uma ordem de compra com limite no preço máximo.
+         */
+        private void enviarOrdem() {
+            if (ordem != null) {
+                return;
             }
-        } catch (Exception e) {
-            System.err.println("Erro na busca por vendedores");
-            e.printStackTrace();
+            AgenteMercado.localizar(AgenteComprador.this, mercado -> {
+                if (mercado == null) {
+                    Log.debug("Nenhum mercado encontrado para %s", livroDesejado());
+                    // Encerra a busca sem rodada; a próxima tenta de novo
+                    contatar(Collections.emptyList());
+                    return;
+                }
+                if (motor.encerrada() || ordem != null) {
+                    return;
+                }
+                PedidoCompra pedido = motor.pedido();
+                ordem = new ACLMessage(ACLMessage.REQUEST);
+                ordem.addReceiver(mercado);
+                ordem.setProtocol(AgenteMercado.PROTOCOLO);
+                ordem.setConversationId(novaConversa());
+                ordem.setReplyWith(novoReplyWith());
+                ordem.setContent(new PedidoCompra(pedido.titulo, pedido.quantidade, pedido.precoMaximo).toString());
+                motor.enviar(ordem);
+                adicionar(new OrdemLivroBehaviour(this, ordem));
+            });
+        }
+        
+        private void adicionar(Behaviour b) {
+            comportamentos.add(b);
+            addBehaviour(b);
+        }
+        
+        /**
+         * Desfecho do motor: responde à tarefa do gerente e, fora do modo pool, encerra o agente.
+         */
+        public void encerrada(MotorComprador compra) {
+            for (Behaviour b : comportamentos) {
+                removeBehaviour(b);
+            }
+            compras.remove(this);
+            
+            if (tarefa != null) {
+                ACLMessage resultado = tarefa.createReply();
+                if (compra.acordo()) {
+                    resultado.setPerformative(ACLMessage.INFORM);
+                    resultado.setContent("acordo:" + compra.preco());
+                } else if (compra.parcial()) {
+                    resultado.setPerformative(ACLMessage.INFORM);
+                    resultado.setContent("parcial:" + compra.compradas() + ":" + compra.preco());
+                } else {
+                    resultado.setPerformative(ACLMessage.FAILURE);
+                    resultado.setContent("sem-acordo");
+                }
+                enviarMensagem(resultado);
+            }
+            if (!modoPool) {
+                doDelete();
+            }
+        }
+    }
+    
+    /**
+     * Envia a mensagem, registrando-a no rastro quando -Drastro.arquivo está definido.
+     */
+    private void enviarMensagem(ACLMessage msg) {
+        Rastro.mensagem(getLocalName(), msg);
+        send(msg);
+    }
+    
+    private String novoReplyWith() {
+        return getLocalName() + "-" + (++mensagensEnviadas);
+    }
+    
+    /**
+     * Espera sugerida em um REFUSE "ocupado" (parâmetro "tentar-apos", em ms), ou 1 s sem ela.
+     */
+    static long dicaOcupado(ACLMessage recusa) {
+        try {
+            return Math.max(1, Long.parseLong(recusa.getUserDefinedParameter(MotorVendedor.TENTAR_APOS)));
+        } catch (NumberFormatException e) {
+            return 1000;
         }
     }
     
-    private class ReceberOfertasBehaviour extends TickerBehaviour {
-        public ReceberOfertasBehaviour(Agent a, long period) {
-            super(a, period);
+    /**
+     * Recuo exponencial a partir da dica do vendedor, limitado a -Dcomprador.recuo.max,
+     * com metade fixa e metade sorteada para que os compradores recusados juntos não
+     * voltem todos no mesmo instante.
+     */
+    static long recuo(long dica, int tentativa, RandomGenerator aleatorio) {
+        long base = Math.min(RECUO_MAXIMO, Math.min(dica, RECUO_MAXIMO) << Math.min(tentativa, 16));
+        long metade = Math.max(1, base / 2);
+        return metade + aleatorio.nextLong(metade + 1);
+    }
+    
+    /**
+     * Conduz o MotorComprador de uma compra: entrega as mensagens que ele espera
+     * e dorme até o próximo prazo (rodada, negociação, confirmação, recuo ou busca).
+     */
+    private class CompraBehaviour extends SimpleBehaviour {
+        private final MotorComprador motor;
+        private final MessageTemplate mt;
+        
+        public CompraBehaviour(MotorComprador motor) {
+            super(AgenteComprador.this);
+            this.motor = motor;
+            this.mt = new MessageTemplate((MessageTemplate.MatchExpression) motor::espera);
         }
         
-        protected void onTick() {
-            MessageTemplate mt = MessageTemplate.and(
-                MessageTemplate.MatchConversationId("negociacao-livros"),
-                MessageTemplate.MatchPerformative(ACLMessage.PROPOSE));
-            
+        public void action() {
             ACLMessage msg = receive(mt);
             while (msg != null) {
-                String[] parts = msg.getContent().split(":");
-                double preco = Double.parseDouble(parts[0]);
-                int quantidade = Integer.parseInt(parts[1]);
-                
-                if (quantidade >= quantidadeDesejada) {
-                    ofertas.put(msg.getSender(), preco);
-                    System.out.println("Oferta de " + msg.getSender().getLocalName() + ": R$" + preco);
-                }
+                motor.receber(msg, System.currentTimeMillis());
                 msg = receive(mt);
             }
-            
-            if (!ofertas.isEmpty() && melhorVendedor == null) {
-                selecionarMelhorOferta();
+            long agora = System.currentTimeMillis();
+            motor.expirar(agora);
+            if (!motor.encerrada()) {
+                block(Math.max(1, motor.proximoPrazo() - agora));
             }
         }
         
-        private void selecionarMelhorOferta() {
-            melhorVendedor = Collections.min(ofertas.entrySet(), 
-                Comparator.comparingDouble(Map.Entry::getValue)).getKey();
-            double melhorPreco = ofertas.get(melhorVendedor);
-            
-            System.out.println("Melhor oferta: " + melhorVendedor.getLocalName() + " - R$" + melhorPreco);
-            
-            ACLMessage proposta = new ACLMessage(ACLMessage.PROPOSE);
-            proposta.addReceiver(melhorVendedor);
-            proposta.setContent((melhorPreco * 0.7) + ":" + quantidadeDesejada);
-            proposta.setConversationId("negociacao-livros");
-            send(proposta);
-            
-            addBehaviour(new NegociarBehaviour(melhorVendedor, melhorPreco));
+        public boolean done() {
+            return motor.encerrada();
         }
     }
     
- // Estratégia de barganha:
- // 1. Começa oferecendo 70% do preço inicial do vendedor
- // 2. A cada contraproposta, aumenta a oferta em 15% da diferença
-//     Ex: Se vendedor pede R$100 e oferecemos R$70:
-//         Diferença = R$30 → 15% = R$4.50 → Nova oferta = R$74.50
- // 3. Nunca ultrapassa o preço máximo do usuário
- // 4. Aceita se: oferta ≤ preço máximo E (rodadas ≥5 ou oferta ≤ última oferta +15%)
-    
-    private class NegociarBehaviour extends Behaviour {
-        private final AID vendedor;
-        private double precoAtual;
-        private boolean negociacaoConcluida = false;
-        private int rodada = 0;
+    /**
+     * Ordem no livro do mercado: soma as execuções até completar a quantidade.
+     * Vencido o prazo de negociação, pede o cancelamento e espera a confirmação,
+     * pois uma execução pode cruzar com o CANCEL.
+     */
+    private class OrdemLivroBehaviour extends Behaviour {
+        private final Compra compra;
+        private final ACLMessage ordem;
+        private final int quantidade;
+        private final MessageTemplate mt;
+        private final Oferta oferta = new Oferta();
+        private final long enviadaEm = System.nanoTime();
+        private long prazo = System.currentTimeMillis() + PRAZO_NEGOCIACAO;
+        private int compradas = 0;
+        private double valor = 0;
+        private boolean cancelando = false;
+        private boolean concluida = false;
         
-        public NegociarBehaviour(AID vendedor, double precoInicial) {
-            this.vendedor = vendedor;
-            this.precoAtual = precoInicial * 0.7;
+        public OrdemLivroBehaviour(Compra compra, ACLMessage ordem) {
+            super(AgenteComprador.this);
+            this.compra = compra;
+            this.ordem = ordem;
+            this.quantidade = compra.motor.pedido().quantidade;
+            this.mt = MessageTemplate.and(
+                MessageTemplate.MatchConversationId(ordem.getConversationId()),
+                MessageTemplate.MatchProtocol(AgenteMercado.PROTOCOLO));
         }
         
         public void action() {
-            MessageTemplate mt = MessageTemplate.and(
-                MessageTemplate.MatchSender(vendedor),
-                MessageTemplate.MatchConversationId("negociacao-livros"));
-            
             ACLMessage msg = receive(mt);
-            if (msg != null) {
-                rodada++;
-                
-                if (msg.getPerformative() == ACLMessage.ACCEPT_PROPOSAL) {
-                    System.out.println("Compra aprovada com " + vendedor.getLocalName() + " por R$" + precoAtual);
-                    negociacaoConcluida = true;
-                } 
-                else if (msg.getPerformative() == ACLMessage.PROPOSE) {
-                    String[] parts = msg.getContent().split(":");
-                    double contraProposta = Double.parseDouble(parts[0]);
-                    
-                    if (contraProposta <= precoMaximo) {
-                        if (rodada >= 5 || contraProposta <= (precoAtual * 1.15)) {
-                            ACLMessage accept = msg.createReply();
-                            accept.setPerformative(ACLMessage.ACCEPT_PROPOSAL);
-                            send(accept);
-                            negociacaoConcluida = true;
-                        } else {
-                            precoAtual += (contraProposta - precoAtual) * 0.15;
-                            precoAtual = Math.min(precoAtual, precoMaximo);
-                            
-                            ACLMessage counter = msg.createReply();
-                            counter.setPerformative(ACLMessage.PROPOSE);
-                            counter.setContent(precoAtual + ":" + quantidadeDesejada);
-                            send(counter);
-                        }
-                    } else {
-                        ACLMessage reject = msg.createReply();
-                        reject.setPerformative(ACLMessage.REJECT_PROPOSAL);
-                        send(reject);
-                        negociacaoConcluida = true;
-                    }
+            if (msg == null) {
+                long restante = prazo - System.currentTimeMillis();
+                if (restante > 0) {
+                    block(restante);
+                } else if (!cancelando) {
+                    cancelando = true;
+                    prazo = System.currentTimeMillis() + PRAZO_NEGOCIACAO;
+                    ACLMessage cancelamento = new ACLMessage(ACLMessage.CANCEL);
+                    cancelamento.addReceiver((AID) ordem.getAllReceiver().next());
+                    cancelamento.setProtocol(AgenteMercado.PROTOCOLO);
+                    cancelamento.setConversationId(ordem.getConversationId());
+                    compra.motor.enviar(cancelamento);
+                } else {
+                    medidas.expiradas.increment();
+                    terminar();
                 }
-            } else {
-                block();
+                return;
+            }
+            
+            compra.motor.recebida();
+            if (msg.getPerformative() == ACLMessage.INFORM && CodecOferta.ler(msg, oferta)) {
+                if (compradas == 0) {
+                    medidas.respostaVendedor.registrar(System.nanoTime() - enviadaEm);
+                }
+                compradas += oferta.quantidade;
+                valor += oferta.preco() * oferta.quantidade;
+                if (compradas >= quantidade) {
+                    terminar();
+                }
+            } else if (msg.getPerformative() == ACLMessage.FAILURE || msg.getPerformative() == ACLMessage.REFUSE) {
+                terminar();
             }
         }
         
+        private void terminar() {
+            concluida = true;
+            boolean acordo = compradas >= quantidade;
+            if (!acordo && compradas > 0) {
+                Log.aviso("%s comprou só %d de %d unidades de %s no mercado", getLocalName(),
+                    compradas, quantidade, compra.livroDesejado());
+            }
+            if (acordo) {
+                Log.info("Compra executada no mercado por R$%.2f", valor / compradas);
+            }
+            compra.motor.finalizar(compradas, compradas > 0 ? valor / compradas : 0, 1);
+        }
+        
         public boolean done() {
-            return negociacaoConcluida;
+            return concluida;
         }
     }
     
     protected void takeDown() {
-        System.out.println("Comprador " + getAID().getName() + " encerrando.");
+        if (cache != null) {
+            cache.cancelar(ouvinte);
+        }
+        Log.debug("Comprador %s encerrando.", getAID().getName());
     }
 }
\ No newline at end of file
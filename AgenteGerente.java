@@ -1,81 +1,268 @@
 package sistema_multiagente;
 
+import jade.core.AID;
 import jade.core.Agent;
 import jade.core.behaviours.CyclicBehaviour;
+import jade.core.behaviours.TickerBehaviour;
 import jade.lang.acl.ACLMessage;
 import jade.lang.acl.MessageTemplate;
-import java.util.Scanner;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * ESTRATÉGIA DO GERENTE:
- * 
- * 1. INTERFACE COM USUÁRIO:
- *    - Menu para capturar:
+ *
+ * 1. ENTRADA DE PEDIDOS:
+ *    - Cada pedido informa:
  *      * Título do livro desejado
  *      * Quantidade necessária
  *      * Preço máximo disposto a pagar
- * 
- * 2. CRIAÇÃO DE COMPRADORES:
+ *    - Fontes, escolhidas pelos argumentos do agente:
+ *      * Sem argumentos: menu interativo no console
+ *      * "arquivo=<caminho>": uma linha "Título;Quantidade;PreçoMáximo" por pedido
+ *      * "porta=<n>": conexões em localhost:<n>, mesmo formato de linha
+ *    - As fontes são lidas em threads próprias (EntradaPedidos); o agente nunca
+ *      bloqueia esperando entrada
+ *
+ * 2. FILA DE PEDIDOS:
+ *    - Pedidos lidos vão para uma fila limitada; se ela enche, as fontes esperam
+ *    - O agente é acordado pela fila O2A e consome os pedidos em lotes
+ *
+ * 3. CRIAÇÃO DE COMPRADORES:
  *    - Para cada pedido, cria um novo agente comprador
+ *    - Nomes vêm de um contador do gerente ("comprador-<gerente>-<n>"), sem colisões
  *    - Passa os argumentos necessários para a negociação
- * 
- * 3. CONTROLE DO SISTEMA:
+ *
+ * 4. POOL DE COMPRADORES ("pool=<n>", opcional "tarefas=<m>"):
+ *    - Cria n compradores de vida longa, cada um com m compras simultâneas (padrão 4)
+ *    - Cada pedido vira uma tarefa (REQUEST "tarefa-compra") para um comprador com vaga
+ *    - Sem vagas, o pedido espera na fila; a vaga volta quando o comprador responde
+ *    - A cada 10 segundos exibe utilização do pool, tamanho da fila e tempo de espera
+ *      na fila (p50/p99)
+ *
+ * 4.1. MÉTRICAS (registro com o nome do agente):
+ *    - Pedidos recebidos, compradores criados, tarefas enviadas e concluídas, acordos
+ *      e compras parciais (livro de ofertas)
+ *    - Tempo de espera na fila (ns), tamanho da fila de pedidos e vagas livres
+ *
+ * 5. CONTROLE DO SISTEMA:
  *    - Permite encerrar o sistema quando selecionada a opção de saída
  */
 
 public class AgenteGerente extends Agent {
+    private static final int TAMANHO_FILA = 100_000;
+    private static final int TAMANHO_LOTE = 500;
+
+    private final BlockingQueue<PedidoCompra> fila = new ArrayBlockingQueue<>(TAMANHO_FILA);
+    private final AtomicBoolean avisoPendente = new AtomicBoolean(false);
+    private final List<Thread> entradas = new ArrayList<>();
+    private final List<PedidoCompra> lote = new ArrayList<>(TAMANHO_LOTE);
+    private long compradoresCriados = 0;
+
+    // Pool de compradores: uma entrada em "vagas" por compra simultânea livre
+    private final ArrayDeque<AID> vagas = new ArrayDeque<>();
+    // Cópia do tamanho de "vagas" para leitura pelo exportador de métricas
+    private volatile int vagasLivres = 0;
+    private Histograma esperaFila;
+    private int capacidadePool = 0;
+    private long tarefasEnviadas = 0;
+    private long tarefasConcluidas = 0;
+    private long acordosPool = 0;
+    private long parciaisPool = 0;
+
+    private LongAdder pedidosRecebidos;
+    private LongAdder compradoresIniciados;
+    private LongAdder tarefasConcluidasMetrica;
+    private LongAdder acordosMetrica;
+    private LongAdder parciaisMetrica;
+
     protected void setup() {
-        System.out.println("Gerente " + getAID().getName() + " pronto.");
-        
-        addBehaviour(new CyclicBehaviour(this) {
-            public void action() {
-                System.out.println("\n=== Sistema de Compras ===");
-                System.out.println("1. Comprar livro");
-                System.out.println("2. Sair");
-                System.out.print("Escolha: ");
-                
-                try {
-                    Scanner scanner = new Scanner(System.in);
-                    int escolha = scanner.nextInt();
-                    scanner.nextLine();
-                    
-                    switch (escolha) {
-                        case 1:
-                            System.out.print("Livro: ");
-                            String titulo = scanner.nextLine();
-                            
-                            System.out.print("Quantidade: ");
-                            int quantidade = scanner.nextInt();
-                            
-                            System.out.print("Preço máximo: R$");
-                            double precoMaximo = scanner.nextDouble();
-                            
-                            try {
-                                Object[] args = {titulo, String.valueOf(quantidade), String.valueOf(precoMaximo)};
-                                getContainerController().createNewAgent(
-                                    "comprador-" + System.currentTimeMillis(), 
-                                    "sistema_multiagente.AgenteComprador", args).start();
-                            } catch (Exception e) {
-                                System.err.println("Erro ao criar comprador: " + e.getMessage());
-                            }
-                            break;
-                            
-                        case 2:
-                            System.out.println("Encerrando...");
-                            doDelete();
-                            break;
-                            
-                        default:
-                            System.out.println("Opção inválida");
-                    }
-                } catch (Exception e) {
-                    System.err.println("Erro na entrada: " + e.getMessage());
-                }
+        Log.info("Gerente %s pronto.", getAID().getName());
+        iniciarMetricas();
+
+        setEnabledO2ACommunication(true, 0);
+        addBehaviour(new ComportamentoO2A(this));
+
+        Object[] args = getArguments() != null ? getArguments() : new Object[0];
+        int tamanhoPool = 0;
+        int tarefasPorComprador = 4;
+        for (Object arg : args) {
+            String opcao = (String) arg;
+            if (opcao.startsWith("arquivo=")) {
+                entradas.add(EntradaPedidos.arquivo(opcao.substring("arquivo=".length()), this::receberPedido));
+            } else if (opcao.startsWith("porta=")) {
+                entradas.add(EntradaPedidos.socket(Integer.parseInt(opcao.substring("porta=".length())), this::receberPedido));
+            } else if (opcao.startsWith("pool=")) {
+                tamanhoPool = Integer.parseInt(opcao.substring("pool=".length()));
+            } else if (opcao.startsWith("tarefas=")) {
+                tarefasPorComprador = Integer.parseInt(opcao.substring("tarefas=".length()));
+            } else {
+                Log.aviso("Argumento ignorado: %s", opcao);
+            }
+        }
+
+        if (tamanhoPool > 0) {
+            criarPool(tamanhoPool, tarefasPorComprador);
+        }
+        if (entradas.isEmpty()) {
+            entradas.add(EntradaPedidos.console(this::receberPedido,
+                () -> ComportamentoO2A.agendar(this, this::doDelete)));
+        }
+    }
+
+    private void iniciarMetricas() {
+        ExportadorMetricas.iniciar();
+        Metricas metricas = Metricas.de(getLocalName());
+        pedidosRecebidos = metricas.contador("pedidos.recebidos");
+        compradoresIniciados = metricas.contador("compradores.criados");
+        tarefasConcluidasMetrica = metricas.contador("tarefas.concluidas");
+        acordosMetrica = metricas.contador("acordos");
+        parciaisMetrica = metricas.contador("compras.parciais");
+        esperaFila = metricas.histograma("espera.fila.ns");
+        metricas.medidor("fila.pedidos", fila::size);
+        metricas.medidor("fila.mensagens", this::getCurQueueSize);
+        metricas.medidor("pool.vagas", () -> vagasLivres);
+    }
+
+    private void criarPool(int tamanho, int tarefasPorComprador) {
+        for (int i = 1; i <= tamanho; i++) {
+            String nome = "comprador-pool-" + getLocalName() + "-" + i;
+            try {
+                getContainerController().createNewAgent(nome,
+                    "sistema_multiagente.AgenteComprador", new Object[]{"pool"}).start();
+            } catch (Exception e) {
+                Log.erro("Erro ao criar comprador do pool: %s", e.getMessage());
+                continue;
+            }
+            AID comprador = new AID(nome, AID.ISLOCALNAME);
+            for (int t = 0; t < tarefasPorComprador; t++) {
+                vagas.add(comprador);
+            }
+            capacidadePool += tarefasPorComprador;
+        }
+        vagasLivres = vagas.size();
+        Log.info("Pool com %d compradores e %d vagas", tamanho, capacidadePool);
+
+        addBehaviour(new ReceberResultadosBehaviour(this));
+        addBehaviour(new TickerBehaviour(this, 10000) {
+            protected void onTick() {
+                int ocupadas = capacidadePool - vagas.size();
+                Log.info("Pool: utilização %.0f%% (%d/%d), fila %d, espera p50 %.1f ms p99 %.1f ms, tarefas %d/%d, acordos %d, parciais %d",
+                    100.0 * ocupadas / capacidadePool, ocupadas, capacidadePool, fila.size(),
+                    esperaFila.percentil(50) / 1e6, esperaFila.percentil(99) / 1e6,
+                    tarefasConcluidas, tarefasEnviadas, acordosPool, parciaisPool);
             }
         });
     }
-    
+
+    private class ReceberResultadosBehaviour extends CyclicBehaviour {
+        private final MessageTemplate mt = MessageTemplate.MatchProtocol(AgenteComprador.PROTOCOLO_TAREFA);
+
+        public ReceberResultadosBehaviour(Agent a) {
+            super(a);
+        }
+
+        public void action() {
+            ACLMessage msg = receive(mt);
+            if (msg == null) {
+                block();
+                return;
+            }
+
+            tarefasConcluidas++;
+            tarefasConcluidasMetrica.increment();
+            if (msg.getPerformative() == ACLMessage.INFORM) {
+                // "parcial:<quantidade>:<preço>": só parte das unidades foi comprada (livro de ofertas)
+                String conteudo = msg.getContent();
+                if (conteudo != null && conteudo.startsWith("parcial:")) {
+                    parciaisPool++;
+                    parciaisMetrica.increment();
+                } else {
+                    acordosPool++;
+                    acordosMetrica.increment();
+                }
+            }
+            vagas.add(msg.getSender());
+            vagasLivres = vagas.size();
+            if (!fila.isEmpty()) {
+                avisar();
+            }
+        }
+    }
+
+    /**
+     * Chamado pelas threads de entrada. Bloqueia enquanto a fila estiver cheia.
+     */
+    private void receberPedido(PedidoCompra pedido) {
+        try {
+            fila.put(pedido);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        pedidosRecebidos.increment();
+        avisar();
+    }
+
+    private void avisar() {
+        // Um único aviso pendente por vez, independente de quantos pedidos chegaram
+        if (avisoPendente.compareAndSet(false, true)) {
+            ComportamentoO2A.agendar(this, this::processarLote);
+        }
+    }
+
+    private void processarLote() {
+        avisoPendente.set(false);
+        if (capacidadePool > 0) {
+            fila.drainTo(lote, Math.min(TAMANHO_LOTE, vagas.size()));
+            for (PedidoCompra pedido : lote) {
+                enviarTarefa(pedido);
+            }
+            lote.clear();
+            if (!fila.isEmpty() && !vagas.isEmpty()) {
+                avisar();
+            }
+            return;
+        }
+
+        fila.drainTo(lote, TAMANHO_LOTE);
+        for (PedidoCompra pedido : lote) {
+            try {
+                getContainerController().createNewAgent(
+                    "comprador-" + getLocalName() + "-" + (++compradoresCriados),
+                    "sistema_multiagente.AgenteComprador", pedido.argumentos()).start();
+                compradoresIniciados.increment();
+            } catch (Exception e) {
+                Log.erro("Erro ao criar comprador: %s", e.getMessage());
+            }
+        }
+        lote.clear();
+
+        // Pedidos restantes ficam para o próximo lote, sem monopolizar o agente
+        if (!fila.isEmpty()) {
+            avisar();
+        }
+    }
+
+    private void enviarTarefa(PedidoCompra pedido) {
+        esperaFila.registrar(System.nanoTime() - pedido.recebidoEm);
+
+        ACLMessage tarefa = new ACLMessage(ACLMessage.REQUEST);
+        tarefa.addReceiver(vagas.poll());
+        vagasLivres = vagas.size();
+        tarefa.setProtocol(AgenteComprador.PROTOCOLO_TAREFA);
+        tarefa.setConversationId("tarefa-" + getLocalName() + "-" + (++tarefasEnviadas));
+        tarefa.setContent(pedido.toString());
+        send(tarefa);
+    }
+
     protected void takeDown() {
-        System.out.println("Gerente " + getAID().getName() + " encerrando.");
+        for (Thread entrada : entradas) {
+            entrada.interrupt();
+        }
+        Log.info("Gerente %s encerrando.", getAID().getName());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,297 @@
+package sistema_multiagente;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * ESTRATÉGIA DO MERCADO (LIVRO DE OFERTAS):
+ *
+ * 1. MODO DE NEGOCIAÇÃO:
+ *    - Com -Dnegociacao.modo=livro, compradores e vendedores deixam de negociar
+ *      aos pares (CFP e rodadas) e enviam ordens a este agente; o padrão,
+ *      "bilateral", mantém a negociação de sempre
+ *    - Registra no DF como serviço do tipo "mercado-livros"; compradores e
+ *      vendedores o localizam uma vez por JVM (localizar)
+ *    - Cada compra custa duas mensagens (ordem e execução), em vez de CFP,
+ *      propostas de todos os vendedores e até 5 rodadas
+ *
+ * 2. ORDENS (protocolo "livro-ofertas"):
+ *    - Vendedor: PROPOSE na conversa "mercado-<vendedor>", uma linha
+ *      "Título:Quantidade:Preço:PreçoMínimo" por título; o preço mínimo é o
+ *      limite da venda e o preço, o teto
+ *    - Comprador: REQUEST com "Título;Quantidade;PreçoMáximo" em uma conversa
+ *      própria; o preço máximo é o limite da compra
+ *    - CANCEL na mesma conversa retira as ordens que ainda estão no livro; o
+ *      comprador recebe FAILURE "ordem-cancelada:<restante>"
+ *    - Ordem ilegível: REFUSE "pedido-invalido"
+ *
+ * 3. EXECUÇÃO:
+ *    - O casamento é feito pelo LivroOfertas, na thread do agente, por
+ *      prioridade de preço e chegada
+ *    - Cada negócio gera um INFORM para o comprador e outro para o vendedor,
+ *      com preço e quantidade no CodecOferta; o do vendedor leva o título no
+ *      parâmetro "titulo"
+ *
+ * 4. MÉTRICAS (registro "mercado"):
+ *    - Ordens de compra e de venda, negócios, unidades negociadas, cancelamentos
+ *    - Ordens no livro, títulos com livro e tempo de casamento por ordem (ns)
+ */
+
+public class AgenteMercado extends Agent {
+    public static final String PROTOCOLO = "livro-ofertas";
+    public static final String SERVICO = "mercado-livros";
+    public static final boolean MODO_LIVRO = "livro".equals(System.getProperty("negociacao.modo", "bilateral"));
+
+    // Mercado já localizado nesta JVM
+    private static volatile AID mercado;
+
+    private final LivroOfertas ofertas = new LivroOfertas(this::negocio);
+    // Mensagem e título de cada ordem no livro, pelo índice da ordem
+    private ACLMessage[] origem = new ACLMessage[1024];
+    private String[] tituloDa = new String[1024];
+    private final Map<String, Integer> comprasPorConversa = new HashMap<>();
+    private final Map<String, int[]> vendasPorConversa = new HashMap<>();
+
+    private LongAdder ordensCompra;
+    private LongAdder ordensVenda;
+    private LongAdder negocios;
+    private LongAdder unidades;
+    private LongAdder cancelamentos;
+    private Histograma casamento;
+
+    protected void setup() {
+        Log.info("Mercado %s iniciando...", getAID().getName());
+        ExportadorMetricas.iniciar();
+        Metricas metricas = Metricas.de("mercado");
+        ordensCompra = metricas.contador("ordens.compra");
+        ordensVenda = metricas.contador("ordens.venda");
+        negocios = metricas.contador("negocios");
+        unidades = metricas.contador("unidades.negociadas");
+        cancelamentos = metricas.contador("cancelamentos");
+        casamento = metricas.histograma("casamento.ns");
+        metricas.medidor("livro.ordens.abertas", ofertas::abertas);
+        metricas.medidor("livro.titulos", ofertas::titulos);
+
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(getAID());
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(SERVICO);
+        sd.setName(getLocalName() + "-livro-ofertas");
+        dfd.addServices(sd);
+        try {
+            DFService.register(this, dfd);
+            Log.info("%s registrado no DF", getLocalName());
+        } catch (FIPAException fe) {
+            Log.erro(fe, "Falha no registro do DF");
+            doDelete();
+            return;
+        }
+
+        addBehaviour(new CyclicBehaviour(this) {
+            private final MessageTemplate mt = MessageTemplate.MatchProtocol(PROTOCOLO);
+
+            public void action() {
+                ACLMessage msg = receive(mt);
+                if (msg == null) {
+                    block();
+                    return;
+                }
+                long inicio = System.nanoTime();
+                switch (msg.getPerformative()) {
+                    case ACLMessage.PROPOSE:
+                        receberVendas(msg);
+                        break;
+                    case ACLMessage.REQUEST:
+                        receberCompra(msg);
+                        break;
+                    case ACLMessage.CANCEL:
+                        cancelar(msg);
+                        break;
+                    default:
+                        break;
+                }
+                casamento.registrar(System.nanoTime() - inicio);
+            }
+        });
+    }
+
+    /**
+     * Entrega a "aoLocalizar" o mercado registrado no DF, ou null se ainda não houver um.
+     * A consulta roda em TarefasBloqueantes; o agente precisa da fila O2A habilitada.
+     */
+    public static void localizar(Agent agente, Consumer<AID> aoLocalizar) {
+        AID conhecido = mercado;
+        if (conhecido != null) {
+            aoLocalizar.accept(conhecido);
+            return;
+        }
+        DFAgentDescription modelo = new DFAgentDescription();
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType(SERVICO);
+        modelo.addServices(sd);
+        TarefasBloqueantes.buscarNoDF(agente, modelo, resultado -> {
+            if (resultado.length > 0) {
+                mercado = resultado[0].getName();
+            }
+            aoLocalizar.accept(mercado);
+        }, e -> {
+            Log.erro(e, "Falha ao localizar o mercado");
+            aoLocalizar.accept(null);
+        });
+    }
+
+    private void receberVendas(ACLMessage msg) {
+        String conteudo = msg.getContent();
+        if (conteudo == null) {
+            recusar(msg);
+            return;
+        }
+        String[] linhas = conteudo.split("\n");
+        int[] ordens = new int[linhas.length];
+        int total = 0;
+        for (String linha : linhas) {
+            int p3 = linha.lastIndexOf(':');
+            int p2 = linha.lastIndexOf(':', p3 - 1);
+            int p1 = p2 > 0 ? linha.lastIndexOf(':', p2 - 1) : -1;
+            if (p1 <= 0) {
+                continue;
+            }
+            String titulo = linha.substring(0, p1).trim();
+            int quantidade;
+            long preco;
+            long minimo;
+            try {
+                quantidade = Integer.parseInt(linha.substring(p1 + 1, p2).trim());
+                preco = Math.round(Double.parseDouble(linha.substring(p2 + 1, p3).trim()) * 100);
+                minimo = Math.round(Double.parseDouble(linha.substring(p3 + 1).trim()) * 100);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            if (quantidade <= 0) {
+                continue;
+            }
+            int ordem = ofertas.venda(ofertas.livro(titulo), minimo, preco, quantidade);
+            guardar(ordem, msg, titulo);
+            ordensVenda.increment();
+            if (ofertas.casar(ordem)) {
+                ordens[total++] = ordem;
+            }
+        }
+        vendasPorConversa.put(msg.getConversationId(), Arrays.copyOf(ordens, total));
+    }
+
+    private void receberCompra(ACLMessage msg) {
+        PedidoCompra pedido;
+        try {
+            pedido = PedidoCompra.ler(msg.getContent());
+        } catch (RuntimeException e) {
+            recusar(msg);
+            return;
+        }
+        if (pedido.quantidade <= 0) {
+            recusar(msg);
+            return;
+        }
+        int ordem = ofertas.compra(ofertas.livro(pedido.titulo), Math.round(pedido.precoMaximo * 100), pedido.quantidade);
+        guardar(ordem, msg, pedido.titulo);
+        ordensCompra.increment();
+        if (ofertas.casar(ordem)) {
+            comprasPorConversa.put(msg.getConversationId(), ordem);
+        }
+    }
+
+    /**
+     * Retira do livro as ordens da conversa: todas as vendas do vendedor, ou a compra do comprador.
+     */
+    private void cancelar(ACLMessage msg) {
+        String conversa = msg.getConversationId();
+        int[] vendas = vendasPorConversa.remove(conversa);
+        if (vendas != null) {
+            for (int ordem : vendas) {
+                // O índice pode ter sido reaproveitado por outra ordem depois de executado
+                if (origem[ordem] != null && conversa.equals(origem[ordem].getConversationId())
+                        && ofertas.cancelar(ordem) > 0) {
+                    origem[ordem] = null;
+                    cancelamentos.increment();
+                }
+            }
+            return;
+        }
+
+        Integer compra = comprasPorConversa.remove(conversa);
+        int restante = 0;
+        if (compra != null) {
+            restante = ofertas.cancelar(compra);
+            origem[compra] = null;
+            cancelamentos.increment();
+        }
+        ACLMessage resposta = msg.createReply();
+        resposta.setPerformative(ACLMessage.FAILURE);
+        resposta.setContent("ordem-cancelada:" + restante);
+        send(resposta);
+    }
+
+    private void guardar(int ordem, ACLMessage msg, String titulo) {
+        if (ordem >= origem.length) {
+            int tamanho = Math.max(origem.length * 2, ordem + 1);
+            origem = Arrays.copyOf(origem, tamanho);
+            tituloDa = Arrays.copyOf(tituloDa, tamanho);
+        }
+        origem[ordem] = msg;
+        tituloDa[ordem] = titulo;
+    }
+
+    /**
+     * Callback do LivroOfertas: avisa as duas partes do negócio.
+     */
+    private void negocio(int compra, int venda, long centavos, int quantidade) {
+        negocios.increment();
+        unidades.add(quantidade);
+        double preco = centavos / 100.0;
+
+        ACLMessage comprador = origem[compra].createReply();
+        comprador.setPerformative(ACLMessage.INFORM);
+        CodecOferta.escrever(comprador, preco, quantidade);
+        send(comprador);
+
+        ACLMessage vendedor = origem[venda].createReply();
+        vendedor.setPerformative(ACLMessage.INFORM);
+        CodecOferta.escrever(vendedor, preco, quantidade);
+        vendedor.addUserDefinedParameter("titulo", tituloDa[venda]);
+        send(vendedor);
+
+        if (ofertas.quantidade(compra) == 0) {
+            comprasPorConversa.remove(origem[compra].getConversationId());
+            origem[compra] = null;
+        }
+        if (ofertas.quantidade(venda) == 0) {
+            origem[venda] = null;
+        }
+    }
+
+    private void recusar(ACLMessage msg) {
+        ACLMessage resposta = msg.createReply();
+        resposta.setPerformative(ACLMessage.REFUSE);
+        resposta.setContent("pedido-invalido");
+        send(resposta);
+    }
+
+    protected void takeDown() {
+        try {
+            DFService.deregister(this);
+        } catch (FIPAException fe) {
+            Log.erro(fe, "Falha ao sair do DF");
+        }
+        Log.info("%s encerrando com %d ordens no livro", getLocalName(), ofertas.abertas());
+    }
+}
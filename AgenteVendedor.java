@@ -1,5 +1,6 @@
 package sistema_multiagente;
 
+import jade.core.AID;
 import jade.core.Agent;
 import jade.core.behaviours.*;
 import jade.lang.acl.ACLMessage;
@@ -8,7 +9,9 @@ import jade.domain.DFService;
 import jade.domain.FIPAException;
 import jade.domain.FIPAAgentManagement.DFAgentDescription;
 import jade.domain.FIPAAgentManagement.ServiceDescription;
-import java.util.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * ESTRATÉGIA DO VENDEDOR:
@@ -16,197 +19,393 @@ import java.util.*;
  * 1. REGISTRO:
  *    - Registra no DF como serviço do tipo "venda-livros"
  *    - Mantém um estoque com: quantidade, preço inicial e preço mínimo
+ *    - O estoque vem dos argumentos ("Título:Quantidade:Preço:PreçoMínimo")
+ *      ou de um arquivo de catálogo ("catalogo=<arquivo>"), para catálogos grandes
+ *    - Com o argumento "fragmento=<i>/<n>", vende só os títulos do fragmento i de n
+ *      do catálogo (hash do título), descarta os demais na carga e publica o
+ *      fragmento no DF para que os compradores só o procurem por esses títulos
+ *    - Publica no DF um FiltroBloom dos títulos com unidades em estoque
+ *      (-Dvendedor.bloom.bits bits por título, padrão 10); quando um título
+ *      esgota ou entra no catálogo, o filtro é refeito e o registro atualizado
+ *      com DFService.modify, no máximo a cada -Dvendedor.catalogo.intervalo ms
+ *      (padrão 1000); a atualização roda em TarefasBloqueantes, sem parar o
+ *      despachante enquanto o DF responde
  * 
  * 2. RESPOSTA A PEDIDOS:
  *    - Para CFP (Call For Proposal), verifica:
  *      * Se tem o livro em estoque 
  *      * Se tem quantidade suficiente 
+ *    - CFPs são respondidos em lotes: todos os que estão na fila quando o
+ *      despachante roda, ou os que chegam dentro de -Dvendedor.janela.cfp ms
+ *      (padrão 0, sem espera); no lote, CFPs do mesmo título compartilham uma
+ *      única cotação
+ *    - A cotação de abertura (preço e conteúdo já codificado) fica no
+ *      CacheCotacoes, invalidada quando o título é vendido ou muda de preço
+ *    - A proposta informa a quantidade reservada para o comprador
  * 
- * 3. NEGOCIAÇÃO:
+ * 3. DESPACHO DE MENSAGENS:
+ *    - Um único comportamento recebe todas as mensagens do agente, exceto as
+ *      respostas do DF, que ficam para a atualização do catálogo
+ *    - Mensagens de negociações em andamento são tratadas na hora; CFPs esperam
+ *      o fim do lote
+ *    - Cada negociação é identificada pelo conversation-id do CFP que a originou
+ *    - As mensagens são entregues à negociação por consulta em tabela hash,
+ *      com custo constante independente do número de negociações abertas
+ *    - Mensagens cujo in-reply-to não corresponde à última oferta são descartadas
+ *    - O tratamento das mensagens fica no MotorVendedor, que não depende do
+ *      agente e é o mesmo usado pela Reproducao dos rastros
+ * 
+ * 3.1. PRAZO DAS NEGOCIAÇÕES:
+ *    - Cada negociação aberta espera a próxima mensagem do comprador por até
+ *      -Dvendedor.negociacao.prazo ms (padrão: o prazo da reserva)
+ *    - Vencido o prazo, a negociação sai da tabela, a reserva é liberada e o
+ *      comprador recebe CANCEL "prazo-esgotado"; as expirações são contadas
+ *      em "negociacoes.expiradas"
+ * 
+ * 3.2. CONTROLE DE ADMISSÃO:
+ *    - No máximo -Dvendedor.negociacoes.max (padrão 10000) negociações abertas
+ *      e CFPs no lote; acima disso, o CFP recebe na hora REFUSE "ocupado"
+ *    - Com mais de -Dvendedor.fila.max (padrão 10000) mensagens na fila do
+ *      agente, os CFPs lidos são recusados do mesmo jeito, sem cotação nem
+ *      reserva, enquanto as mensagens das negociações seguem atendidas
+ *    - O REFUSE "ocupado" traz a espera sugerida no parâmetro "tentar-apos"
+ *      (-Dvendedor.ocupado.espera, padrão 1000 ms); 0 desliga cada limite
+ *    - O lote de CFPs só é respondido depois que a leitura esvazia a fila (ou
+ *      o lote enche), então mensagens de negociações em andamento nunca
+ *      esperam atrás de CFPs novos
+ * 
+ * 4. RESERVA DE ESTOQUE:
+ *    - Cada proposta separa as unidades pedidas por um prazo de validade
+ *      (-Dvendedor.reserva.ttl, padrão 30000 ms), renovado a cada contraproposta
+ *    - O aceite confirma a reserva; rejeição ou prazo vencido devolvem as unidades
+ *    - Sem unidades livres, o CFP é recusado na hora, sem rodadas desperdiçadas
+ * 
+ * 5. CONTEÚDO DAS MENSAGENS:
+ *    - Ofertas são lidas e escritas pelo CodecOferta (texto ou binário)
+ *    - Com -Drastro.arquivo, o estoque inicial e as mensagens enviadas são
+ *      gravados no Rastro
+ * 
+ * 6. NEGOCIAÇÃO:
+ *    - Estratégia escolhida por -Dvendedor.estrategia (padrao, tempo, adaptativa
+ *      ou nome de classe; ver Estrategias). Na padrão:
  *    - Reduz 20% da diferença entre seu preço e a oferta do comprador
  *    - Nunca abaixa abaixo do preço mínimo
  *    - Critérios de aceitação:
  *      * Se atingir o preço mínimo
  *      * Após 5 rodadas de negociação
  *    - Atualiza estoque após venda concluída
+ * 
+ * 6.1. PERSISTÊNCIA (-Dvendedor.diario=<pasta>, opcional):
+ *    - Reservas, vendas e preços são anexados a um DiarioVendas mapeado em memória
+ *    - Ao iniciar, o estoque é recuperado do diário; os argumentos só são usados
+ *      quando ainda não há nada gravado para este vendedor
+ * 
+ * 6.2. LIVRO DE OFERTAS (-Dnegociacao.modo=livro):
+ *    - Localiza o AgenteMercado no DF, reserva todas as unidades disponíveis
+ *      e as oferece ao mercado (limite no preço mínimo, teto no preço)
+ *    - Cada execução informada pelo mercado confirma as unidades reservadas;
+ *      ao encerrar, retira do livro as ofertas restantes
+ * 
+ * 7. MÉTRICAS (registro com o nome do agente):
+ *    - CFPs recebidos, propostas, recusas e vendas
+ *    - Preço de venda em milésimos do preço mínimo
+ *    - Negociações abertas, reservas ativas e tamanho da fila de mensagens
+ *    - Reservas criadas, confirmadas, liberadas e expiradas desde o início
+ *    - Profundidade da fila a cada despacho (histograma) e CFPs recusados
+ *      por sobrecarga ("cfp.recusados.ocupado")
+ *    - CFPs por lote e acertos/falhas do cache de cotações
  */
 
 public class AgenteVendedor extends Agent {
-    private Map<String, Object[]> estoque;
+    static final long TTL_RESERVA = Long.getLong("vendedor.reserva.ttl", 30000);
+    static final long JANELA_CFP = Long.getLong("vendedor.janela.cfp", 0);
+    private static final int LOTE_MAXIMO = 256;
+    private static final int BITS_POR_TITULO = Integer.getInteger("vendedor.bloom.bits", 10);
+    private static final long INTERVALO_CATALOGO = Long.getLong("vendedor.catalogo.intervalo", 1000);
+    static final EstrategiaNegociacao ESTRATEGIA =
+        Estrategias.porNome(System.getProperty("vendedor.estrategia", "padrao"));
+    static final long PRAZO_NEGOCIACAO = Long.getLong("vendedor.negociacao.prazo", TTL_RESERVA);
+    static final int MAXIMO_NEGOCIACOES = Integer.getInteger("vendedor.negociacoes.max", 10000);
+    static final long ESPERA_OCUPADO = Long.getLong("vendedor.ocupado.espera", 1000);
+    private static final int FILA_MAXIMA = Integer.getInteger("vendedor.fila.max", 10000);
+
+    private final Estoque estoque = new Estoque();
+    private MotorVendedor motor;
+    private DiarioVendas diario;
+    private Fragmento fragmento = Fragmento.NENHUM;
+    private int catalogoPublicado = -1;
+    private boolean publicando = false;
+    // Mercado que recebeu as ofertas do estoque (-Dnegociacao.modo=livro)
+    private AID mercado;
+    private boolean localizando = false;
+    private final Oferta oferta = new Oferta();
+    private Histograma profundidadeFila;
+    // Vendas no livro de ofertas, nas mesmas métricas das vendas negociadas
+    private LongAdder vendas;
+    private Histograma precoSobreMinimo;
 
     protected void setup() {
-        System.out.println("Vendedor " + getAID().getName() + " iniciando...");
-        
-        // Registro no DF
-        DFAgentDescription dfd = new DFAgentDescription();
-        dfd.setName(getAID());
-        ServiceDescription sd = new ServiceDescription();
-        sd.setType("venda-livros");
-        sd.setName(getLocalName() + "-livros-usados");
-        dfd.addServices(sd);
+        Log.info("Vendedor %s iniciando...", getAID().getName());
+        ExportadorMetricas.iniciar();
+        motor = new MotorVendedor(getLocalName(), estoque, TTL_RESERVA, PRAZO_NEGOCIACAO, ESTRATEGIA,
+            MAXIMO_NEGOCIACOES, ESPERA_OCUPADO, this::enviar);
+        Metricas metricas = Metricas.de(getLocalName());
+        metricas.medidor("fila.mensagens", this::getCurQueueSize);
+        profundidadeFila = metricas.histograma("fila.profundidade");
+        vendas = metricas.contador("vendas");
+        precoSobreMinimo = metricas.histograma("preco.venda.por.minimo.milesimos");
         
+        Object[] args = getArguments();
+        if (args != null) {
+            for (Object arg : args) {
+                if (((String) arg).startsWith("fragmento=")) {
+                    fragmento = Fragmento.ler(((String) arg).substring("fragmento=".length()));
+                }
+            }
+        }
+
+        if (fragmento != Fragmento.NENHUM) {
+            estoque.restringir(fragmento::contem);
+        }
+
+        // Inicializa estoque: o diário, se houver, tem precedência sobre os argumentos
+        boolean recuperado = false;
+        String pastaDiario = System.getProperty("vendedor.diario");
+        if (pastaDiario != null) {
+            diario = new DiarioVendas(Paths.get(pastaDiario), getLocalName());
+            try {
+                recuperado = diario.recuperar(estoque);
+            } catch (IOException e) {
+                Log.erro(e, "Falha ao recuperar o diário de %s", getLocalName());
+            }
+            if (recuperado) {
+                Log.info("%s recuperou %d títulos do diário em %s", getLocalName(), estoque.tamanho(), pastaDiario);
+            }
+        }
+
+        if (!recuperado && args != null && args.length > 0) {
+            try {
+                for (Object arg : args) {
+                    String linha = (String) arg;
+                    if (linha.startsWith("fragmento=")) {
+                        continue;
+                    } else if (linha.startsWith("catalogo=")) {
+                        int lidos = estoque.carregarArquivo(Paths.get(linha.substring("catalogo=".length())));
+                        Log.info("%s carregou %d títulos de %s", getLocalName(), lidos, linha.substring("catalogo=".length()));
+                    } else {
+                        estoque.carregar(linha);
+                    }
+                }
+            } catch (Exception e) {
+                Log.erro(e, "Falha ao carregar estoque de %s", getLocalName());
+            }
+
+            if (estoque.tamanho() <= 20 && Log.ativo(Log.Nivel.INFO)) {
+                Log.info("Estoque inicial de %s:", getLocalName());
+                for (int id = 0; id < estoque.tamanho(); id++) {
+                    Log.info("- %s: %dun, R$%s (min R$%s)", estoque.titulo(id), estoque.quantidade(id), estoque.preco(id), estoque.precoMinimo(id));
+                }
+            }
+        }
+
+        Rastro.estoque(getLocalName(), estoque);
+
+        if (diario != null) {
+            try {
+                diario.iniciar(estoque);
+                metricas.medidor("diario.registros", diario::registros);
+                metricas.medidor("diario.sync.p99.ns", () -> diario.tempoSync().percentil(99));
+                metricas.medidor("diario.registros.por.sync.p50", () -> diario.registrosPorSync().percentil(50));
+            } catch (IOException e) {
+                Log.erro(e, "Falha ao abrir o diário de %s; vendas não serão persistidas", getLocalName());
+                diario = null;
+            }
+        }
+
+        // Registro no DF, já com o filtro dos títulos carregados
         try {
-            DFService.register(this, dfd);
-            System.out.println(getLocalName() + " registrado no DF");
+            DFService.register(this, descricao());
+            Log.info("%s registrado no DF", getLocalName());
         } catch (FIPAException fe) {
-            System.err.println("Falha no registro do DF");
-            fe.printStackTrace();
+            Log.erro(fe, "Falha no registro do DF");
             doDelete();
             return;
         }
 
-        // Inicializa estoque
-        estoque = new HashMap<>();
-        Object[] args = getArguments();
-        if (args != null && args.length > 0) {
-            System.out.println("Estoque inicial de " + getLocalName() + ":");
-            for (Object arg : args) {
-                String[] dados = ((String) arg).split(":");
-                String titulo = dados[0].trim();
-                int quantidade = Integer.parseInt(dados[1].trim());
-                double preco = Double.parseDouble(dados[2].trim());
-                double precoMinimo = Double.parseDouble(dados[3].trim());
-                estoque.put(titulo, new Object[]{quantidade, preco, precoMinimo});
-                System.out.println("- " + titulo + ": " + quantidade + "un, R$" + preco + " (min R$" + precoMinimo + ")");
+        addBehaviour(new DespachanteBehaviour(this));
+        setEnabledO2ACommunication(true, 0);
+        addBehaviour(new ComportamentoO2A(this));
+        addBehaviour(new TickerBehaviour(this, INTERVALO_CATALOGO) {
+            protected void onTick() {
+                if (publicando || estoque.versaoCatalogo() == catalogoPublicado) {
+                    return;
+                }
+                publicando = true;
+                TarefasBloqueantes.modificarNoDF(myAgent, descricao(), () -> publicando = false, e -> {
+                    publicando = false;
+                    catalogoPublicado = -1;
+                    Log.erro(e, "Falha ao atualizar o catálogo de %s no DF", getLocalName());
+                });
             }
+        });
+        if (AgenteMercado.MODO_LIVRO) {
+            addBehaviour(new TickerBehaviour(this, 1000) {
+                protected void onTick() {
+                    if (mercado != null) {
+                        stop();
+                    } else if (!localizando) {
+                        localizando = true;
+                        AgenteMercado.localizar(myAgent, encontrado -> {
+                            localizando = false;
+                            if (encontrado != null && mercado == null) {
+                                ofertarNoLivro(encontrado);
+                            }
+                        });
+                    }
+                }
+            });
         }
-
-        addBehaviour(new CyclicBehaviour(this) {
-            public void action() {
-                MessageTemplate mt = MessageTemplate.and(
-                    MessageTemplate.MatchPerformative(ACLMessage.CFP),
-                    MessageTemplate.MatchConversationId("negociacao-livros"));
-                
-                ACLMessage msg = receive(mt);
-                if (msg != null) {
-                    processarPedido(msg);
-                } else {
-                    block();
+        addBehaviour(new TickerBehaviour(this, 100) {
+            protected void onTick() {
+                long agora = System.currentTimeMillis();
+                motor.expirar(agora);
+                if (diario != null) {
+                    diario.sincronizar(agora);
                 }
             }
         });
     }
 
-    private void processarPedido(ACLMessage msg) {
-        String[] conteudo = msg.getContent().split(":");
-        String titulo = conteudo[0].trim();
-        int quantidadePedido = Integer.parseInt(conteudo[1].trim());
-        
-        ACLMessage resposta = msg.createReply();
-        
-        if (estoque.containsKey(titulo)) {
-            Object[] livro = estoque.get(titulo);
-            int quantidadeEstoque = (int) livro[0];
-            double preco = (double) livro[1];
-            double precoMinimo = (double) livro[2];
-            
-            if (quantidadeEstoque >= quantidadePedido) {
-                resposta.setPerformative(ACLMessage.PROPOSE);
-                resposta.setContent(preco + ":" + quantidadeEstoque);
-            } else {
-                resposta.setPerformative(ACLMessage.REFUSE);
-                resposta.setContent("estoque-insuficiente");
-            }
-        } else {
-            resposta.setPerformative(ACLMessage.REFUSE);
-            resposta.setContent("livro-inexistente");
-        }
-        send(resposta);
-        
-        if (resposta.getPerformative() == ACLMessage.PROPOSE) {
-            addBehaviour(new ComportamentoNegociacao(
-                msg.getSender(), titulo, quantidadePedido, 
-                (double) estoque.get(titulo)[1], 
-                (double) estoque.get(titulo)[2]));
+    /**
+     * Descrição do serviço com o fragmento e o filtro dos títulos em estoque.
+     */
+    private DFAgentDescription descricao() {
+        catalogoPublicado = estoque.versaoCatalogo();
+        DFAgentDescription dfd = new DFAgentDescription();
+        dfd.setName(getAID());
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType("venda-livros");
+        sd.setName(getLocalName() + "-livros-usados");
+        if (fragmento != Fragmento.NENHUM) {
+            sd.addProperties(fragmento.propriedade());
         }
+        sd.addProperties(FiltroBloom.doEstoque(estoque, BITS_POR_TITULO).propriedade());
+        dfd.addServices(sd);
+        return dfd;
     }
-    
- // Estratégia de desconto progressivo:
- // 1. Reduz 20% da diferença entre seu preço e a oferta do comprador
-//     Ex: Se pede R$100 e comprador oferece R$70:
-//         Diferença = R$30 → 20% = R$6 → Nova oferta = R$94
- // 2. Nunca abaixa abaixo do preço mínimo
- // 3. Na 5ª rodada ou ao atingir o mínimo, envia última oferta
-
-    private class ComportamentoNegociacao extends Behaviour {
-        private final AID comprador;
-        private final String titulo;
-        private final int quantidade;
-        private double precoAtual;
-        private final double precoMinimo;
-        private int rodadas = 0;
-        private boolean negociacaoConcluida = false;
-        
-        public ComportamentoNegociacao(AID comprador, String titulo, int quantidade, 
-                                     double precoInicial, double precoMinimo) {
-            this.comprador = comprador;
-            this.titulo = titulo;
-            this.quantidade = quantidade;
-            this.precoAtual = precoInicial;
-            this.precoMinimo = precoMinimo;
+
+    /**
+     * Envia a mensagem, registrando-a no rastro quando -Drastro.arquivo está definido.
+     */
+    private void enviar(ACLMessage msg) {
+        Rastro.mensagem(getLocalName(), msg);
+        send(msg);
+    }
+
+    private class DespachanteBehaviour extends CyclicBehaviour {
+        private final MessageTemplate mt;
+
+        public DespachanteBehaviour(Agent a) {
+            super(a);
+            mt = MessageTemplate.not(MessageTemplate.MatchSender(a.getDefaultDF()));
         }
-        
+
         public void action() {
-            MessageTemplate mt = MessageTemplate.and(
-                MessageTemplate.MatchSender(comprador),
-                MessageTemplate.MatchConversationId("negociacao-livros"));
-            
-            ACLMessage msg = receive(mt);
-            if (msg != null) {
-                rodadas++;
-                
-                if (msg.getPerformative() == ACLMessage.ACCEPT_PROPOSAL) {
-                    Object[] livro = estoque.get(titulo);
-                    int novoEstoque = (int) livro[0] - quantidade;
-                    
-                    if (novoEstoque >= 0) {
-                        estoque.put(titulo, new Object[]{novoEstoque, precoAtual, precoMinimo});
-                        ACLMessage confirmacao = msg.createReply();
-                        confirmacao.setPerformative(ACLMessage.CONFIRM);
-                        confirmacao.setContent("venda-concluida:" + precoAtual);
-                        send(confirmacao);
-                        System.out.println(getLocalName() + " vendeu " + quantidade + "x " + titulo + " por R$" + precoAtual);
-                    } else {
-                        ACLMessage cancel = msg.createReply();
-                        cancel.setPerformative(ACLMessage.CANCEL);
-                        cancel.setContent("estoque-esgotado");
-                        send(cancel);
-                    }
-                    negociacaoConcluida = true;
-                } 
-                else if (msg.getPerformative() == ACLMessage.PROPOSE) {
-                    double ofertaComprador = Double.parseDouble(msg.getContent().split(":")[0]);
-                    double novaOferta = precoAtual - (precoAtual - ofertaComprador) * 0.2;
-                    novaOferta = Math.max(novaOferta, precoMinimo);
-                    
-                    ACLMessage resposta = msg.createReply();
-                    if (rodadas >= 5 || novaOferta == precoMinimo) {
-                        resposta.setPerformative(ACLMessage.PROPOSE);
-                        resposta.setContent(precoMinimo + ":" + quantidade);
-                        resposta.addUserDefinedParameter("ultima-oferta", "true");
-                    } else {
-                        resposta.setPerformative(ACLMessage.PROPOSE);
-                        resposta.setContent(novaOferta + ":" + quantidade);
-                        precoAtual = novaOferta;
-                    }
-                    send(resposta);
+            int fila = getCurQueueSize();
+            profundidadeFila.registrar(fila);
+            // Fila acima do limite: CFPs lidos agora são recusados sem cotação
+            boolean sobrecarga = FILA_MAXIMA > 0 && fila > FILA_MAXIMA;
+            int lidas = 0;
+            ACLMessage msg;
+            while (lidas < LOTE_MAXIMO && (msg = receive(mt)) != null) {
+                lidas++;
+                if (AgenteMercado.PROTOCOLO.equals(msg.getProtocol())) {
+                    tratarNegocioNoLivro(msg);
+                } else if (sobrecarga && msg.getPerformative() == ACLMessage.CFP) {
+                    motor.recusarOcupado(msg);
+                } else {
+                    motor.receber(msg, System.currentTimeMillis());
                 }
-            } else {
+            }
+
+            if (motor.pendentes() > 0) {
+                long agora = System.currentTimeMillis();
+                long restante = motor.inicioLote() + JANELA_CFP - agora;
+                // Leitura que encheu o lote: ainda há mensagens na fila, e as de
+                // negociações em andamento passam na frente dos CFPs do lote
+                boolean filaLida = lidas < LOTE_MAXIMO;
+                if ((restante <= 0 && filaLida) || motor.pendentes() >= LOTE_MAXIMO) {
+                    motor.processarPedidos(agora);
+                } else if (lidas == 0) {
+                    block(restante);
+                }
+            } else if (lidas == 0) {
                 block();
             }
         }
-        
-        public boolean done() {
-            return negociacaoConcluida;
+    }
+
+    /**
+     * Reserva todas as unidades disponíveis e as oferece ao mercado, um título por linha.
+     */
+    private void ofertarNoLivro(AID encontrado) {
+        mercado = encontrado;
+        StringBuilder linhas = new StringBuilder();
+        for (int id = 0; id < estoque.tamanho(); id++) {
+            int disponivel = estoque.disponivel(id);
+            if (disponivel > 0 && estoque.reservar(id, disponivel)) {
+                linhas.append(estoque.titulo(id)).append(':').append(disponivel).append(':')
+                    .append(estoque.preco(id)).append(':').append(estoque.precoMinimo(id)).append('\n');
+            }
         }
+        ACLMessage ordens = new ACLMessage(ACLMessage.PROPOSE);
+        ordens.addReceiver(mercado);
+        ordens.setProtocol(AgenteMercado.PROTOCOLO);
+        ordens.setConversationId("mercado-" + getLocalName());
+        ordens.setContent(linhas.toString());
+        enviar(ordens);
+        Log.info("%s ofereceu %d títulos ao mercado %s", getLocalName(), estoque.tamanho(), mercado.getLocalName());
     }
-    
+
+    /**
+     * Execução de uma venda no livro de ofertas: confirma as unidades reservadas.
+     */
+    private void tratarNegocioNoLivro(ACLMessage msg) {
+        if (msg.getPerformative() != ACLMessage.INFORM || !CodecOferta.ler(msg, oferta)) {
+            Log.aviso("%s recebeu do mercado: %s", getLocalName(), msg.getContent());
+            return;
+        }
+        int id = estoque.id(msg.getUserDefinedParameter("titulo"));
+        if (id < 0) {
+            return;
+        }
+        estoque.confirmar(id, oferta.quantidade);
+        vendas.increment();
+        precoSobreMinimo.registrar(Math.round(1000 * oferta.preco() / estoque.precoMinimo(id)));
+        Log.info("%s vendeu %dx %s por R$%.2f no mercado", getLocalName(), oferta.quantidade, estoque.titulo(id), oferta.preco());
+    }
+
     protected void takeDown() {
+        if (mercado != null) {
+            ACLMessage cancelamento = new ACLMessage(ACLMessage.CANCEL);
+            cancelamento.addReceiver(mercado);
+            cancelamento.setProtocol(AgenteMercado.PROTOCOLO);
+            cancelamento.setConversationId("mercado-" + getLocalName());
+            enviar(cancelamento);
+        }
         try {
             DFService.deregister(this);
-            System.out.println(getLocalName() + " encerrando e saindo do DF");
+            Log.info("%s encerrando e saindo do DF", getLocalName());
+            Log.info("%s %s", getLocalName(), motor.reservas().resumo());
         } catch (FIPAException fe) {
-            fe.printStackTrace();
+            Log.erro(fe, "Falha ao sair do DF");
+        }
+        if (diario != null) {
+            try {
+                diario.fechar();
+            } catch (IOException e) {
+                Log.erro(e, "Falha ao fechar o diário de %s", getLocalName());
+            }
         }
     }
 }
\ No newline at end of file
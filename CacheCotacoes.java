@@ -0,0 +1,109 @@
+package sistema_multiagente;
+
+import jade.lang.acl.ACLMessage;
+import java.util.*;
+
+/**
+ * CACHE DE COTAÇÕES DO VENDEDOR:
+ *
+ * 1. CONTEÚDO:
+ *    - Para cada título pedido: identificador no Estoque, preço de abertura e o
+ *      conteúdo da proposta já codificado pelo CodecOferta
+ *    - Títulos fora do catálogo também ficam no cache, para recusar sem nova busca
+ *
+ * 2. INVALIDAÇÃO:
+ *    - Cada entrada guarda a versão do título no Estoque, que muda a cada venda,
+ *      troca de preço ou recadastro; versão diferente refaz a cotação
+ *    - Reservas não mudam a cotação: só decidem entre proposta e recusa
+ *    - Títulos ausentes são revistos quando o catálogo cresce
+ *    - Limitado a 65536 títulos; ao atingir o limite, recomeça vazio
+ *
+ * 3. USO:
+ *    - Não é thread-safe: usado apenas pela thread do agente vendedor
+ */
+
+public class CacheCotacoes {
+    public static final class Cotacao {
+        private final int id;
+        private final int versao;
+        private final double preco;
+        private final ACLMessage modelo = new ACLMessage(ACLMessage.PROPOSE);
+        private int quantidade = -1;
+
+        private Cotacao(int id, int versao, double preco) {
+            this.id = id;
+            this.versao = versao;
+            this.preco = preco;
+        }
+
+        public int id() {
+            return id;
+        }
+
+        public double preco() {
+            return preco;
+        }
+
+        /**
+         * Copia para "msg" a proposta de abertura para "quantidade" exemplares.
+         * A codificação só é refeita quando a quantidade muda.
+         */
+        public void escrever(ACLMessage msg, int quantidade) {
+            if (this.quantidade != quantidade) {
+                CodecOferta.escrever(modelo, preco, quantidade);
+                this.quantidade = quantidade;
+            }
+            msg.setLanguage(modelo.getLanguage());
+            if (CodecBinario.LINGUAGEM.equals(modelo.getLanguage())) {
+                msg.setByteSequenceContent(modelo.getByteSequenceContent());
+            } else {
+                msg.setContent(modelo.getContent());
+            }
+        }
+    }
+
+    // Títulos pedidos podem ser quaisquer; o cache é esvaziado ao atingir o limite
+    private static final int LIMITE = 65536;
+
+    private final Estoque estoque;
+    private final Map<String, Cotacao> cotacoes = new HashMap<>();
+    private long acertos = 0;
+    private long falhas = 0;
+
+    public CacheCotacoes(Estoque estoque) {
+        this.estoque = estoque;
+    }
+
+    /**
+     * Cotação atual do título. Para títulos fora do catálogo, a cotação tem id -1.
+     */
+    public Cotacao cotar(String titulo) {
+        Cotacao cotacao = cotacoes.get(titulo);
+        if (cotacao != null) {
+            int versaoAtual = cotacao.id >= 0 ? estoque.versao(cotacao.id) : estoque.tamanho();
+            if (versaoAtual == cotacao.versao) {
+                acertos++;
+                return cotacao;
+            }
+        }
+        falhas++;
+
+        int id = estoque.id(titulo);
+        cotacao = id >= 0
+            ? new Cotacao(id, estoque.versao(id), estoque.preco(id))
+            : new Cotacao(-1, estoque.tamanho(), 0);
+        if (cotacoes.size() >= LIMITE) {
+            cotacoes.clear();
+        }
+        cotacoes.put(titulo, cotacao);
+        return cotacao;
+    }
+
+    public long acertos() {
+        return acertos;
+    }
+
+    public long falhas() {
+        return falhas;
+    }
+}
@@ -0,0 +1,177 @@
+package sistema_multiagente;
+
+import jade.core.AID;
+import jade.core.Agent;
+import jade.domain.DFService;
+import jade.domain.FIPAException;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.SearchConstraints;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import jade.lang.acl.ACLMessage;
+import jade.proto.SubscriptionInitiator;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * CACHE DE VENDEDORES POR CONTAINER:
+ *
+ * 1. ASSINATURA NO DF:
+ *    - Uma única assinatura por container para o serviço "venda-livros"
+ *    - O DF notifica registros e cancelamentos de vendedores
+ *    - Nenhum comprador precisa consultar o DF periodicamente
+ *
+ * 2. DONO DA ASSINATURA:
+ *    - O primeiro comprador inscrito mantém a assinatura
+ *    - Quando ele encerra, a assinatura passa para outro comprador inscrito
+ *
+ * 2.1. FRAGMENTOS E CATÁLOGOS:
+ *    - Guarda o Fragmento e o FiltroBloom de títulos publicados por cada vendedor
+ *    - vendedores(titulo) devolve só os vendedores que podem ter o título
+ *    - Vendedores atualizam o filtro com DFService.modify; o DF notifica a
+ *      mudança como um novo registro, que substitui o anterior
+ *
+ * 3. NOTIFICAÇÃO:
+ *    - A cada mudança, todos os compradores inscritos são avisados
+ *    - O aviso é entregue pela fila O2A, sem bloquear a thread de quem notifica
+ */
+
+public class CacheVendedores {
+    private static final Map<String, CacheVendedores> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Ouvinte avisado sempre que a lista de vendedores muda.
+     */
+    public interface Ouvinte {
+        Agent agente();
+        void vendedoresAtualizados();
+    }
+
+    /**
+     * O que o vendedor publicou no DF sobre os títulos que vende.
+     */
+    private static final class Anuncio {
+        private final Fragmento fragmento;
+        private final FiltroBloom titulos;
+
+        Anuncio(DFAgentDescription descricao) {
+            this.fragmento = Fragmento.daDescricao(descricao);
+            this.titulos = FiltroBloom.daDescricao(descricao);
+        }
+
+        boolean podeTer(String titulo) {
+            return fragmento.contem(titulo) && titulos.talvezContenha(titulo);
+        }
+    }
+
+    private final Map<AID, Anuncio> vendedores = new ConcurrentHashMap<>();
+    private final Set<Ouvinte> ouvintes = new LinkedHashSet<>();
+    private Ouvinte dono;
+    private AssinaturaDF assinatura;
+
+    public static CacheVendedores doContainer(Agent agente) {
+        return caches.computeIfAbsent(agente.here().getName(), nome -> new CacheVendedores());
+    }
+
+    public Set<AID> vendedores() {
+        return Collections.unmodifiableSet(vendedores.keySet());
+    }
+
+    /**
+     * Vendedores cujo fragmento e filtro de títulos admitem o título.
+     */
+    public List<AID> vendedores(String titulo) {
+        List<AID> candidatos = new ArrayList<>();
+        for (Map.Entry<AID, Anuncio> vendedor : vendedores.entrySet()) {
+            if (vendedor.getValue().podeTer(titulo)) {
+                candidatos.add(vendedor.getKey());
+            }
+        }
+        return candidatos;
+    }
+
+    /**
+     * Inscreve o ouvinte. Se ainda não houver assinatura no DF, o ouvinte passa a ser
+     * o dono dela e a assinatura é criada no seu agente.
+     */
+    public synchronized void inscrever(Ouvinte ouvinte) {
+        ouvintes.add(ouvinte);
+        if (dono == null) {
+            assumirAssinatura(ouvinte);
+        }
+    }
+
+    public synchronized void cancelar(Ouvinte ouvinte) {
+        ouvintes.remove(ouvinte);
+        if (dono != ouvinte) {
+            return;
+        }
+
+        assinatura.cancel(ouvinte.agente().getDefaultDF(), true);
+        assinatura = null;
+        dono = null;
+        if (!ouvintes.isEmpty()) {
+            assumirAssinatura(ouvintes.iterator().next());
+        }
+    }
+
+    private void assumirAssinatura(Ouvinte novoDono) {
+        dono = novoDono;
+        assinatura = new AssinaturaDF(novoDono.agente());
+        // O comportamento precisa ser adicionado pela thread do próprio agente
+        final AssinaturaDF nova = assinatura;
+        ComportamentoO2A.agendar(novoDono.agente(), () -> novoDono.agente().addBehaviour(nova));
+    }
+
+    private void atualizar(DFAgentDescription[] descricoes, boolean completa) {
+        Map<AID, Anuncio> ativos = new HashMap<>();
+        for (DFAgentDescription dfd : descricoes) {
+            // Descrição sem serviços indica que o vendedor saiu do DF
+            if (dfd.getAllServices().hasNext()) {
+                ativos.put(dfd.getName(), new Anuncio(dfd));
+            } else {
+                vendedores.remove(dfd.getName());
+            }
+        }
+        if (completa) {
+            vendedores.keySet().retainAll(ativos.keySet());
+        }
+        vendedores.putAll(ativos);
+
+        List<Ouvinte> avisar;
+        synchronized (this) {
+            avisar = new ArrayList<>(ouvintes);
+        }
+        for (Ouvinte ouvinte : avisar) {
+            ouvinte.vendedoresAtualizados();
+        }
+    }
+
+    private class AssinaturaDF extends SubscriptionInitiator {
+        private boolean primeiraNotificacao = true;
+
+        AssinaturaDF(Agent a) {
+            super(a, criarMensagem(a));
+        }
+
+        protected void handleInform(ACLMessage inform) {
+            try {
+                // A primeira notificação traz a lista completa de vendedores
+                atualizar(DFService.decodeNotification(inform.getContent()), primeiraNotificacao);
+                primeiraNotificacao = false;
+            } catch (FIPAException fe) {
+                Log.erro(fe, "Notificação do DF inválida");
+            }
+        }
+    }
+
+    private static ACLMessage criarMensagem(Agent a) {
+        DFAgentDescription template = new DFAgentDescription();
+        ServiceDescription sd = new ServiceDescription();
+        sd.setType("venda-livros");
+        template.addServices(sd);
+
+        SearchConstraints sc = new SearchConstraints();
+        sc.setMaxResults(-1L);
+        return DFService.createSubscriptionMessage(a, a.getDefaultDF(), template, sc);
+    }
+}
@@ -0,0 +1,57 @@
+package sistema_multiagente;
+
+import jade.lang.acl.ACLMessage;
+
+/**
+ * CODEC BINÁRIO:
+ *
+ * 1. FORMATO:
+ *    - 8 bytes: preço em centavos (long, big-endian)
+ *    - 4 bytes: quantidade (int, big-endian)
+ *    - language da mensagem: "oferta-bin"
+ *
+ * 2. CUSTO:
+ *    - Um único byte[] de 12 posições por mensagem enviada
+ *    - Leitura sem nenhuma alocação
+ */
+
+public final class CodecBinario implements CodecOferta {
+    public static final CodecBinario INSTANCIA = new CodecBinario();
+    public static final String LINGUAGEM = "oferta-bin";
+    private static final int TAMANHO = 12;
+
+    private CodecBinario() {
+    }
+
+    public void codificar(ACLMessage msg, long centavos, int quantidade) {
+        byte[] dados = new byte[TAMANHO];
+        for (int i = 7; i >= 0; i--) {
+            dados[i] = (byte) centavos;
+            centavos >>>= 8;
+        }
+        for (int i = 11; i >= 8; i--) {
+            dados[i] = (byte) quantidade;
+            quantidade >>>= 8;
+        }
+        msg.setLanguage(LINGUAGEM);
+        msg.setByteSequenceContent(dados);
+    }
+
+    public boolean decodificar(ACLMessage msg, Oferta destino) {
+        byte[] dados = msg.getByteSequenceContent();
+        if (dados == null || dados.length != TAMANHO) {
+            return false;
+        }
+        long centavos = 0;
+        for (int i = 0; i < 8; i++) {
+            centavos = (centavos << 8) | (dados[i] & 0xFF);
+        }
+        int quantidade = 0;
+        for (int i = 8; i < TAMANHO; i++) {
+            quantidade = (quantidade << 8) | (dados[i] & 0xFF);
+        }
+        destino.centavos = centavos;
+        destino.quantidade = quantidade;
+        return true;
+    }
+}
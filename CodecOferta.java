@@ -0,0 +1,39 @@
+package sistema_multiagente;
+
+import jade.lang.acl.ACLMessage;
+
+/**
+ * CODIFICAÇÃO DO CONTEÚDO DAS OFERTAS:
+ *
+ * 1. FORMATOS:
+ *    - "texto": "preço:quantidade" com duas casas decimais (formato original)
+ *    - "binario": 12 bytes, centavos (long) seguidos da quantidade (int)
+ *
+ * 2. ESCOLHA:
+ *    - O formato de envio vem da propriedade -Dnegociacao.codec=texto|binario
+ *    - A leitura identifica o formato pelo campo language da mensagem, então
+ *      agentes configurados com formatos diferentes continuam se entendendo
+ */
+
+public interface CodecOferta {
+    void codificar(ACLMessage msg, long centavos, int quantidade);
+
+    /**
+     * Preenche "destino" com a oferta da mensagem. Retorna false se o conteúdo for inválido.
+     */
+    boolean decodificar(ACLMessage msg, Oferta destino);
+
+    CodecOferta ATIVO = "binario".equals(System.getProperty("negociacao.codec", "texto"))
+        ? CodecBinario.INSTANCIA : CodecTexto.INSTANCIA;
+
+    static void escrever(ACLMessage msg, double preco, int quantidade) {
+        ATIVO.codificar(msg, Oferta.centavos(preco), quantidade);
+    }
+
+    static boolean ler(ACLMessage msg, Oferta destino) {
+        if (CodecBinario.LINGUAGEM.equals(msg.getLanguage())) {
+            return CodecBinario.INSTANCIA.decodificar(msg, destino);
+        }
+        return CodecTexto.INSTANCIA.decodificar(msg, destino);
+    }
+}
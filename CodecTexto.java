@@ -0,0 +1,132 @@
+package sistema_multiagente;
+
+import jade.lang.acl.ACLMessage;
+
+/**
+ * CODEC TEXTO ("preço:quantidade"):
+ *
+ * 1. ESCRITA:
+ *    - Preço sempre com duas casas decimais, montado a partir dos centavos
+ *    - language da mensagem: "oferta-texto"
+ *
+ * 2. LEITURA:
+ *    - Percorre os caracteres uma única vez, sem split nem Double.parseDouble
+ *    - Aceita mais de duas casas decimais (arredonda para centavos), para
+ *      continuar lendo mensagens no formato antigo gerado por Double.toString
+ */
+
+public final class CodecTexto implements CodecOferta {
+    public static final CodecTexto INSTANCIA = new CodecTexto();
+    public static final String LINGUAGEM = "oferta-texto";
+
+    private CodecTexto() {
+    }
+
+    public void codificar(ACLMessage msg, long centavos, int quantidade) {
+        StringBuilder sb = new StringBuilder(24);
+        if (centavos < 0) {
+            sb.append('-');
+            centavos = -centavos;
+        }
+        long resto = centavos % 100;
+        sb.append(centavos / 100).append('.');
+        if (resto < 10) {
+            sb.append('0');
+        }
+        sb.append(resto).append(':').append(quantidade);
+        // createReply copia o language da mensagem original, que pode ser binária
+        msg.setLanguage(LINGUAGEM);
+        msg.setContent(sb.toString());
+    }
+
+    public boolean decodificar(ACLMessage msg, Oferta destino) {
+        String conteudo = msg.getContent();
+        return conteudo != null && decodificar(conteudo, destino);
+    }
+
+    public boolean decodificar(CharSequence conteudo, Oferta destino) {
+        int n = conteudo.length();
+        int i = 0;
+        boolean negativo = false;
+        if (i < n && conteudo.charAt(i) == '-') {
+            negativo = true;
+            i++;
+        }
+
+        long inteiro = 0;
+        int digitos = 0;
+        char c = 0;
+        for (; i < n; i++) {
+            c = conteudo.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            inteiro = inteiro * 10 + (c - '0');
+            digitos++;
+        }
+
+        long fracao = 0;
+        if (i < n && c == '.') {
+            // Duas casas decimais, a terceira só define o arredondamento
+            int casas = 0;
+            boolean arredondar = false;
+            for (i++; i < n; i++) {
+                c = conteudo.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                if (casas < 2) {
+                    fracao = fracao * 10 + (c - '0');
+                } else if (casas == 2) {
+                    arredondar = c >= '5';
+                }
+                casas++;
+                digitos++;
+            }
+            if (casas == 1) {
+                fracao *= 10;
+            }
+            if (arredondar) {
+                fracao++;
+            }
+        }
+
+        if (digitos == 0 || i >= n || conteudo.charAt(i) != ':') {
+            // Notação científica ou conteúdo inesperado
+            return decodificarLento(conteudo.toString(), destino);
+        }
+
+        int quantidade = 0;
+        boolean temQuantidade = false;
+        for (i++; i < n; i++) {
+            c = conteudo.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            quantidade = quantidade * 10 + (c - '0');
+            temQuantidade = true;
+        }
+        if (!temQuantidade) {
+            return false;
+        }
+
+        long centavos = inteiro * 100 + fracao;
+        destino.centavos = negativo ? -centavos : centavos;
+        destino.quantidade = quantidade;
+        return true;
+    }
+
+    private boolean decodificarLento(String conteudo, Oferta destino) {
+        int separador = conteudo.indexOf(':');
+        if (separador < 0) {
+            return false;
+        }
+        try {
+            destino.centavos = Oferta.centavos(Double.parseDouble(conteudo.substring(0, separador)));
+            destino.quantidade = Integer.parseInt(conteudo.substring(separador + 1).trim());
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package sistema_multiagente;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * COLETOR DE RESULTADOS DAS COMPRAS:
+ *
+ * 1. REGISTRO:
+ *    - Cada comprador informa o desfecho da sua compra: acordo, fracasso ou,
+ *      no livro de ofertas, compra parcial
+ *    - Para acordos, registra o tempo desde a criação do comprador e o número
+ *      de mensagens que ele enviou e recebeu
+ *
+ * 2. USO:
+ *    - Compartilhado por todos os agentes da JVM, sem travas
+ *    - Lido pelo TesteCarga para montar o relatório de vazão
+ */
+
+public final class ColetorCarga {
+    private static final Histograma tempoAteAcordo = new Histograma();
+    private static final LongAdder acordos = new LongAdder();
+    private static final LongAdder fracassos = new LongAdder();
+    private static final LongAdder parciais = new LongAdder();
+    private static final LongAdder mensagens = new LongAdder();
+
+    private ColetorCarga() {
+    }
+
+    public static void acordo(long nanosAteAcordo, int mensagensTrocadas) {
+        tempoAteAcordo.registrar(nanosAteAcordo);
+        acordos.increment();
+        mensagens.add(mensagensTrocadas);
+    }
+
+    public static void fracasso(int mensagensTrocadas) {
+        fracassos.increment();
+        mensagens.add(mensagensTrocadas);
+    }
+
+    public static void parcial(int mensagensTrocadas) {
+        parciais.increment();
+        mensagens.add(mensagensTrocadas);
+    }
+
+    public static Histograma tempoAteAcordo() {
+        return tempoAteAcordo;
+    }
+
+    public static long acordos() {
+        return acordos.sum();
+    }
+
+    public static long fracassos() {
+        return fracassos.sum();
+    }
+
+    public static long parciais() {
+        return parciais.sum();
+    }
+
+    public static long mensagens() {
+        return mensagens.sum();
+    }
+
+    public static void zerar() {
+        tempoAteAcordo.zerar();
+        acordos.reset();
+        fracassos.reset();
+        parciais.reset();
+        mensagens.reset();
+    }
+}
@@ -0,0 +1,46 @@
+package sistema_multiagente;
+
+import jade.core.Agent;
+import jade.core.behaviours.CyclicBehaviour;
+
+/**
+ * ENTREGA DE TAREFAS PARA A THREAD DO AGENTE:
+ *
+ * 1. FILA O2A:
+ *    - Outras threads depositam objetos com putO2AObject
+ *    - O JADE acorda os comportamentos bloqueados a cada depósito
+ *
+ * 2. EXECUÇÃO:
+ *    - Cada Runnable recebido é executado na thread do agente
+ *    - Assim o estado do agente só é alterado pelo próprio agente
+ *    - Objetos que não são Runnable são ignorados
+ */
+
+public class ComportamentoO2A extends CyclicBehaviour {
+    public ComportamentoO2A(Agent a) {
+        super(a);
+    }
+
+    public void action() {
+        Object obj = myAgent.getO2AObject();
+        if (obj == null) {
+            block();
+            return;
+        }
+
+        if (obj instanceof Runnable) {
+            ((Runnable) obj).run();
+        }
+    }
+
+    /**
+     * Agenda uma tarefa para rodar na thread do agente, sem bloquear quem chama.
+     */
+    public static void agendar(Agent agente, Runnable tarefa) {
+        try {
+            agente.putO2AObject(tarefa, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
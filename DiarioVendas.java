@@ -0,0 +1,397 @@
+package sistema_multiagente;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * DIÁRIO DE VENDAS (PERSISTÊNCIA DO ESTOQUE):
+ *
+ * 1. ARQUIVOS (no diretório -Dvendedor.diario, um conjunto por vendedor):
+ *    - "<vendedor>.snapshot": estoque completo e a geração do diário que o segue
+ *    - "<vendedor>-<geração>.diario": registros anexados desde o snapshot,
+ *      em um arquivo mapeado em memória de tamanho fixo
+ *
+ * 2. REGISTROS:
+ *    - Cadastro de título, reserva, liberação, confirmação de venda e troca de preço
+ *    - Formato: tamanho, CRC32 e conteúdo; o tamanho é escrito por último, então
+ *      um registro interrompido no meio é reconhecido e descartado na leitura
+ *    - Escrever é copiar bytes para a memória mapeada: sobrevive à queda do
+ *      processo sem nenhuma chamada ao sistema
+ *
+ * 3. GRUPO DE COMMIT:
+ *    - O force() para o disco é feito no máximo a cada -Dvendedor.diario.sync ms
+ *      (padrão 100), cobrindo de uma vez todos os registros do intervalo
+ *    - Protege contra queda da máquina, com perda máxima de um intervalo
+ *
+ * 4. SNAPSHOT E ROTAÇÃO:
+ *    - Quando o diário enche, a cada -Dvendedor.diario.snapshot registros e ao
+ *      encerrar o agente, o estoque inteiro vai para um novo snapshot (gravado em
+ *      arquivo temporário e renomeado) e começa uma nova geração do diário
+ *
+ * 5. RECUPERAÇÃO:
+ *    - Carrega o snapshot e reaplica o diário da mesma geração
+ *    - Reservas em aberto são liberadas: as negociações morreram com o processo
+ */
+
+public class DiarioVendas {
+    private static final int MAGICO = 0x44564E44;
+    private static final byte TITULO = 1;
+    private static final byte RESERVA = 2;
+    private static final byte LIBERACAO = 3;
+    private static final byte CONFIRMACAO = 4;
+    private static final byte PRECO = 5;
+    // Tamanho e CRC; o maior registro possível é um título com 65535 bytes
+    private static final int CABECALHO = 8;
+    private static final int REGISTRO_MAXIMO = CABECALHO + 1 + 4 + 4 + 8 + 8 + 2 + 65535;
+
+    private final Path diretorio;
+    private final String nome;
+    private final int capacidade;
+    private final long intervaloSync;
+    private final long registrosPorSnapshot;
+    private final CRC32 crc = new CRC32();
+
+    private Estoque estoque;
+    private long geracao = 0;
+    private FileChannel canal;
+    private MappedByteBuffer mapa;
+    private long registrosGeracao = 0;
+    private int pendentesSync = 0;
+    private long ultimoSync = 0;
+
+    private long registros = 0;
+    private final Histograma tempoSync = new Histograma();
+    private final Histograma registrosPorSync = new Histograma();
+
+    public DiarioVendas(Path diretorio, String nome) {
+        this(diretorio, nome,
+            Integer.getInteger("vendedor.diario.tamanho", 64) * 1024 * 1024,
+            Long.getLong("vendedor.diario.sync", 100),
+            Long.getLong("vendedor.diario.snapshot", 1_000_000));
+    }
+
+    public DiarioVendas(Path diretorio, String nome, int capacidade, long intervaloSync, long registrosPorSnapshot) {
+        this.diretorio = diretorio;
+        this.nome = nome;
+        this.capacidade = Math.max(capacidade, REGISTRO_MAXIMO * 2);
+        this.intervaloSync = intervaloSync;
+        this.registrosPorSnapshot = registrosPorSnapshot;
+    }
+
+    /**
+     * Reconstrói o estoque a partir do snapshot e do diário. Retorna false se não
+     * havia nada gravado para este vendedor.
+     */
+    public boolean recuperar(Estoque estoque) throws IOException {
+        Path snapshot = arquivoSnapshot();
+        boolean encontrado = false;
+        if (Files.exists(snapshot)) {
+            lerSnapshot(snapshot, estoque);
+            encontrado = true;
+        }
+        Path diario = arquivoDiario(geracao);
+        if (Files.exists(diario)) {
+            encontrado |= replicar(diario, estoque) > 0;
+        }
+        estoque.liberarReservas();
+        return encontrado;
+    }
+
+    /**
+     * Passa a registrar as mudanças do estoque. Começa com um snapshot do estado atual.
+     */
+    public void iniciar(Estoque estoque) throws IOException {
+        Files.createDirectories(diretorio);
+        this.estoque = estoque;
+        rotacionar();
+        estoque.registrarEm(this);
+    }
+
+    void titulo(int id, String titulo, int quantidade, double preco, double precoMinimo) {
+        byte[] bytes = titulo.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 65535) {
+            throw new IllegalArgumentException("Título longo demais para o diário: " + titulo);
+        }
+        if (!espaco(1 + 4 + 4 + 8 + 8 + 2 + bytes.length)) {
+            return;
+        }
+        int inicio = mapa.position();
+        mapa.position(inicio + CABECALHO);
+        mapa.put(TITULO).putInt(id).putInt(quantidade)
+            .putLong(Double.doubleToRawLongBits(preco)).putLong(Double.doubleToRawLongBits(precoMinimo))
+            .putShort((short) bytes.length).put(bytes);
+        concluir(inicio);
+    }
+
+    void reserva(int id, int quantidade) {
+        quantidade(RESERVA, id, quantidade);
+    }
+
+    void liberacao(int id, int quantidade) {
+        quantidade(LIBERACAO, id, quantidade);
+    }
+
+    void confirmacao(int id, int quantidade) {
+        quantidade(CONFIRMACAO, id, quantidade);
+    }
+
+    void preco(int id, double preco) {
+        if (!espaco(1 + 4 + 8)) {
+            return;
+        }
+        int inicio = mapa.position();
+        mapa.position(inicio + CABECALHO);
+        mapa.put(PRECO).putInt(id).putLong(Double.doubleToRawLongBits(preco));
+        concluir(inicio);
+    }
+
+    private void quantidade(byte tipo, int id, int quantidade) {
+        if (!espaco(1 + 4 + 4)) {
+            return;
+        }
+        int inicio = mapa.position();
+        mapa.position(inicio + CABECALHO);
+        mapa.put(tipo).putInt(id).putInt(quantidade);
+        concluir(inicio);
+    }
+
+    /**
+     * Garante espaço para o registro. Se o diário precisa rodar, o novo snapshot
+     * já contém a mudança em curso (o Estoque muda antes de registrar), e o
+     * registro não deve ser escrito: retorna false.
+     */
+    private boolean espaco(int tamanho) {
+        if (mapa.remaining() < CABECALHO + tamanho + 4 || registrosGeracao >= registrosPorSnapshot) {
+            try {
+                rotacionar();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    private void concluir(int inicio) {
+        int fim = mapa.position();
+        int tamanho = fim - inicio - CABECALHO;
+        crc.reset();
+        crc.update(mapa.duplicate().position(inicio + CABECALHO).limit(fim));
+        mapa.putInt(inicio + 4, (int) crc.getValue());
+        // O tamanho por último: até aqui o registro é invisível para a recuperação
+        mapa.putInt(inicio, tamanho);
+        registros++;
+        registrosGeracao++;
+        pendentesSync++;
+    }
+
+    /**
+     * Grupo de commit: chamado periodicamente pela thread do agente.
+     */
+    public void sincronizar(long agora) {
+        if (pendentesSync == 0 || agora - ultimoSync < intervaloSync) {
+            return;
+        }
+        forcar();
+        ultimoSync = agora;
+    }
+
+    private void forcar() {
+        if (mapa == null || pendentesSync == 0) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        mapa.force();
+        tempoSync.registrar(System.nanoTime() - inicio);
+        registrosPorSync.registrar(pendentesSync);
+        pendentesSync = 0;
+    }
+
+    /**
+     * Snapshot final e diário vazio: o próximo início não precisa reaplicar nada.
+     */
+    public void fechar() throws IOException {
+        if (estoque == null) {
+            return;
+        }
+        rotacionar();
+        canal.close();
+    }
+
+    private void rotacionar() throws IOException {
+        forcar();
+        geracao++;
+
+        // Depois do snapshot, os diários anteriores não são mais necessários
+        gravarSnapshot();
+
+        if (canal != null) {
+            canal.close();
+        }
+        canal = FileChannel.open(arquivoDiario(geracao), StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapa = canal.map(FileChannel.MapMode.READ_WRITE, 0, capacidade);
+        registrosGeracao = 0;
+        removerDiariosAntigos();
+    }
+
+    private void removerDiariosAntigos() throws IOException {
+        String prefixo = nome + "-";
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(diretorio, "*.diario")) {
+            for (Path arquivo : arquivos) {
+                String nomeArquivo = arquivo.getFileName().toString();
+                if (!nomeArquivo.startsWith(prefixo)) {
+                    continue;
+                }
+                String numero = nomeArquivo.substring(prefixo.length(), nomeArquivo.length() - ".diario".length());
+                try {
+                    if (Long.parseLong(numero) < geracao) {
+                        Files.delete(arquivo);
+                    }
+                } catch (NumberFormatException e) {
+                    // Diário de outro vendedor cujo nome começa com o mesmo prefixo
+                }
+            }
+        }
+    }
+
+    private void gravarSnapshot() throws IOException {
+        Path destino = arquivoSnapshot();
+        Path temporario = diretorio.resolve(nome + ".snapshot.tmp");
+        try (FileOutputStream arquivo = new FileOutputStream(temporario.toFile());
+             DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(arquivo))) {
+            saida.writeInt(MAGICO);
+            saida.writeLong(geracao);
+            synchronized (estoque) {
+                int tamanho = estoque.tamanho();
+                saida.writeInt(tamanho);
+                for (int id = 0; id < tamanho; id++) {
+                    saida.writeUTF(estoque.titulo(id));
+                    saida.writeInt(estoque.quantidade(id));
+                    saida.writeInt(estoque.reservado(id));
+                    saida.writeDouble(estoque.preco(id));
+                    saida.writeDouble(estoque.precoMinimo(id));
+                }
+            }
+            saida.flush();
+            arquivo.getFD().sync();
+        }
+        Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void lerSnapshot(Path snapshot, Estoque estoque) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+            if (entrada.readInt() != MAGICO) {
+                throw new IOException("Snapshot inválido: " + snapshot);
+            }
+            geracao = entrada.readLong();
+            int tamanho = entrada.readInt();
+            for (int i = 0; i < tamanho; i++) {
+                String titulo = entrada.readUTF();
+                int quantidade = entrada.readInt();
+                int reservado = entrada.readInt();
+                double preco = entrada.readDouble();
+                double precoMinimo = entrada.readDouble();
+                int id = estoque.adicionar(titulo, quantidade, preco, precoMinimo);
+                estoque.reservar(id, reservado);
+            }
+        }
+    }
+
+    /**
+     * Reaplica os registros válidos do diário. Retorna quantos foram lidos.
+     */
+    private int replicar(Path diario, Estoque estoque) throws IOException {
+        int lidos = 0;
+        try (FileChannel leitura = FileChannel.open(diario, StandardOpenOption.READ)) {
+            MappedByteBuffer dados = leitura.map(FileChannel.MapMode.READ_ONLY, 0, leitura.size());
+            while (dados.remaining() >= CABECALHO) {
+                int inicio = dados.position();
+                int tamanho = dados.getInt();
+                int esperado = dados.getInt();
+                if (tamanho <= 0 || tamanho > dados.remaining()) {
+                    break;
+                }
+                crc.reset();
+                crc.update(dados.duplicate().limit(inicio + CABECALHO + tamanho));
+                if ((int) crc.getValue() != esperado) {
+                    Log.aviso("Diário %s: registro corrompido na posição %d, ignorando o restante", diario, inicio);
+                    break;
+                }
+                aplicar(dados, estoque);
+                dados.position(inicio + CABECALHO + tamanho);
+                lidos++;
+            }
+        }
+        Log.info("Diário %s: %d registros reaplicados", diario, lidos);
+        return lidos;
+    }
+
+    private static void aplicar(MappedByteBuffer dados, Estoque estoque) {
+        byte tipo = dados.get();
+        int id = dados.getInt();
+        switch (tipo) {
+            case TITULO: {
+                int quantidade = dados.getInt();
+                double preco = Double.longBitsToDouble(dados.getLong());
+                double precoMinimo = Double.longBitsToDouble(dados.getLong());
+                byte[] bytes = new byte[dados.getShort() & 0xFFFF];
+                dados.get(bytes);
+                estoque.adicionar(new String(bytes, StandardCharsets.UTF_8), quantidade, preco, precoMinimo);
+                break;
+            }
+            case RESERVA:
+                estoque.reservar(id, dados.getInt());
+                break;
+            case LIBERACAO:
+                estoque.liberar(id, dados.getInt());
+                break;
+            case CONFIRMACAO:
+                estoque.confirmar(id, dados.getInt());
+                break;
+            case PRECO:
+                estoque.definirPreco(id, Double.longBitsToDouble(dados.getLong()));
+                break;
+            default:
+                throw new IllegalStateException("Tipo de registro desconhecido: " + tipo);
+        }
+    }
+
+    private Path arquivoSnapshot() {
+        return diretorio.resolve(nome + ".snapshot");
+    }
+
+    private Path arquivoDiario(long geracao) {
+        return diretorio.resolve(nome + "-" + geracao + ".diario");
+    }
+
+    public long registros() {
+        return registros;
+    }
+
+    public long geracao() {
+        return geracao;
+    }
+
+    public Histograma tempoSync() {
+        return tempoSync;
+    }
+
+    public Histograma registrosPorSync() {
+        return registrosPorSync;
+    }
+}
@@ -0,0 +1,134 @@
+package sistema_multiagente;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.function.Consumer;
+
+/**
+ * FONTES DE PEDIDOS DO GERENTE:
+ *
+ * 1. CONSOLE:
+ *    - Menu interativo (comprar / sair), lido por uma thread própria
+ *
+ * 2. ARQUIVO:
+ *    - Uma linha "Título;Quantidade;PreçoMáximo" por pedido
+ *
+ * 3. SOCKET LOCAL:
+ *    - Escuta em localhost:<porta>; cada conexão envia pedidos, um por linha
+ *
+ * 4. ENTREGA:
+ *    - Cada pedido lido é passado ao consumidor, que o coloca na fila do gerente
+ *    - As threads são daemon e nunca executam código do agente
+ */
+
+public final class EntradaPedidos {
+    private EntradaPedidos() {
+    }
+
+    public static Thread console(Consumer<PedidoCompra> destino, Runnable sair) {
+        return iniciar("entrada-console", () -> {
+            Scanner scanner = new Scanner(System.in);
+            while (!Thread.currentThread().isInterrupted()) {
+                System.out.println("\n=== Sistema de Compras ===");
+                System.out.println("1. Comprar livro");
+                System.out.println("2. Sair");
+                System.out.print("Escolha: ");
+                
+                try {
+                    int escolha = scanner.nextInt();
+                    scanner.nextLine();
+                    
+                    switch (escolha) {
+                        case 1:
+                            System.out.print("Livro: ");
+                            String titulo = scanner.nextLine();
+                            
+                            System.out.print("Quantidade: ");
+                            int quantidade = scanner.nextInt();
+                            
+                            System.out.print("Preço máximo: R$");
+                            double precoMaximo = scanner.nextDouble();
+                            
+                            destino.accept(new PedidoCompra(titulo, quantidade, precoMaximo));
+                            break;
+                            
+                        case 2:
+                            System.out.println("Encerrando...");
+                            sair.run();
+                            return;
+                            
+                        default:
+                            System.out.println("Opção inválida");
+                    }
+                } catch (java.util.NoSuchElementException e) {
+                    if (!scanner.hasNextLine()) {
+                        // Entrada padrão encerrada
+                        return;
+                    }
+                    System.err.println("Erro na entrada: " + e.getMessage());
+                    scanner.nextLine();
+                }
+            }
+        });
+    }
+
+    public static Thread arquivo(String caminho, Consumer<PedidoCompra> destino) {
+        return iniciar("entrada-arquivo", () -> {
+            try (BufferedReader leitor = new BufferedReader(
+                    new InputStreamReader(new FileInputStream(caminho), StandardCharsets.UTF_8))) {
+                int lidos = lerLinhas(leitor, destino);
+                Log.info("%d pedidos lidos de %s", lidos, caminho);
+            } catch (IOException e) {
+                Log.erro("Erro ao ler pedidos de %s: %s", caminho, e.getMessage());
+            }
+        });
+    }
+
+    public static Thread socket(int porta, Consumer<PedidoCompra> destino) {
+        return iniciar("entrada-socket-" + porta, () -> {
+            try (ServerSocket servidor = new ServerSocket(porta, 50, java.net.InetAddress.getLoopbackAddress())) {
+                Log.info("Recebendo pedidos em localhost:%d", porta);
+                while (!Thread.currentThread().isInterrupted()) {
+                    Socket conexao = servidor.accept();
+                    iniciar("entrada-conexao-" + conexao.getPort(), () -> {
+                        try (BufferedReader leitor = new BufferedReader(
+                                new InputStreamReader(conexao.getInputStream(), StandardCharsets.UTF_8))) {
+                            lerLinhas(leitor, destino);
+                        } catch (IOException e) {
+                            Log.aviso("Conexão de pedidos encerrada: %s", e.getMessage());
+                        }
+                    });
+                }
+            } catch (IOException e) {
+                Log.erro("Erro no socket de pedidos: %s", e.getMessage());
+            }
+        });
+    }
+
+    private static int lerLinhas(BufferedReader leitor, Consumer<PedidoCompra> destino) throws IOException {
+        int lidos = 0;
+        String linha;
+        while ((linha = leitor.readLine()) != null) {
+            if (linha.isBlank() || linha.startsWith("#")) {
+                continue;
+            }
+            try {
+                destino.accept(PedidoCompra.ler(linha));
+                lidos++;
+            } catch (IllegalArgumentException e) {
+                Log.aviso("%s", e.getMessage());
+            }
+        }
+        return lidos;
+    }
+
+    private static Thread iniciar(String nome, Runnable tarefa) {
+        Thread thread = new Thread(tarefa, nome);
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+}
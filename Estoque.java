@@ -0,0 +1,271 @@
+package sistema_multiagente;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * ESTOQUE DO VENDEDOR:
+ *
+ * 1. ARMAZENAMENTO:
+ *    - Cada título recebe um identificador inteiro na primeira vez que é cadastrado
+ *    - Quantidade, reserva, preço e preço mínimo ficam em vetores paralelos de tipos
+ *      primitivos, indexados por esse identificador
+ *    - Nenhuma consulta aloca objetos nem faz conversões de tipo
+ *
+ * 2. RESERVAS:
+ *    - reservar: separa unidades enquanto a negociação está aberta
+ *    - confirmar: baixa definitivamente as unidades reservadas
+ *    - liberar: devolve as unidades reservadas ao disponível
+ *    - Todas as operações são atômicas, então negociações concorrentes nunca
+ *      vendem mais do que existe
+ *
+ * 2.1. VERSÃO:
+ *    - Cada título tem um contador de versão, incrementado quando muda a
+ *      quantidade em estoque ou o preço (não muda com reservas)
+ *    - Usado pelo CacheCotacoes para saber se uma cotação ainda vale
+ *    - versaoCatalogo muda quando um título entra no catálogo, esgota ou volta
+ *      a ter unidades; usada para republicar o FiltroBloom no DF
+ *
+ * 2.2. PERSISTÊNCIA:
+ *    - Com um DiarioVendas registrado, toda mudança é anexada ao diário dentro
+ *      da mesma operação atômica, na ordem em que acontece
+ *
+ * 3. CARGA:
+ *    - Linhas no formato "Título:Quantidade:Preço:PreçoMínimo"
+ *    - Catálogos grandes podem ser lidos de arquivo, uma linha por título
+ *    - Um filtro opcional (restringir) descarta na carga os títulos que não
+ *      pertencem ao vendedor, como os de outro fragmento do catálogo
+ */
+
+public class Estoque {
+    private final Map<String, Integer> indice;
+    private String[] titulos;
+    private int[] quantidades;
+    private int[] reservados;
+    private double[] precos;
+    private double[] precosMinimos;
+    private int[] versoes;
+    private int tamanho = 0;
+    private int versaoCatalogo = 0;
+    private DiarioVendas diario;
+    private Predicate<String> filtroCarga = titulo -> true;
+
+    public Estoque() {
+        this(16);
+    }
+
+    public Estoque(int capacidade) {
+        indice = new HashMap<>(capacidade * 2);
+        titulos = new String[capacidade];
+        quantidades = new int[capacidade];
+        reservados = new int[capacidade];
+        precos = new double[capacidade];
+        precosMinimos = new double[capacidade];
+        versoes = new int[capacidade];
+    }
+
+    /**
+     * Cadastra um título ou substitui os dados de um título existente.
+     * Retorna o identificador do título.
+     */
+    public synchronized int adicionar(String titulo, int quantidade, double preco, double precoMinimo) {
+        Integer existente = indice.get(titulo);
+        int id;
+        if (existente != null) {
+            id = existente;
+        } else {
+            if (tamanho == titulos.length) {
+                crescer();
+            }
+            id = tamanho++;
+            titulos[id] = titulo;
+            indice.put(titulo, id);
+            versaoCatalogo++;
+        }
+        if ((quantidades[id] > 0) != (quantidade > 0)) {
+            versaoCatalogo++;
+        }
+        quantidades[id] = quantidade;
+        precos[id] = preco;
+        precosMinimos[id] = precoMinimo;
+        versoes[id]++;
+        if (diario != null) {
+            diario.titulo(id, titulo, quantidade, preco, precoMinimo);
+        }
+        return id;
+    }
+
+    private void crescer() {
+        int capacidade = Math.max(16, titulos.length * 2);
+        titulos = Arrays.copyOf(titulos, capacidade);
+        quantidades = Arrays.copyOf(quantidades, capacidade);
+        reservados = Arrays.copyOf(reservados, capacidade);
+        precos = Arrays.copyOf(precos, capacidade);
+        precosMinimos = Arrays.copyOf(precosMinimos, capacidade);
+        versoes = Arrays.copyOf(versoes, capacidade);
+    }
+
+    /**
+     * Identificador do título, ou -1 se o título não está no catálogo.
+     */
+    public synchronized int id(String titulo) {
+        Integer id = indice.get(titulo);
+        return id != null ? id : -1;
+    }
+
+    public synchronized int tamanho() {
+        return tamanho;
+    }
+
+    public synchronized String titulo(int id) {
+        return titulos[id];
+    }
+
+    public synchronized int quantidade(int id) {
+        return quantidades[id];
+    }
+
+    public synchronized int disponivel(int id) {
+        return quantidades[id] - reservados[id];
+    }
+
+    public synchronized double preco(int id) {
+        return precos[id];
+    }
+
+    public synchronized double precoMinimo(int id) {
+        return precosMinimos[id];
+    }
+
+    public synchronized void definirPreco(int id, double preco) {
+        if (precos[id] != preco) {
+            precos[id] = preco;
+            versoes[id]++;
+            if (diario != null) {
+                diario.preco(id, preco);
+            }
+        }
+    }
+
+    public synchronized int versao(int id) {
+        return versoes[id];
+    }
+
+    public synchronized int versaoCatalogo() {
+        return versaoCatalogo;
+    }
+
+    public synchronized boolean reservar(int id, int quantidade) {
+        if (quantidades[id] - reservados[id] < quantidade) {
+            return false;
+        }
+        reservados[id] += quantidade;
+        if (diario != null) {
+            diario.reserva(id, quantidade);
+        }
+        return true;
+    }
+
+    public synchronized void confirmar(int id, int quantidade) {
+        reservados[id] -= quantidade;
+        quantidades[id] -= quantidade;
+        versoes[id]++;
+        if (quantidades[id] == 0 && quantidade > 0) {
+            versaoCatalogo++;
+        }
+        if (diario != null) {
+            diario.confirmacao(id, quantidade);
+        }
+    }
+
+    public synchronized void liberar(int id, int quantidade) {
+        reservados[id] -= quantidade;
+        if (diario != null) {
+            diario.liberacao(id, quantidade);
+        }
+    }
+
+    public synchronized int reservado(int id) {
+        return reservados[id];
+    }
+
+    /**
+     * Devolve ao disponível todas as unidades reservadas. Usado na recuperação,
+     * quando as negociações que detinham as reservas já não existem.
+     */
+    public synchronized void liberarReservas() {
+        Arrays.fill(reservados, 0, tamanho, 0);
+    }
+
+    /**
+     * Passa a anexar ao diário todas as mudanças seguintes.
+     */
+    public synchronized void registrarEm(DiarioVendas diario) {
+        this.diario = diario;
+    }
+
+    /**
+     * Reserva e confirma de uma só vez. Retorna false se não houver unidades disponíveis.
+     */
+    public synchronized boolean vender(int id, int quantidade) {
+        if (!reservar(id, quantidade)) {
+            return false;
+        }
+        confirmar(id, quantidade);
+        return true;
+    }
+
+    /**
+     * Só os títulos aceitos pelo filtro serão cadastrados por carregar e carregarArquivo.
+     */
+    public void restringir(Predicate<String> filtro) {
+        this.filtroCarga = filtro;
+    }
+
+    /**
+     * Cadastra uma linha "Título:Quantidade:Preço:PreçoMínimo".
+     * O título pode conter ':'; os três últimos campos são numéricos.
+     * Retorna -1 se o título foi descartado pelo filtro de carga.
+     */
+    public int carregar(String linha) {
+        int p3 = linha.lastIndexOf(':');
+        int p2 = linha.lastIndexOf(':', p3 - 1);
+        int p1 = linha.lastIndexOf(':', p2 - 1);
+        if (p1 <= 0) {
+            throw new IllegalArgumentException("Linha de estoque inválida: " + linha);
+        }
+        String titulo = linha.substring(0, p1).trim();
+        if (!filtroCarga.test(titulo)) {
+            return -1;
+        }
+        int quantidade = Integer.parseInt(linha.substring(p1 + 1, p2).trim());
+        double preco = Double.parseDouble(linha.substring(p2 + 1, p3).trim());
+        double precoMinimo = Double.parseDouble(linha.substring(p3 + 1).trim());
+        return adicionar(titulo, quantidade, preco, precoMinimo);
+    }
+
+    /**
+     * Lê um catálogo com uma linha por título. Linhas vazias ou iniciadas por '#' são ignoradas.
+     * Retorna o número de títulos cadastrados.
+     */
+    public int carregarArquivo(Path arquivo) throws IOException {
+        int lidos = 0;
+        try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                if (linha.isBlank() || linha.startsWith("#")) {
+                    continue;
+                }
+                if (carregar(linha) >= 0) {
+                    lidos++;
+                }
+            }
+        }
+        return lidos;
+    }
+}
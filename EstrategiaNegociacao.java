@@ -0,0 +1,46 @@
+package sistema_multiagente;
+
+/**
+ * ESTRATÉGIA DE NEGOCIAÇÃO (PONTO DE EXTENSÃO):
+ *
+ * 1. COMPRADOR:
+ *    - ofertaInicialComprador: primeira oferta, dada a cotação do vendedor
+ *    - compradorAceita: se aceita a contraproposta do vendedor
+ *    - proximaOfertaComprador: nova oferta na rodada, nunca acima do preço máximo
+ *
+ * 2. VENDEDOR:
+ *    - vendedorAceita: se a oferta do comprador já basta; o vendedor então
+ *      repete a oferta do comprador, que fecha o acordo na mesma rodada
+ *    - proximaOfertaVendedor: contraproposta na rodada, nunca abaixo do mínimo
+ *    - A última oferta (preço mínimo na rodada Estrategias.MAX_RODADAS) é
+ *      regra comum a todas as estratégias
+ *
+ * 3. OBSERVAÇÃO:
+ *    - acordo e ultimaOferta informam preços praticados, para estratégias
+ *      que aprendem com o histórico; o padrão é ignorar
+ *
+ * 4. IMPLEMENTAÇÕES:
+ *    - Em Estrategias ("padrao", "tempo", "adaptativa"), ou qualquer classe com
+ *      construtor sem argumentos, escolhida pelo nome completo
+ *    - Sem estado por negociação: uma instância atende todas as negociações
+ */
+
+public interface EstrategiaNegociacao {
+    double ofertaInicialComprador(String titulo, double precoVendedor, double precoMaximo);
+
+    boolean compradorAceita(String titulo, double contraProposta, double precoAtual, int rodada, double precoMaximo);
+
+    double proximaOfertaComprador(double ofertaInicial, double precoAtual, double contraProposta, double precoMaximo, int rodada);
+
+    boolean vendedorAceita(String titulo, double ofertaComprador, double precoInicial, double precoAtual,
+                           double precoMinimo, int rodada);
+
+    double proximaOfertaVendedor(String titulo, double precoInicial, double precoAtual, double ofertaComprador,
+                                 double precoMinimo, int rodada);
+
+    default void acordo(String titulo, double preco) {
+    }
+
+    default void ultimaOferta(String titulo, double preco) {
+    }
+}
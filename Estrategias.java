@@ -0,0 +1,192 @@
+package sistema_multiagente;
+
+/**
+ * ESTRATÉGIAS DE PREÇO:
+ *
+ * 1. COMPRADOR:
+ *    - Oferta inicial: 70% do preço cotado pelo vendedor
+ *    - Concessão: aumenta 15% da diferença entre sua oferta e a do vendedor
+ *    - Aceita se a contraproposta ≤ preço máximo E
+ *      (5ª rodada ou contraproposta ≤ oferta atual + 15%)
+ *
+ * 2. VENDEDOR:
+ *    - Concessão: reduz 20% da diferença entre seu preço e a oferta do comprador
+ *    - Nunca abaixo do preço mínimo
+ *    - Última oferta (preço mínimo) na 5ª rodada ou ao atingir o mínimo
+ *
+ * 3. USO:
+ *    - Funções puras, sem estado, usadas pelas negociações e pelos benchmarks
+ *
+ * 4. IMPLEMENTAÇÕES DE EstrategiaNegociacao (porNome):
+ *    - "padrao": as regras acima
+ *    - "tempo": concessão dependente da rodada, por uma curva calculada uma
+ *      única vez, (rodada / 5)^(1/β) da distância entre o preço inicial e o
+ *      limite (-Dnegociacao.beta, padrão 1; β < 1 concede no fim, β > 1 no início)
+ *    - "adaptativa": a curva de "tempo", ajustada pelo HistoricoPrecos do título;
+ *      o comprador abre no preço de referência (ou no piso já visto) e o
+ *      vendedor aceita de imediato ofertas na referência, acima do seu mínimo,
+ *      então títulos com histórico fecham em uma rodada
+ */
+
+public final class Estrategias {
+    public static final int MAX_RODADAS = 5;
+    public static final EstrategiaNegociacao PADRAO = new Padrao();
+
+    private static final double BETA = Double.parseDouble(System.getProperty("negociacao.beta", "1.0"));
+
+    private Estrategias() {
+    }
+
+    public static double ofertaInicialComprador(double precoVendedor) {
+        return precoVendedor * 0.7;
+    }
+
+    public static boolean compradorAceita(double contraProposta, double precoAtual, int rodada, double precoMaximo) {
+        return contraProposta <= precoMaximo
+            && (rodada >= MAX_RODADAS || contraProposta <= precoAtual * 1.15);
+    }
+
+    public static double proximaOfertaComprador(double precoAtual, double contraProposta, double precoMaximo) {
+        double novaOferta = precoAtual + (contraProposta - precoAtual) * 0.15;
+        return Math.min(novaOferta, precoMaximo);
+    }
+
+    public static double proximaOfertaVendedor(double precoAtual, double ofertaComprador, double precoMinimo) {
+        double novaOferta = precoAtual - (precoAtual - ofertaComprador) * 0.2;
+        return Math.max(novaOferta, precoMinimo);
+    }
+
+    public static boolean ultimaOfertaVendedor(int rodadas, double novaOferta, double precoMinimo) {
+        return rodadas >= MAX_RODADAS || novaOferta == precoMinimo;
+    }
+
+    /**
+     * Estratégia pelo nome ("padrao", "tempo", "adaptativa") ou pelo nome completo de uma classe
+     * que implemente EstrategiaNegociacao. Lança IllegalArgumentException se não existir.
+     */
+    public static EstrategiaNegociacao porNome(String nome) {
+        switch (nome) {
+            case "padrao":
+                return PADRAO;
+            case "tempo":
+                return new Temporal(BETA);
+            case "adaptativa":
+                return new Adaptativa(BETA);
+            default:
+                try {
+                    return (EstrategiaNegociacao) Class.forName(nome).getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new IllegalArgumentException("Estratégia desconhecida: " + nome, e);
+                }
+        }
+    }
+
+    private static final class Padrao implements EstrategiaNegociacao {
+        public double ofertaInicialComprador(String titulo, double precoVendedor, double precoMaximo) {
+            return Estrategias.ofertaInicialComprador(precoVendedor);
+        }
+
+        public boolean compradorAceita(String titulo, double contraProposta, double precoAtual, int rodada, double precoMaximo) {
+            return Estrategias.compradorAceita(contraProposta, precoAtual, rodada, precoMaximo);
+        }
+
+        public double proximaOfertaComprador(double ofertaInicial, double precoAtual, double contraProposta,
+                                             double precoMaximo, int rodada) {
+            return Estrategias.proximaOfertaComprador(precoAtual, contraProposta, precoMaximo);
+        }
+
+        public boolean vendedorAceita(String titulo, double ofertaComprador, double precoInicial, double precoAtual,
+                                      double precoMinimo, int rodada) {
+            return ofertaComprador >= precoAtual;
+        }
+
+        public double proximaOfertaVendedor(String titulo, double precoInicial, double precoAtual, double ofertaComprador,
+                                            double precoMinimo, int rodada) {
+            return Estrategias.proximaOfertaVendedor(precoAtual, ofertaComprador, precoMinimo);
+        }
+    }
+
+    public static class Temporal implements EstrategiaNegociacao {
+        // Fração da distância entre o preço inicial e o limite concedida até cada rodada
+        private final double[] curva = new double[MAX_RODADAS + 1];
+
+        public Temporal(double beta) {
+            for (int rodada = 0; rodada <= MAX_RODADAS; rodada++) {
+                curva[rodada] = Math.pow((double) rodada / MAX_RODADAS, 1 / beta);
+            }
+        }
+
+        protected double concessao(int rodada) {
+            return curva[Math.min(rodada, MAX_RODADAS)];
+        }
+
+        public double ofertaInicialComprador(String titulo, double precoVendedor, double precoMaximo) {
+            return Math.min(Estrategias.ofertaInicialComprador(precoVendedor), precoMaximo);
+        }
+
+        public boolean compradorAceita(String titulo, double contraProposta, double precoAtual, int rodada, double precoMaximo) {
+            return Estrategias.compradorAceita(contraProposta, precoAtual, rodada, precoMaximo);
+        }
+
+        public double proximaOfertaComprador(double ofertaInicial, double precoAtual, double contraProposta,
+                                             double precoMaximo, int rodada) {
+            double alvo = ofertaInicial + (precoMaximo - ofertaInicial) * concessao(rodada);
+            return Math.min(Math.max(alvo, precoAtual), Math.min(contraProposta, precoMaximo));
+        }
+
+        public boolean vendedorAceita(String titulo, double ofertaComprador, double precoInicial, double precoAtual,
+                                      double precoMinimo, int rodada) {
+            return ofertaComprador >= limiteVendedor(precoInicial, precoMinimo, rodada);
+        }
+
+        public double proximaOfertaVendedor(String titulo, double precoInicial, double precoAtual, double ofertaComprador,
+                                            double precoMinimo, int rodada) {
+            double limite = Math.min(limiteVendedor(precoInicial, precoMinimo, rodada), precoAtual);
+            return Math.max(limite, Math.max(ofertaComprador, precoMinimo));
+        }
+
+        private double limiteVendedor(double precoInicial, double precoMinimo, int rodada) {
+            return precoInicial - (precoInicial - precoMinimo) * concessao(rodada);
+        }
+    }
+
+    public static class Adaptativa extends Temporal {
+        public Adaptativa(double beta) {
+            super(beta);
+        }
+
+        public double ofertaInicialComprador(String titulo, double precoVendedor, double precoMaximo) {
+            double inicial = super.ofertaInicialComprador(titulo, precoVendedor, precoMaximo);
+            // Sem histórico do título, o alvo é -infinito e fica a oferta inicial da curva
+            double alvo = Math.max(semNaN(HistoricoPrecos.referencia(titulo)), semNaN(HistoricoPrecos.piso(titulo)));
+            if (alvo <= inicial) {
+                return inicial;
+            }
+            return Math.min(alvo, Math.min(precoVendedor, precoMaximo));
+        }
+
+        public boolean compradorAceita(String titulo, double contraProposta, double precoAtual, int rodada, double precoMaximo) {
+            return super.compradorAceita(titulo, contraProposta, precoAtual, rodada, precoMaximo)
+                || (contraProposta <= precoMaximo && contraProposta <= HistoricoPrecos.referencia(titulo));
+        }
+
+        public boolean vendedorAceita(String titulo, double ofertaComprador, double precoInicial, double precoAtual,
+                                      double precoMinimo, int rodada) {
+            return ofertaComprador >= precoMinimo
+                && (super.vendedorAceita(titulo, ofertaComprador, precoInicial, precoAtual, precoMinimo, rodada)
+                    || ofertaComprador >= HistoricoPrecos.referencia(titulo));
+        }
+
+        public void acordo(String titulo, double preco) {
+            HistoricoPrecos.registrarAcordo(titulo, preco);
+        }
+
+        public void ultimaOferta(String titulo, double preco) {
+            HistoricoPrecos.registrarPiso(titulo, preco);
+        }
+
+        private static double semNaN(double valor) {
+            return Double.isNaN(valor) ? Double.NEGATIVE_INFINITY : valor;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package sistema_multiagente;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EXPORTAÇÃO PERIÓDICA DE MÉTRICAS:
+ *
+ * 1. DESTINOS (propriedades do sistema, ambos opcionais):
+ *    - -Dmetricas.arquivo=<caminho>: reescreve o arquivo a cada intervalo
+ *      (-Dmetricas.intervalo, padrão 10000 ms); a troca é atômica, então quem lê
+ *      nunca vê um arquivo pela metade
+ *    - -Dmetricas.porta=<n>: responde GET http://localhost:<n>/metricas com o
+ *      instantâneo atual
+ *
+ * 2. EXECUÇÃO:
+ *    - Uma única thread daemon por JVM; iniciar() pode ser chamado por todos os
+ *      agentes, só a primeira chamada tem efeito
+ *    - Nenhum trabalho de exportação roda na thread dos agentes
+ */
+
+public final class ExportadorMetricas {
+    private static boolean iniciado = false;
+
+    private ExportadorMetricas() {
+    }
+
+    public static synchronized void iniciar() {
+        if (iniciado) {
+            return;
+        }
+        iniciado = true;
+
+        String arquivo = System.getProperty("metricas.arquivo");
+        Integer porta = Integer.getInteger("metricas.porta");
+        long intervalo = Long.getLong("metricas.intervalo", 10000);
+
+        if (arquivo != null) {
+            Path destino = Paths.get(arquivo);
+            ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "exportador-metricas");
+                t.setDaemon(true);
+                return t;
+            });
+            agendador.scheduleAtFixedRate(() -> gravar(destino), intervalo, intervalo, TimeUnit.MILLISECONDS);
+            Log.info("Métricas exportadas para %s a cada %d ms", destino, intervalo);
+        }
+        if (porta != null) {
+            // O despachante do HttpServer herda o tipo da thread que o inicia;
+            // iniciado a partir de uma thread daemon, não impede a JVM de encerrar
+            Thread abertura = new Thread(() -> abrirHttp(porta), "http-metricas");
+            abertura.setDaemon(true);
+            abertura.start();
+        }
+    }
+
+    private static void abrirHttp(int porta) {
+        try {
+            HttpServer servidor = HttpServer.create(new InetSocketAddress("localhost", porta), 0);
+            servidor.createContext("/metricas", troca -> {
+                byte[] corpo = Metricas.instantaneo().getBytes(StandardCharsets.UTF_8);
+                troca.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+                troca.sendResponseHeaders(200, corpo.length);
+                try (OutputStream saida = troca.getResponseBody()) {
+                    saida.write(corpo);
+                }
+            });
+            servidor.start();
+            Log.info("Métricas em http://localhost:%d/metricas", porta);
+        } catch (IOException e) {
+            Log.erro(e, "Falha ao abrir a porta de métricas %d", porta);
+        }
+    }
+
+    private static void gravar(Path destino) {
+        try {
+            Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+            String conteudo = "# " + System.currentTimeMillis() + "\n" + Metricas.instantaneo();
+            Files.write(temporario, conteudo.getBytes(StandardCharsets.UTF_8));
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Log.erro(e, "Falha ao gravar métricas em %s", destino);
+        }
+    }
+}
\ No newline at end of file
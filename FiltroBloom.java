@@ -0,0 +1,151 @@
+package sistema_multiagente;
+
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.Property;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import java.util.Base64;
+
+/**
+ * FILTRO DE BLOOM DOS TÍTULOS À VENDA:
+ *
+ * 1. CONTEÚDO:
+ *    - Vetor de bits com os títulos que o vendedor tem em estoque
+ *    - talvezContenha nunca erra para um título presente; para um título
+ *      ausente, erra com probabilidade de ~1% com 10 bits por título
+ *    - As posições vêm de um hash FNV-1a de 64 bits do título (hash duplo),
+ *      igual em todas as JVMs
+ *
+ * 2. PUBLICAÇÃO:
+ *    - O vendedor publica o filtro no DF, na propriedade "titulos" do serviço
+ *      "venda-livros", no formato "k/base64"
+ *    - Vendedores sem a propriedade podem ter qualquer título (TODOS)
+ *    - Bits não podem ser removidos: quando um título esgota, o vendedor
+ *      monta um filtro novo a partir do estoque e atualiza o DF
+ */
+
+public final class FiltroBloom {
+    public static final String PROPRIEDADE = "titulos";
+    public static final FiltroBloom TODOS = new FiltroBloom(null, 0);
+
+    private final long[] bits;
+    private final int funcoes;
+
+    private FiltroBloom(long[] bits, int funcoes) {
+        this.bits = bits;
+        this.funcoes = funcoes;
+    }
+
+    /**
+     * Filtro vazio dimensionado para "titulos" títulos com "bitsPorTitulo" bits cada.
+     */
+    public FiltroBloom(int titulos, int bitsPorTitulo) {
+        this(new long[Math.max(1, (titulos * bitsPorTitulo + 63) / 64)],
+            Math.max(1, Math.min(16, (int) Math.round(bitsPorTitulo * Math.log(2)))));
+    }
+
+    /**
+     * Filtro com os títulos do estoque que ainda têm unidades.
+     */
+    public static FiltroBloom doEstoque(Estoque estoque, int bitsPorTitulo) {
+        int tamanho = estoque.tamanho();
+        FiltroBloom filtro = new FiltroBloom(tamanho, bitsPorTitulo);
+        for (int id = 0; id < tamanho; id++) {
+            if (estoque.quantidade(id) > 0) {
+                filtro.adicionar(estoque.titulo(id));
+            }
+        }
+        return filtro;
+    }
+
+    /**
+     * Lê "k/base64". Lança IllegalArgumentException se o texto for inválido.
+     */
+    public static FiltroBloom ler(String texto) {
+        int barra = texto.indexOf('/');
+        try {
+            int funcoes = Integer.parseInt(texto.substring(0, barra));
+            byte[] bytes = Base64.getDecoder().decode(texto.substring(barra + 1));
+            if (funcoes <= 0 || bytes.length == 0 || bytes.length % 8 != 0) {
+                throw new IllegalArgumentException("Filtro de títulos inválido");
+            }
+            long[] bits = new long[bytes.length / 8];
+            for (int i = 0; i < bytes.length; i++) {
+                bits[i >> 3] |= (bytes[i] & 0xFFL) << ((i & 7) * 8);
+            }
+            return new FiltroBloom(bits, funcoes);
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Filtro de títulos inválido");
+        }
+    }
+
+    /**
+     * Filtro publicado pelo vendedor no DF, ou TODOS se ele não informou.
+     */
+    public static FiltroBloom daDescricao(DFAgentDescription descricao) {
+        jade.util.leap.Iterator servicos = descricao.getAllServices();
+        while (servicos.hasNext()) {
+            ServiceDescription servico = (ServiceDescription) servicos.next();
+            jade.util.leap.Iterator propriedades = servico.getAllProperties();
+            while (propriedades.hasNext()) {
+                Property propriedade = (Property) propriedades.next();
+                if (PROPRIEDADE.equals(propriedade.getName())) {
+                    try {
+                        return ler(String.valueOf(propriedade.getValue()));
+                    } catch (IllegalArgumentException e) {
+                        return TODOS;
+                    }
+                }
+            }
+        }
+        return TODOS;
+    }
+
+    public void adicionar(String titulo) {
+        long hash = hash(titulo);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long total = bits.length * 64L;
+        for (int i = 0; i < funcoes; i++) {
+            int posicao = (int) Math.floorMod(h1 + (long) i * h2, total);
+            bits[posicao >>> 6] |= 1L << posicao;
+        }
+    }
+
+    public boolean talvezContenha(String titulo) {
+        if (bits == null) {
+            return true;
+        }
+        long hash = hash(titulo);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        long total = bits.length * 64L;
+        for (int i = 0; i < funcoes; i++) {
+            int posicao = (int) Math.floorMod(h1 + (long) i * h2, total);
+            if ((bits[posicao >>> 6] & (1L << posicao)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Property propriedade() {
+        return new Property(PROPRIEDADE, toString());
+    }
+
+    public String toString() {
+        byte[] bytes = new byte[bits.length * 8];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (bits[i >> 3] >>> ((i & 7) * 8));
+        }
+        return funcoes + "/" + Base64.getEncoder().encodeToString(bytes);
+    }
+
+    private static long hash(String titulo) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < titulo.length(); i++) {
+            hash ^= titulo.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
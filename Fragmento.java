@@ -0,0 +1,91 @@
+package sistema_multiagente;
+
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.Property;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+
+/**
+ * FRAGMENTO DO CATÁLOGO:
+ *
+ * 1. DIVISÃO:
+ *    - O catálogo é dividido em "total" fragmentos pelo hash do título
+ *    - Um vendedor do fragmento "indice/total" só vende títulos cujo hash cai nele
+ *    - String.hashCode é definido pela especificação, então todos os containers
+ *      e JVMs calculam o mesmo fragmento para o mesmo título
+ *
+ * 2. PUBLICAÇÃO:
+ *    - O vendedor informa o fragmento no DF, na propriedade "fragmento" do serviço
+ *      "venda-livros" (valor "indice/total")
+ *    - Vendedores sem a propriedade vendem qualquer título (NENHUM)
+ *
+ * 3. ROTEAMENTO:
+ *    - O comprador só envia CFP aos vendedores cujo fragmento contém o título
+ */
+
+public final class Fragmento {
+    public static final String PROPRIEDADE = "fragmento";
+    public static final Fragmento NENHUM = new Fragmento(0, 0);
+
+    private final int indice;
+    private final int total;
+
+    public Fragmento(int indice, int total) {
+        this.indice = indice;
+        this.total = total;
+    }
+
+    /**
+     * Lê "indice/total". Lança IllegalArgumentException se o texto for inválido.
+     */
+    public static Fragmento ler(String texto) {
+        int barra = texto.indexOf('/');
+        try {
+            int indice = Integer.parseInt(texto.substring(0, barra).trim());
+            int total = Integer.parseInt(texto.substring(barra + 1).trim());
+            if (total <= 0 || indice < 0 || indice >= total) {
+                throw new IllegalArgumentException("Fragmento fora do intervalo: " + texto);
+            }
+            return new Fragmento(indice, total);
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Fragmento inválido: " + texto);
+        }
+    }
+
+    /**
+     * Fragmento publicado pelo vendedor no DF, ou NENHUM se ele não informou.
+     */
+    public static Fragmento daDescricao(DFAgentDescription descricao) {
+        jade.util.leap.Iterator servicos = descricao.getAllServices();
+        while (servicos.hasNext()) {
+            ServiceDescription servico = (ServiceDescription) servicos.next();
+            jade.util.leap.Iterator propriedades = servico.getAllProperties();
+            while (propriedades.hasNext()) {
+                Property propriedade = (Property) propriedades.next();
+                if (PROPRIEDADE.equals(propriedade.getName())) {
+                    try {
+                        return ler(String.valueOf(propriedade.getValue()));
+                    } catch (IllegalArgumentException e) {
+                        return NENHUM;
+                    }
+                }
+            }
+        }
+        return NENHUM;
+    }
+
+    public static int doTitulo(String titulo, int total) {
+        return Math.floorMod(titulo.hashCode(), total);
+    }
+
+    public boolean contem(String titulo) {
+        return total == 0 || doTitulo(titulo, total) == indice;
+    }
+
+    public Property propriedade() {
+        return new Property(PROPRIEDADE, toString());
+    }
+
+    public String toString() {
+        return indice + "/" + total;
+    }
+}
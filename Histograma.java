@@ -0,0 +1,89 @@
+package sistema_multiagente;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HISTOGRAMA DE LATÊNCIAS:
+ *
+ * 1. FAIXAS:
+ *    - Escala logarítmica: cada potência de 2 é dividida em 16 faixas iguais
+ *    - Erro relativo máximo de ~6%, de 1 até Long.MAX_VALUE, em 1024 contadores
+ *
+ * 2. CONCORRÊNCIA:
+ *    - registrar não usa travas: um incremento atômico por valor
+ *    - Pode ser alimentado por vários agentes ao mesmo tempo
+ *
+ * 3. LEITURA:
+ *    - percentil(p) devolve o limite superior da faixa que contém o percentil
+ */
+
+public class Histograma {
+    private static final int SUB_FAIXAS = 16;
+    private static final int BITS_SUB_FAIXA = 4;
+
+    private final AtomicLongArray contagens = new AtomicLongArray(64 * SUB_FAIXAS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder soma = new LongAdder();
+
+    public void registrar(long valor) {
+        if (valor < 0) {
+            valor = 0;
+        }
+        contagens.incrementAndGet(faixa(valor));
+        total.increment();
+        soma.add(valor);
+    }
+
+    private static int faixa(long valor) {
+        if (valor < SUB_FAIXAS) {
+            return (int) valor;
+        }
+        int expoente = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (expoente - BITS_SUB_FAIXA)) & (SUB_FAIXAS - 1);
+        return (expoente - BITS_SUB_FAIXA + 1) * SUB_FAIXAS + sub;
+    }
+
+    private static long limiteSuperior(int faixa) {
+        if (faixa < SUB_FAIXAS) {
+            return faixa;
+        }
+        int expoente = faixa / SUB_FAIXAS + BITS_SUB_FAIXA - 1;
+        long sub = faixa % SUB_FAIXAS;
+        long base = (SUB_FAIXAS + sub) << (expoente - BITS_SUB_FAIXA);
+        return base + (1L << (expoente - BITS_SUB_FAIXA)) - 1;
+    }
+
+    public long total() {
+        return total.sum();
+    }
+
+    public double media() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) soma.sum() / n;
+    }
+
+    public long percentil(double p) {
+        long n = total.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(n * p / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < contagens.length(); i++) {
+            acumulado += contagens.get(i);
+            if (acumulado >= alvo) {
+                return limiteSuperior(i);
+            }
+        }
+        return limiteSuperior(contagens.length() - 1);
+    }
+
+    public void zerar() {
+        for (int i = 0; i < contagens.length(); i++) {
+            contagens.set(i, 0);
+        }
+        total.reset();
+        soma.reset();
+    }
+}
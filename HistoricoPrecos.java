@@ -0,0 +1,68 @@
+package sistema_multiagente;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * HISTÓRICO DE PREÇOS POR TÍTULO:
+ *
+ * 1. CONTEÚDO:
+ *    - referencia: média móvel exponencial (peso 0.2) dos preços de acordo
+ *    - piso: média móvel das últimas ofertas dos vendedores, que trazem o
+ *      preço mínimo
+ *    - Double.NaN enquanto não houver observação do título
+ *
+ * 2. ESCOPO:
+ *    - Um histórico por JVM, compartilhado por compradores e vendedores
+ *    - Limitado a 65536 títulos; ao atingir o limite, recomeça vazio
+ */
+
+public final class HistoricoPrecos {
+    private static final int LIMITE = 65536;
+    private static final double PESO = 0.2;
+
+    // {referência, piso}
+    private static final Map<String, double[]> precos = new ConcurrentHashMap<>();
+
+    private HistoricoPrecos() {
+    }
+
+    public static void registrarAcordo(String titulo, double preco) {
+        registrar(titulo, 0, preco);
+    }
+
+    public static void registrarPiso(String titulo, double preco) {
+        registrar(titulo, 1, preco);
+    }
+
+    public static double referencia(String titulo) {
+        return consultar(titulo, 0);
+    }
+
+    public static double piso(String titulo) {
+        return consultar(titulo, 1);
+    }
+
+    public static void limpar() {
+        precos.clear();
+    }
+
+    private static void registrar(String titulo, int campo, double preco) {
+        if (titulo == null) {
+            return;
+        }
+        if (precos.size() >= LIMITE) {
+            precos.clear();
+        }
+        precos.compute(titulo, (chave, atual) -> {
+            double[] novo = atual != null ? atual.clone() : new double[]{Double.NaN, Double.NaN};
+            novo[campo] = Double.isNaN(novo[campo]) ? preco : novo[campo] + (preco - novo[campo]) * PESO;
+            return novo;
+        });
+    }
+
+    private static double consultar(String titulo, int campo) {
+        double[] atual = titulo != null ? precos.get(titulo) : null;
+        return atual != null ? atual[campo] : Double.NaN;
+    }
+}
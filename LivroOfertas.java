@@ -0,0 +1,314 @@
+package sistema_multiagente;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * LIVRO DE OFERTAS POR TÍTULO (MOTOR DE CASAMENTO):
+ *
+ * 1. ORDENS:
+ *    - Compra: limite (preço máximo do comprador) e quantidade
+ *    - Venda: limite (preço mínimo do vendedor), teto (preço de tabela) e quantidade
+ *    - Preços em centavos; cada ordem é um índice em vetores paralelos, e os
+ *      índices de ordens encerradas são reaproveitados
+ *
+ * 2. CASAMENTO:
+ *    - Prioridade por preço e, no mesmo preço, por ordem de chegada: a compra
+ *      de maior limite e a venda de menor limite ficam no topo de heaps binários
+ *      (um par por título), com inserção e remoção em O(log n)
+ *    - Uma ordem que chega cruza com o topo do lado oposto enquanto os limites
+ *      se cruzarem; o preço do negócio é o menor entre o teto do vendedor e o
+ *      limite do comprador, o mesmo teto da negociação bilateral
+ *    - Execuções parciais: o que sobra da ordem que chegou fica no livro
+ *    - Cada negócio é entregue ao callback Negocios durante casar()
+ *
+ * 3. DESEMPENHO:
+ *    - Sem alocação depois que os vetores atingem o tamanho de pico; só um
+ *      título novo aloca (entrada no mapa e heaps vazios)
+ *    - Não é thread-safe: usado apenas pela thread do AgenteMercado
+ */
+
+public final class LivroOfertas {
+    /**
+     * Recebe cada negócio: ordens de compra e venda, preço e quantidade. As
+     * quantidades das ordens já estão descontadas; quantidade(ordem) == 0
+     * indica que a ordem foi encerrada e seu índice será reaproveitado.
+     */
+    public interface Negocios {
+        void negocio(int compra, int venda, long centavos, int quantidade);
+    }
+
+    private final Negocios negocios;
+    private final Map<String, Integer> titulos = new HashMap<>();
+    private int livros = 0;
+    private int[][] compras = new int[16][];
+    private int[][] vendas = new int[16][];
+    private int[] totalCompras = new int[16];
+    private int[] totalVendas = new int[16];
+
+    // Ordens, por índice
+    private int capacidade = 1024;
+    private long[] limite = new long[capacidade];
+    private long[] teto = new long[capacidade];
+    private long[] sequencia = new long[capacidade];
+    private int[] quantidade = new int[capacidade];
+    private int[] livroDa = new int[capacidade];
+    private boolean[] compra = new boolean[capacidade];
+    // Posição da ordem no heap do seu lado, -1 fora do livro
+    private int[] posicao = new int[capacidade];
+    private int[] livres = new int[capacidade];
+    private int totalLivres = 0;
+    private int usadas = 0;
+    private long proximaSequencia = 0;
+    private int abertas = 0;
+
+    public LivroOfertas(Negocios negocios) {
+        this.negocios = negocios;
+    }
+
+    /**
+     * Índice do livro do título, criado na primeira consulta.
+     */
+    public int livro(String titulo) {
+        Integer livro = titulos.get(titulo);
+        if (livro != null) {
+            return livro;
+        }
+        if (livros == compras.length) {
+            int novo = livros * 2;
+            compras = Arrays.copyOf(compras, novo);
+            vendas = Arrays.copyOf(vendas, novo);
+            totalCompras = Arrays.copyOf(totalCompras, novo);
+            totalVendas = Arrays.copyOf(totalVendas, novo);
+        }
+        compras[livros] = new int[8];
+        vendas[livros] = new int[8];
+        titulos.put(titulo, livros);
+        return livros++;
+    }
+
+    /**
+     * Cria uma ordem de compra, ainda fora do livro; ela só casa e entra no livro em casar().
+     */
+    public int compra(int livro, long limiteCentavos, int quantidade) {
+        return criar(livro, true, limiteCentavos, limiteCentavos, quantidade);
+    }
+
+    /**
+     * Cria uma ordem de venda, ainda fora do livro; ela só casa e entra no livro em casar().
+     */
+    public int venda(int livro, long limiteCentavos, long tetoCentavos, int quantidade) {
+        return criar(livro, false, limiteCentavos, Math.max(limiteCentavos, tetoCentavos), quantidade);
+    }
+
+    private int criar(int livro, boolean ladoCompra, long limiteCentavos, long tetoCentavos, int qtd) {
+        int ordem;
+        if (totalLivres > 0) {
+            ordem = livres[--totalLivres];
+        } else {
+            if (usadas == capacidade) {
+                crescer();
+            }
+            ordem = usadas++;
+        }
+        limite[ordem] = limiteCentavos;
+        teto[ordem] = tetoCentavos;
+        sequencia[ordem] = proximaSequencia++;
+        quantidade[ordem] = qtd;
+        livroDa[ordem] = livro;
+        compra[ordem] = ladoCompra;
+        posicao[ordem] = -1;
+        return ordem;
+    }
+
+    /**
+     * Cruza a ordem com o lado oposto e deixa o restante no livro.
+     * Retorna true se sobrou quantidade no livro, false se a ordem foi toda executada.
+     */
+    public boolean casar(int ordem) {
+        int livro = livroDa[ordem];
+        if (compra[ordem]) {
+            while (quantidade[ordem] > 0 && totalVendas[livro] > 0) {
+                int venda = vendas[livro][0];
+                if (limite[venda] > limite[ordem]) {
+                    break;
+                }
+                executar(ordem, venda, Math.min(teto[venda], limite[ordem]), vendas, totalVendas, livro);
+            }
+        } else {
+            while (quantidade[ordem] > 0 && totalCompras[livro] > 0) {
+                int compraTopo = compras[livro][0];
+                if (limite[compraTopo] < limite[ordem]) {
+                    break;
+                }
+                executar(compraTopo, ordem, Math.min(teto[ordem], limite[compraTopo]), compras, totalCompras, livro);
+            }
+        }
+
+        if (quantidade[ordem] == 0) {
+            liberar(ordem);
+            return false;
+        }
+        if (compra[ordem]) {
+            inserir(compras, totalCompras, livro, ordem);
+        } else {
+            inserir(vendas, totalVendas, livro, ordem);
+        }
+        abertas++;
+        return true;
+    }
+
+    /**
+     * Negócio entre a compra e a venda; a ordem do livro (topo de "heaps") sai se esgotar.
+     */
+    private void executar(int ordemCompra, int ordemVenda, long centavos, int[][] heaps, int[] totais, int livro) {
+        int executada = Math.min(quantidade[ordemCompra], quantidade[ordemVenda]);
+        quantidade[ordemCompra] -= executada;
+        quantidade[ordemVenda] -= executada;
+        negocios.negocio(ordemCompra, ordemVenda, centavos, executada);
+        int topo = heaps[livro][0];
+        if (quantidade[topo] == 0) {
+            remover(heaps, totais, livro, 0);
+            abertas--;
+            liberar(topo);
+        }
+    }
+
+    /**
+     * Retira a ordem do livro. Retorna a quantidade que ainda não tinha sido executada
+     * (0 se a ordem já estava encerrada).
+     */
+    public int cancelar(int ordem) {
+        if (ordem < 0 || ordem >= usadas || posicao[ordem] < 0) {
+            return 0;
+        }
+        int livro = livroDa[ordem];
+        if (compra[ordem]) {
+            remover(compras, totalCompras, livro, posicao[ordem]);
+        } else {
+            remover(vendas, totalVendas, livro, posicao[ordem]);
+        }
+        abertas--;
+        int restante = quantidade[ordem];
+        quantidade[ordem] = 0;
+        liberar(ordem);
+        return restante;
+    }
+
+    public int quantidade(int ordem) {
+        return quantidade[ordem];
+    }
+
+    /**
+     * Ordens no livro, somando todos os títulos e os dois lados.
+     */
+    public int abertas() {
+        return abertas;
+    }
+
+    public int titulos() {
+        return livros;
+    }
+
+    /**
+     * Maior limite de compra no livro, em centavos, ou -1 sem compras.
+     */
+    public long melhorCompra(int livro) {
+        return totalCompras[livro] > 0 ? limite[compras[livro][0]] : -1;
+    }
+
+    /**
+     * Menor limite de venda no livro, em centavos, ou -1 sem vendas.
+     */
+    public long melhorVenda(int livro) {
+        return totalVendas[livro] > 0 ? limite[vendas[livro][0]] : -1;
+    }
+
+    private void liberar(int ordem) {
+        posicao[ordem] = -1;
+        livres[totalLivres++] = ordem;
+    }
+
+    private void crescer() {
+        capacidade *= 2;
+        limite = Arrays.copyOf(limite, capacidade);
+        teto = Arrays.copyOf(teto, capacidade);
+        sequencia = Arrays.copyOf(sequencia, capacidade);
+        quantidade = Arrays.copyOf(quantidade, capacidade);
+        livroDa = Arrays.copyOf(livroDa, capacidade);
+        compra = Arrays.copyOf(compra, capacidade);
+        posicao = Arrays.copyOf(posicao, capacidade);
+        livres = Arrays.copyOf(livres, capacidade);
+    }
+
+    /**
+     * Se "a" tem prioridade sobre "b" no mesmo lado do livro.
+     */
+    private boolean antes(int a, int b) {
+        if (limite[a] != limite[b]) {
+            return compra[a] ? limite[a] > limite[b] : limite[a] < limite[b];
+        }
+        return sequencia[a] < sequencia[b];
+    }
+
+    private void inserir(int[][] heaps, int[] totais, int livro, int ordem) {
+        int[] heap = heaps[livro];
+        if (totais[livro] == heap.length) {
+            heap = heaps[livro] = Arrays.copyOf(heap, heap.length * 2);
+        }
+        int i = totais[livro]++;
+        heap[i] = ordem;
+        posicao[ordem] = i;
+        subir(heap, i);
+    }
+
+    private void remover(int[][] heaps, int[] totais, int livro, int i) {
+        int[] heap = heaps[livro];
+        int ultimo = --totais[livro];
+        posicao[heap[i]] = -1;
+        if (i == ultimo) {
+            return;
+        }
+        heap[i] = heap[ultimo];
+        posicao[heap[i]] = i;
+        descer(heap, ultimo, i);
+        subir(heap, i);
+    }
+
+    private void subir(int[] heap, int i) {
+        int ordem = heap[i];
+        while (i > 0) {
+            int pai = (i - 1) >>> 1;
+            if (!antes(ordem, heap[pai])) {
+                break;
+            }
+            heap[i] = heap[pai];
+            posicao[heap[i]] = i;
+            i = pai;
+        }
+        heap[i] = ordem;
+        posicao[ordem] = i;
+    }
+
+    private void descer(int[] heap, int total, int i) {
+        int ordem = heap[i];
+        while (true) {
+            int filho = 2 * i + 1;
+            if (filho >= total) {
+                break;
+            }
+            if (filho + 1 < total && antes(heap[filho + 1], heap[filho])) {
+                filho++;
+            }
+            if (!antes(heap[filho], ordem)) {
+                break;
+            }
+            heap[i] = heap[filho];
+            posicao[heap[i]] = i;
+            i = filho;
+        }
+        heap[i] = ordem;
+        posicao[ordem] = i;
+    }
+}
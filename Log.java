@@ -0,0 +1,166 @@
+package sistema_multiagente;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LOG ASSÍNCRONO COM NÍVEIS:
+ *
+ * 1. NÍVEIS:
+ *    - DEBUG, INFO, AVISO e ERRO; o mínimo vem de -Dlog.nivel (padrão INFO)
+ *    - Mensagens abaixo do nível são descartadas antes de qualquer formatação
+ *
+ * 2. ESCRITA:
+ *    - Quem registra só enfileira o formato e os argumentos; a formatação e a
+ *      escrita no console são feitas por uma thread daemon, em lotes
+ *    - A fila é limitada: se encher, a mensagem é descartada e contada, e os
+ *      agentes nunca esperam pelo console
+ *    - ERRO vai para System.err, os demais para System.out
+ *    - Ao encerrar a JVM, as mensagens pendentes são escritas
+ *
+ * 3. FORMATO:
+ *    - Os mesmos de String.format ("%s", "%d", "%.2f"...)
+ */
+
+public final class Log {
+    public enum Nivel { DEBUG, INFO, AVISO, ERRO }
+
+    private static final class Registro {
+        final Nivel nivel;
+        final String formato;
+        final Object[] argumentos;
+        final Throwable erro;
+
+        Registro(Nivel nivel, String formato, Object[] argumentos, Throwable erro) {
+            this.nivel = nivel;
+            this.formato = formato;
+            this.argumentos = argumentos;
+            this.erro = erro;
+        }
+    }
+
+    private static final Nivel MINIMO = Nivel.valueOf(System.getProperty("log.nivel", "INFO"));
+    private static final BlockingQueue<Registro> fila = new ArrayBlockingQueue<>(65536);
+    private static final LongAdder descartadas = new LongAdder();
+
+    static {
+        Thread escritor = new Thread(Log::escrever, "log");
+        escritor.setDaemon(true);
+        escritor.start();
+        java.lang.Runtime.getRuntime().addShutdownHook(new Thread(Log::esvaziar, "log-final"));
+    }
+
+    private Log() {
+    }
+
+    public static boolean ativo(Nivel nivel) {
+        return nivel.compareTo(MINIMO) >= 0;
+    }
+
+    public static void debug(String formato, Object... argumentos) {
+        registrar(Nivel.DEBUG, formato, argumentos, null);
+    }
+
+    public static void info(String formato, Object... argumentos) {
+        registrar(Nivel.INFO, formato, argumentos, null);
+    }
+
+    public static void aviso(String formato, Object... argumentos) {
+        registrar(Nivel.AVISO, formato, argumentos, null);
+    }
+
+    public static void erro(String formato, Object... argumentos) {
+        registrar(Nivel.ERRO, formato, argumentos, null);
+    }
+
+    public static void erro(Throwable erro, String formato, Object... argumentos) {
+        registrar(Nivel.ERRO, formato, argumentos, erro);
+    }
+
+    public static long descartadas() {
+        return descartadas.sum();
+    }
+
+    private static void registrar(Nivel nivel, String formato, Object[] argumentos, Throwable erro) {
+        if (!ativo(nivel)) {
+            return;
+        }
+        if (!fila.offer(new Registro(nivel, formato, argumentos, erro))) {
+            descartadas.increment();
+        }
+    }
+
+    private static void escrever() {
+        List<Registro> lote = new ArrayList<>(1024);
+        long avisadas = 0;
+        while (true) {
+            try {
+                Registro primeiro = fila.poll(1, TimeUnit.SECONDS);
+                if (primeiro != null) {
+                    lote.add(primeiro);
+                    fila.drainTo(lote, 1023);
+                    imprimir(lote);
+                    lote.clear();
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            long total = descartadas.sum();
+            if (total > avisadas) {
+                System.err.println("[AVISO] log: " + (total - avisadas) + " mensagens descartadas (fila cheia)");
+                avisadas = total;
+            }
+        }
+    }
+
+    private static synchronized void imprimir(List<Registro> lote) {
+        StringBuilder saida = new StringBuilder(lote.size() * 64);
+        StringBuilder erros = null;
+        for (Registro registro : lote) {
+            String texto = registro.argumentos.length == 0
+                ? registro.formato
+                : String.format(registro.formato, registro.argumentos);
+            if (registro.nivel == Nivel.ERRO) {
+                if (erros == null) {
+                    erros = new StringBuilder();
+                }
+                erros.append(texto).append('\n');
+                if (registro.erro != null) {
+                    erros.append(registro.erro).append('\n');
+                    for (StackTraceElement linha : registro.erro.getStackTrace()) {
+                        erros.append("\tat ").append(linha).append('\n');
+                    }
+                }
+            } else {
+                if (registro.nivel != Nivel.INFO) {
+                    saida.append('[').append(registro.nivel).append("] ");
+                }
+                saida.append(texto).append('\n');
+            }
+        }
+        escreverEm(System.out, saida);
+        if (erros != null) {
+            escreverEm(System.err, erros);
+        }
+    }
+
+    private static void escreverEm(PrintStream destino, StringBuilder texto) {
+        if (texto.length() > 0) {
+            destino.print(texto);
+            destino.flush();
+        }
+    }
+
+    private static void esvaziar() {
+        List<Registro> restantes = new ArrayList<>();
+        fila.drainTo(restantes);
+        if (!restantes.isEmpty()) {
+            imprimir(restantes);
+        }
+    }
+}
\ No newline at end of file
@@ -6,6 +6,7 @@ import jade.core.Runtime;
 import jade.wrapper.AgentContainer;
 import jade.wrapper.AgentController;
 import jade.wrapper.StaleProxyException;
+import java.util.Arrays;
 
 /**
  * ESTRATÉGIA DE INICIALIZAÇÃO:
@@ -22,10 +23,37 @@ import jade.wrapper.StaleProxyException;
  * 3. ORDEM DE INICIALIZAÇÃO:
  *    - Vendedores criados primeiro (com delay para registro)
  *    - Gerente criado por último para garantir disponibilidade dos vendedores
+ *    - Com -Dnegociacao.modo=livro, o AgenteMercado é criado antes do gerente
+ * 
+ * 4. MODO CARGA:
+ *    - "Main carga chave=valor ..." executa o TesteCarga, sem GUI e sem gerente
+ * 
+ * 5. MODO REPRODUÇÃO:
+ *    - "Main reproduzir arquivo=<rastro> ..." refaz um rastro gravado com
+ *      -Drastro.arquivo, com relógio virtual e sem JADE (ver Reproducao)
  */
 
 public class Main {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("carga")) {
+            try {
+                TesteCarga.main(Arrays.copyOfRange(args, 1, args.length));
+            } catch (Exception e) {
+                System.err.println("Erro no teste de carga: " + e.getMessage());
+                e.printStackTrace();
+            }
+            return;
+        }
+        if (args.length > 0 && args[0].equals("reproduzir")) {
+            try {
+                Reproducao.main(Arrays.copyOfRange(args, 1, args.length));
+            } catch (Exception e) {
+                System.err.println("Erro na reprodução: " + e.getMessage());
+                e.printStackTrace();
+            }
+            return;
+        }
+        
         Runtime rt = Runtime.instance();
         Profile p = new ProfileImpl();
         p.setParameter(Profile.MAIN_HOST, "localhost");
@@ -52,6 +80,10 @@ public class Main {
             // Aguarda 2 segundos para registro no DF
             Thread.sleep(2000);
             
+            if (AgenteMercado.MODO_LIVRO) {
+                mainContainer.createNewAgent("Mercado", "sistema_multiagente.AgenteMercado", null).start();
+            }
+            
             // Depois inicia o gerente
             mainContainer.createNewAgent("Gerente", "sistema_multiagente.AgenteGerente", null).start();
             
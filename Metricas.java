@@ -0,0 +1,94 @@
+package sistema_multiagente;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * REGISTRO DE MÉTRICAS:
+ *
+ * 1. ESTRUTURA:
+ *    - Um registro por dono (nome do agente, ou "compradores" para os compradores
+ *      de compra única, que são muitos e de vida curta)
+ *    - Contadores (LongAdder), histogramas (Histograma) e medidores, que são lidos
+ *      apenas no momento da exportação
+ *
+ * 2. CUSTO:
+ *    - Os agentes guardam as referências em campos na criação; no caminho quente
+ *      há só um incremento atômico, sem travas nem consulta ao mapa
+ *
+ * 3. EXPORTAÇÃO:
+ *    - instantaneo() monta o texto com todos os registros, uma métrica por linha:
+ *      "<dono> <metrica> <valor>"
+ *    - Histogramas exportam total, média e percentis 50, 90, 99 e 100
+ *    - Usado pelo ExportadorMetricas (arquivo ou HTTP)
+ */
+
+public final class Metricas {
+    private static final Map<String, Metricas> registros = new ConcurrentHashMap<>();
+
+    private final String dono;
+    private final Map<String, LongAdder> contadores = new ConcurrentHashMap<>();
+    private final Map<String, Histograma> histogramas = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> medidores = new ConcurrentHashMap<>();
+
+    private Metricas(String dono) {
+        this.dono = dono;
+    }
+
+    public static Metricas de(String dono) {
+        return registros.computeIfAbsent(dono, Metricas::new);
+    }
+
+    public LongAdder contador(String nome) {
+        return contadores.computeIfAbsent(nome, n -> new LongAdder());
+    }
+
+    public Histograma histograma(String nome) {
+        return histogramas.computeIfAbsent(nome, n -> new Histograma());
+    }
+
+    /**
+     * Valor lido na exportação, por exemplo o tamanho de uma fila.
+     * Um medidor com o mesmo nome substitui o anterior.
+     */
+    public void medidor(String nome, LongSupplier valor) {
+        medidores.put(nome, valor);
+    }
+
+    public void removerMedidor(String nome) {
+        medidores.remove(nome);
+    }
+
+    private void escrever(StringBuilder saida) {
+        for (Map.Entry<String, LongAdder> c : new TreeMap<>(contadores).entrySet()) {
+            linha(saida, c.getKey(), c.getValue().sum());
+        }
+        for (Map.Entry<String, LongSupplier> m : new TreeMap<>(medidores).entrySet()) {
+            linha(saida, m.getKey(), m.getValue().getAsLong());
+        }
+        for (Map.Entry<String, Histograma> h : new TreeMap<>(histogramas).entrySet()) {
+            Histograma histograma = h.getValue();
+            linha(saida, h.getKey() + ".total", histograma.total());
+            linha(saida, h.getKey() + ".media", Math.round(histograma.media()));
+            linha(saida, h.getKey() + ".p50", histograma.percentil(50));
+            linha(saida, h.getKey() + ".p90", histograma.percentil(90));
+            linha(saida, h.getKey() + ".p99", histograma.percentil(99));
+            linha(saida, h.getKey() + ".max", histograma.percentil(100));
+        }
+    }
+
+    private void linha(StringBuilder saida, String nome, long valor) {
+        saida.append(dono).append(' ').append(nome).append(' ').append(valor).append('\n');
+    }
+
+    public static String instantaneo() {
+        StringBuilder saida = new StringBuilder(4096);
+        for (Metricas registro : new TreeMap<>(registros).values()) {
+            registro.escrever(saida);
+        }
+        return saida.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,638 @@
+package sistema_multiagente;
+
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * NEGOCIAÇÃO DE UMA COMPRA (SEM DEPENDER DO AGENTE):
+ *
+ * 1. PAPEL:
+ *    - Reúne o que o AgenteComprador faz em cada compra: buscas, rodada de
+ *      CFP, negociações em paralelo, acordos retidos, confirmação e recuo
+ *    - O tempo chega sempre como argumento ("agora") e as mensagens saem pelo
+ *      Ouvinte, então o mesmo código roda no agente, com o relógio da máquina,
+ *      e na reprodução de rastros (Reproducao), com relógio virtual
+ *    - Parâmetros do AgenteComprador: prazos (-Dcomprador.prazo.cfp,
+ *      -Dcomprador.negociacao.prazo), -Dcomprador.paralelo, -Dcomprador.cfp.max,
+ *      -Dcomprador.alvo, -Dcomprador.retencao.intervalo e a estratégia; o
+ *      limite de buscas vem no construtor
+ *
+ * 2. USO:
+ *    - contatar: envia o CFP aos vendedores encontrados; o dono chama na
+ *      criação da compra e sempre que o Ouvinte pedir uma busca
+ *    - espera / receber: mensagens dos vendedores para esta compra (propostas
+ *      e recusas da rodada, respostas das negociações, confirmação do aceite e
+ *      CANCEL de acordos retidos)
+ *    - expirar: prazos da rodada, das negociações e da confirmação, renovação
+ *      dos acordos retidos, fim do recuo e busca periódica (a cada 10 s);
+ *      deve ser chamado até proximoPrazo()
+ *    - finalizar: desfecho decidido fora do motor (livro de ofertas)
+ *
+ * 3. MÉTRICAS:
+ *    - As do AgenteComprador, em um objeto Medidas criado uma vez por dono;
+ *      o desfecho também é informado ao ColetorCarga
+ *
+ * 4. THREADS:
+ *    - Não é thread-safe: usado apenas pela thread do agente dono
+ */
+
+public class MotorComprador {
+    private static final long INTERVALO_BUSCA = 10000;
+
+    /**
+     * Quem conduz a compra: envia as mensagens, procura vendedores e recebe o desfecho.
+     */
+    public interface Ouvinte {
+        /**
+         * Identificador da conversa de um novo CFP, único no comprador.
+         */
+        String novaConversa();
+
+        void enviar(ACLMessage msg);
+
+        /**
+         * Nova busca: o resultado volta por contatar, na hora ou depois.
+         */
+        void buscar();
+
+        void encerrada(MotorComprador compra);
+    }
+
+    /**
+     * Contadores e histogramas do comprador, registrados uma vez e compartilhados pelas compras.
+     */
+    public static final class Medidas {
+        final LongAdder cfpsEnviados;
+        final LongAdder acordos;
+        final LongAdder fracassos;
+        final LongAdder parciais;
+        final LongAdder expiradas;
+        final LongAdder recusasOcupado;
+        final LongAdder recuos;
+        final LongAdder desistencias;
+        final LongAdder naoConfirmados;
+        final Histograma propostasPorRodada;
+        final Histograma rodadasAteAcordo;
+        final Histograma precoSobreMaximo;
+        final Histograma respostaVendedor;
+
+        public Medidas(Metricas metricas) {
+            cfpsEnviados = metricas.contador("cfp.enviados");
+            acordos = metricas.contador("acordos");
+            fracassos = metricas.contador("fracassos");
+            parciais = metricas.contador("compras.parciais");
+            expiradas = metricas.contador("negociacoes.expiradas");
+            recusasOcupado = metricas.contador("cfp.recusas.ocupado");
+            recuos = metricas.contador("recuos");
+            desistencias = metricas.contador("compras.desistidas");
+            naoConfirmados = metricas.contador("acordos.nao.confirmados");
+            propostasPorRodada = metricas.histograma("propostas.por.rodada");
+            rodadasAteAcordo = metricas.histograma("rodadas.ate.acordo");
+            precoSobreMaximo = metricas.histograma("preco.acordo.por.maximo.milesimos");
+            respostaVendedor = metricas.histograma("negociacao.resposta.ns");
+        }
+    }
+
+    private final String comprador;
+    private final PedidoCompra pedido;
+    private final double precoAlvo;
+    private final int buscasMaximas;
+    private final Medidas medidas;
+    private final RandomGenerator aleatorio;
+    // Relógio das latências medidas, em ns
+    private final LongSupplier relogio;
+    private final Ouvinte ouvinte;
+    private final long criadoEm;
+    private final Oferta oferta = new Oferta();
+
+    // Rodada de CFP em andamento (conversa null: nenhuma)
+    private String conversa;
+    private long inicioRodada;
+    private long prazoRodada;
+    private int contatados;
+    private int respostas;
+    // Maior espera sugerida pelos vendedores que recusaram por estarem ocupados
+    private long dicaOcupado;
+    private final Map<AID, Double> ofertas = new HashMap<>();
+    private final Map<AID, ACLMessage> propostas = new HashMap<>();
+
+    private final List<NegociacaoComprador> negociacoes = new ArrayList<>();
+    // Prazo da próxima resposta de cada negociação em andamento ou aceita
+    private final Map<NegociacaoComprador, Long> prazos = new HashMap<>();
+    // Envio da última mensagem de cada negociação, para medir o tempo até a resposta
+    private final Map<NegociacaoComprador, Long> enviadas = new HashMap<>();
+    private int emAndamento = 0;
+    // Acordos acima do alvo, ainda não aceitos, com o ACCEPT de cada um
+    private final Map<NegociacaoComprador, ACLMessage> retidas = new LinkedHashMap<>();
+    // Aceite enviado, esperando CONFIRM
+    private NegociacaoComprador aceita;
+    private long proximaManutencao = Long.MAX_VALUE;
+
+    private long proximaBusca;
+    private boolean buscando = false;
+    // Recuo após rodadas recusadas com "ocupado": nenhuma busca antes de esperarAte
+    private boolean recuando = false;
+    private long esperarAte = 0;
+    private int tentativasOcupado = 0;
+    private int buscasFeitas = 0;
+    private int mensagens = 0;
+
+    private boolean encerrada = false;
+    private boolean desistiu = false;
+    private int compradas = 0;
+    private double preco = 0;
+
+    public MotorComprador(String comprador, PedidoCompra pedido, int buscasMaximas, Medidas medidas,
+                          RandomGenerator aleatorio, LongSupplier relogio, Ouvinte ouvinte, long agora) {
+        this.comprador = comprador;
+        this.pedido = pedido;
+        this.precoAlvo = pedido.precoMaximo * AgenteComprador.ALVO;
+        this.buscasMaximas = buscasMaximas;
+        this.medidas = medidas;
+        this.aleatorio = aleatorio;
+        this.relogio = relogio;
+        this.ouvinte = ouvinte;
+        this.criadoEm = relogio.getAsLong();
+        this.proximaBusca = agora + INTERVALO_BUSCA;
+    }
+
+    /**
+     * Envia o CFP aos vendedores, se nenhuma rodada ou negociação estiver em
+     * andamento. Retorna true se o CFP foi enviado.
+     */
+    public boolean contatar(Collection<AID> vendedores, long agora) {
+        buscando = false;
+        if (encerrada || conversa != null || !negociacoes.isEmpty()) {
+            return false;
+        }
+        if (vendedores.isEmpty()) {
+            Log.debug("Nenhum vendedor encontrado para %s", pedido.titulo);
+            return false;
+        }
+        int maximo = AgenteComprador.MAX_CFP;
+        if (maximo > 0 && vendedores.size() > maximo) {
+            // Sorteio parcial de Fisher-Yates: os "maximo" primeiros são os contatados
+            List<AID> sorteados = new ArrayList<>(vendedores);
+            for (int i = 0; i < maximo; i++) {
+                Collections.swap(sorteados, i, i + aleatorio.nextInt(sorteados.size() - i));
+            }
+            vendedores = sorteados.subList(0, maximo);
+        }
+
+        ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+        for (AID vendedor : vendedores) {
+            cfp.addReceiver(vendedor);
+        }
+        conversa = ouvinte.novaConversa();
+        cfp.setContent(pedido.titulo + ":" + pedido.quantidade);
+        cfp.setConversationId(conversa);
+        cfp.setReplyWith(conversa);
+        enviar(cfp);
+        medidas.cfpsEnviados.increment();
+
+        inicioRodada = agora;
+        prazoRodada = agora + AgenteComprador.PRAZO_CFP;
+        contatados = vendedores.size();
+        respostas = 0;
+        dicaOcupado = 0;
+        ofertas.clear();
+        propostas.clear();
+        return true;
+    }
+
+    /**
+     * A mensagem pertence a esta compra: resposta à rodada atual ou a uma
+     * negociação em andamento, aceita ou retida.
+     */
+    public boolean espera(ACLMessage msg) {
+        if (encerrada) {
+            return false;
+        }
+        int performativa = msg.getPerformative();
+        if (conversa != null && conversa.equals(msg.getConversationId())
+                && (performativa == ACLMessage.PROPOSE || performativa == ACLMessage.REFUSE)) {
+            return true;
+        }
+        return negociacao(msg) != null;
+    }
+
+    public void receber(ACLMessage msg, long agora) {
+        if (encerrada) {
+            return;
+        }
+        int performativa = msg.getPerformative();
+        if (conversa != null && conversa.equals(msg.getConversationId())
+                && (performativa == ACLMessage.PROPOSE || performativa == ACLMessage.REFUSE)) {
+            receberNaRodada(msg, agora);
+            return;
+        }
+        NegociacaoComprador negociacao = negociacao(msg);
+        if (negociacao == null) {
+            return;
+        }
+        mensagens++;
+        if (negociacao == aceita) {
+            prazos.remove(negociacao);
+            confirmacao(negociacao, msg, agora);
+        } else if (retidas.containsKey(negociacao)) {
+            // Só o CANCEL do vendedor chega a um acordo retido: ele sai das alternativas
+            negociacao.tratar(msg);
+            retidas.remove(negociacao);
+            Log.debug("%s: %s desistiu do acordo retido", comprador, negociacao.vendedor().getLocalName());
+        } else {
+            medidas.respostaVendedor.registrar(relogio.getAsLong() - enviadas.get(negociacao));
+            ACLMessage resposta = negociacao.tratar(msg);
+            if (resposta != null || negociacao.concluida()) {
+                responder(negociacao, resposta, agora);
+            }
+        }
+    }
+
+    /**
+     * Trata os prazos vencidos até "agora": rodada, negociações, confirmação,
+     * renovação dos acordos retidos, fim do recuo e busca periódica.
+     */
+    public void expirar(long agora) {
+        if (!encerrada && conversa != null && agora >= prazoRodada) {
+            concluirRodada(agora);
+        }
+        if (!encerrada && !prazos.isEmpty()) {
+            List<NegociacaoComprador> vencidas = new ArrayList<>();
+            for (Map.Entry<NegociacaoComprador, Long> prazo : prazos.entrySet()) {
+                if (agora >= prazo.getValue()) {
+                    vencidas.add(prazo.getKey());
+                }
+            }
+            for (NegociacaoComprador negociacao : vencidas) {
+                if (encerrada || prazos.remove(negociacao) == null) {
+                    continue;
+                }
+                if (negociacao == aceita) {
+                    confirmacao(negociacao, null, agora);
+                } else {
+                    expirou(negociacao, agora);
+                }
+            }
+        }
+        if (!encerrada && agora >= proximaManutencao) {
+            manterRetidas(agora);
+        }
+        if (!encerrada && recuando && agora >= esperarAte) {
+            recuando = false;
+            buscar(agora);
+        }
+        if (!encerrada && agora >= proximaBusca) {
+            proximaBusca += ((agora - proximaBusca) / INTERVALO_BUSCA + 1) * INTERVALO_BUSCA;
+            buscar(agora);
+        }
+    }
+
+    /**
+     * Próximo instante em que expirar tem algo a fazer (Long.MAX_VALUE depois do desfecho).
+     */
+    public long proximoPrazo() {
+        if (encerrada) {
+            return Long.MAX_VALUE;
+        }
+        long proximo = Math.min(proximaBusca, proximaManutencao);
+        if (conversa != null) {
+            proximo = Math.min(proximo, prazoRodada);
+        }
+        if (recuando) {
+            proximo = Math.min(proximo, esperarAte);
+        }
+        for (long prazo : prazos.values()) {
+            proximo = Math.min(proximo, prazo);
+        }
+        return proximo;
+    }
+
+    /**
+     * Envia pelo Ouvinte, contando uma mensagem por destinatário.
+     */
+    public void enviar(ACLMessage msg) {
+        Iterator<?> destinatarios = msg.getAllReceiver();
+        while (destinatarios.hasNext()) {
+            destinatarios.next();
+            mensagens++;
+        }
+        ouvinte.enviar(msg);
+    }
+
+    /**
+     * Conta uma mensagem recebida fora do motor (livro de ofertas).
+     */
+    public void recebida() {
+        mensagens++;
+    }
+
+    /**
+     * Nova busca, se nenhuma estiver em andamento e o recuo já passou.
+     * Depois de "buscasMaximas" buscas sem acordo (0 = sem limite), a compra desiste.
+     */
+    private void buscar(long agora) {
+        if (encerrada || conversa != null || !negociacoes.isEmpty() || buscando || agora < esperarAte) {
+            return;
+        }
+        if (buscasMaximas > 0 && buscasFeitas >= buscasMaximas) {
+            Log.info("Desistindo de %s após %d buscas sem oferta", pedido.titulo, buscasFeitas);
+            medidas.desistencias.increment();
+            desistiu = true;
+            finalizar(0, 0, 0);
+            return;
+        }
+        buscasFeitas++;
+        buscando = true;
+        Log.debug("Buscando: %s", pedido.titulo);
+        ouvinte.buscar();
+    }
+
+    private void receberNaRodada(ACLMessage msg, long agora) {
+        respostas++;
+        mensagens++;
+        if (msg.getPerformative() == ACLMessage.PROPOSE) {
+            if (CodecOferta.ler(msg, oferta) && oferta.quantidade >= pedido.quantidade) {
+                double preco = oferta.preco();
+                ofertas.put(msg.getSender(), preco);
+                propostas.put(msg.getSender(), msg);
+                Log.debug("Oferta de %s: R$%.2f", msg.getSender().getLocalName(), preco);
+            } else {
+                rejeitar(msg);
+            }
+        } else if (MotorVendedor.OCUPADO.equals(msg.getContent())) {
+            medidas.recusasOcupado.increment();
+            dicaOcupado = Math.max(dicaOcupado, AgenteComprador.dicaOcupado(msg));
+        }
+        if (respostas >= contatados) {
+            concluirRodada(agora);
+        }
+    }
+
+    /**
+     * Fim da rodada: negocia com as K ofertas de menor preço e rejeita as demais.
+     */
+    private void concluirRodada(long agora) {
+        String rodada = conversa;
+        conversa = null;
+        Log.debug("Rodada %s: %d/%d respostas em %d ms", rodada, respostas, contatados, agora - inicioRodada);
+        medidas.propostasPorRodada.registrar(ofertas.size());
+        if (ofertas.isEmpty()) {
+            if (dicaOcupado > 0) {
+                recuar(dicaOcupado, agora);
+            }
+            return;
+        }
+        tentativasOcupado = 0;
+
+        List<AID> ordem = new ArrayList<>(ofertas.keySet());
+        ordem.sort(Comparator.comparingDouble(ofertas::get));
+        Log.debug("Melhor oferta: %s - R$%.2f", ordem.get(0).getLocalName(), ofertas.get(ordem.get(0)));
+
+        for (int i = 0; i < ordem.size(); i++) {
+            AID vendedor = ordem.get(i);
+            if (i >= AgenteComprador.PARALELO) {
+                rejeitar(propostas.get(vendedor));
+                continue;
+            }
+            NegociacaoComprador negociacao = new NegociacaoComprador(vendedor, rodada, pedido.titulo,
+                ofertas.get(vendedor), pedido.precoMaximo, pedido.quantidade, AgenteComprador.ESTRATEGIA);
+            negociacoes.add(negociacao);
+            emAndamento++;
+            enviarNaNegociacao(negociacao, negociacao.abrir(propostas.get(vendedor)), agora);
+        }
+    }
+
+    /**
+     * Rodada sem ofertas e com vendedores ocupados: tenta de novo depois do recuo,
+     * sem esperar a busca periódica.
+     */
+    private void recuar(long dica, long agora) {
+        long espera = AgenteComprador.recuo(dica, tentativasOcupado++, aleatorio);
+        esperarAte = agora + espera;
+        recuando = true;
+        medidas.recuos.increment();
+        Log.debug("Vendedores ocupados para %s; nova rodada em %d ms", pedido.titulo, espera);
+    }
+
+    /**
+     * Resposta de uma das negociações ao vendedor. Decide entre aceitar na hora,
+     * reter o acordo até as outras terminarem, ou cancelar.
+     */
+    private void responder(NegociacaoComprador negociacao, ACLMessage resposta, long agora) {
+        if (!negociacao.concluida()) {
+            enviarNaNegociacao(negociacao, resposta, agora);
+            return;
+        }
+        emAndamento--;
+        prazos.remove(negociacao);
+
+        if (!negociacao.acordo()) {
+            if (resposta != null) {
+                enviar(resposta);
+            }
+        } else if (resposta == null || negociacao.precoAtual() <= precoAlvo || emAndamento == 0) {
+            // Aceite do próprio vendedor, alvo atingido ou nenhuma alternativa em curso
+            aceitar(negociacao, resposta, agora);
+            return;
+        } else {
+            retidas.put(negociacao, resposta);
+            if (proximaManutencao == Long.MAX_VALUE) {
+                proximaManutencao = agora + AgenteComprador.INTERVALO_RETENCAO;
+            }
+        }
+
+        if (emAndamento == 0 && !aceitarMelhorRetida(agora)) {
+            concluir(negociacao);
+        }
+    }
+
+    /**
+     * Envia o aceite e espera a confirmação do vendedor; só ela conta como acordo.
+     * As negociações em curso são canceladas, e as retidas ficam como alternativa.
+     */
+    private void aceitar(NegociacaoComprador negociacao, ACLMessage aceite, long agora) {
+        retidas.remove(negociacao);
+        for (NegociacaoComprador outra : negociacoes) {
+            if (outra != negociacao && !outra.concluida()) {
+                enviar(outra.cancelar());
+                prazos.remove(outra);
+            }
+        }
+        emAndamento = 0;
+        if (aceite == null) {
+            concluir(negociacao);
+            return;
+        }
+        enviar(aceite);
+        aceita = negociacao;
+        prazos.put(negociacao, agora + AgenteComprador.PRAZO_NEGOCIACAO);
+    }
+
+    /**
+     * Aceita o menor preço entre os acordos retidos. Retorna false se não sobrou nenhum.
+     */
+    private boolean aceitarMelhorRetida(long agora) {
+        NegociacaoComprador melhor = null;
+        for (NegociacaoComprador retida : retidas.keySet()) {
+            if (melhor == null || retida.precoAtual() < melhor.precoAtual()) {
+                melhor = retida;
+            }
+        }
+        if (melhor == null) {
+            return false;
+        }
+        aceitar(melhor, retidas.get(melhor), agora);
+        return true;
+    }
+
+    /**
+     * Resposta ao aceite (null se não veio no prazo). Sem confirmação, passa
+     * para o melhor acordo retido que ainda houver.
+     */
+    private void confirmacao(NegociacaoComprador negociacao, ACLMessage msg, long agora) {
+        aceita = null;
+        if (negociacao.confirmacao(msg)) {
+            concluir(negociacao);
+            return;
+        }
+        medidas.naoConfirmados.increment();
+        Log.debug("%s: acordo com %s não confirmado (%s)", comprador, negociacao.vendedor().getLocalName(),
+            msg != null ? msg.getContent() : "sem resposta");
+        if (!aceitarMelhorRetida(agora)) {
+            concluir(negociacao);
+        }
+    }
+
+    /**
+     * Enquanto houver acordos retidos, renova periodicamente o prazo e a
+     * reserva de cada vendedor, que de outra forma abortaria a negociação.
+     */
+    private void manterRetidas(long agora) {
+        if (retidas.isEmpty()) {
+            proximaManutencao = Long.MAX_VALUE;
+            return;
+        }
+        for (NegociacaoComprador retida : retidas.keySet()) {
+            enviar(retida.manter());
+        }
+        proximaManutencao = agora + AgenteComprador.INTERVALO_RETENCAO;
+    }
+
+    /**
+     * Vendedor sem resposta dentro do prazo: cancela e segue como negociação sem acordo.
+     */
+    private void expirou(NegociacaoComprador negociacao, long agora) {
+        medidas.expiradas.increment();
+        Log.debug("%s sem resposta de %s na conversa %s", comprador,
+            negociacao.vendedor().getLocalName(), negociacao.conversa());
+        enviar(negociacao.cancelar());
+        responder(negociacao, null, agora);
+    }
+
+    /**
+     * Encerra a compra com o desfecho de "escolhida", cancelando as negociações restantes.
+     */
+    private void concluir(NegociacaoComprador escolhida) {
+        for (NegociacaoComprador negociacao : negociacoes) {
+            if (negociacao != escolhida && (!negociacao.concluida() || retidas.containsKey(negociacao))) {
+                enviar(negociacao.cancelar());
+            }
+        }
+        retidas.clear();
+        if (escolhida.acordo()) {
+            Log.info("Compra aprovada com %s por R$%.2f", escolhida.vendedor().getLocalName(), escolhida.precoAtual());
+        }
+        finalizar(escolhida.acordo() ? pedido.quantidade : 0, escolhida.precoAtual(), escolhida.rodada());
+    }
+
+    private void enviarNaNegociacao(NegociacaoComprador negociacao, ACLMessage msg, long agora) {
+        enviar(msg);
+        prazos.put(negociacao, agora + AgenteComprador.PRAZO_NEGOCIACAO);
+        enviadas.put(negociacao, relogio.getAsLong());
+    }
+
+    private void rejeitar(ACLMessage proposta) {
+        ACLMessage rejeicao = proposta.createReply();
+        rejeicao.setPerformative(ACLMessage.REJECT_PROPOSAL);
+        enviar(rejeicao);
+    }
+
+    /**
+     * Negociação em andamento, aceita ou retida a que a mensagem responde, ou null.
+     */
+    private NegociacaoComprador negociacao(ACLMessage msg) {
+        for (NegociacaoComprador negociacao : negociacoes) {
+            if ((prazos.containsKey(negociacao) || retidas.containsKey(negociacao)) && negociacao.espera(msg)) {
+                return negociacao;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Desfecho pela quantidade comprada: toda (acordo), parte (parcial, só no
+     * livro de ofertas) ou nenhuma (fracasso). "preco" é o preço médio pago.
+     */
+    public void finalizar(int compradas, double preco, int rodadas) {
+        if (encerrada) {
+            return;
+        }
+        encerrada = true;
+        this.compradas = compradas;
+        this.preco = preco;
+        conversa = null;
+        prazos.clear();
+        retidas.clear();
+        if (acordo()) {
+            ColetorCarga.acordo(relogio.getAsLong() - criadoEm, mensagens);
+            medidas.acordos.increment();
+            medidas.rodadasAteAcordo.registrar(rodadas);
+            medidas.precoSobreMaximo.registrar(Math.round(1000 * preco / pedido.precoMaximo));
+        } else if (parcial()) {
+            ColetorCarga.parcial(mensagens);
+            medidas.parciais.increment();
+        } else {
+            ColetorCarga.fracasso(mensagens);
+            medidas.fracassos.increment();
+        }
+        ouvinte.encerrada(this);
+    }
+
+    public PedidoCompra pedido() {
+        return pedido;
+    }
+
+    public boolean encerrada() {
+        return encerrada;
+    }
+
+    public boolean acordo() {
+        return compradas >= pedido.quantidade;
+    }
+
+    public boolean parcial() {
+        return !acordo() && compradas > 0;
+    }
+
+    public int compradas() {
+        return compradas;
+    }
+
+    /**
+     * Preço médio pago (0 sem acordo).
+     */
+    public double preco() {
+        return preco;
+    }
+
+    /**
+     * A compra terminou por atingir o limite de buscas sem oferta.
+     */
+    public boolean desistiu() {
+        return desistiu;
+    }
+}
@@ -0,0 +1,254 @@
+package sistema_multiagente;
+
+import jade.lang.acl.ACLMessage;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * TRATAMENTO DAS MENSAGENS DO VENDEDOR (SEM DEPENDER DO AGENTE):
+ *
+ * 1. PAPEL:
+ *    - Reúne o que o AgenteVendedor faz com cada mensagem recebida: lote de
+ *      CFPs, cotações, reservas, negociações abertas e seus prazos
+ *    - O tempo chega sempre como argumento ("agora") e as respostas saem por
+ *      um Consumer, então o mesmo código roda no agente, com o relógio da
+ *      máquina, e na reprodução de rastros (Reproducao), com relógio virtual
+ *
+ * 2. USO:
+ *    - receber: CFPs entram no lote; as demais mensagens vão para a negociação
+ *      da conversa, se o remetente for o comprador dela
+ *    - processarPedidos: responde o lote, uma cotação por título
+ *    - expirar: libera reservas vencidas e aborta negociações sem resposta;
+ *      chamado a cada 100 ms
+ *
+ * 2.1. ADMISSÃO:
+ *    - Com "maximoNegociacoes" negociações abertas ou CFPs no lote (0 = sem
+ *      limite), novos CFPs recebem na hora REFUSE "ocupado" com o parâmetro
+ *      "tentar-apos" (ms), sem cotação nem reserva
+ *    - recusarOcupado também é usado pelo agente quando a fila de mensagens
+ *      passa do limite
+ *
+ * 3. MÉTRICAS (registro com o nome do vendedor):
+ *    - As mesmas descritas no AgenteVendedor, exceto as da fila de mensagens,
+ *      que são do agente
+ *
+ * 4. THREADS:
+ *    - Não é thread-safe: usado apenas pela thread do agente dono
+ */
+
+public class MotorVendedor {
+    public static final String OCUPADO = "ocupado";
+    public static final String TENTAR_APOS = "tentar-apos";
+
+    private final String nome;
+    private final Estoque estoque;
+    private final Reservas reservas;
+    private final EstrategiaNegociacao estrategia;
+    private final Consumer<ACLMessage> saida;
+    private final int maximoNegociacoes;
+    private final long esperaOcupado;
+    private final Map<String, NegociacaoVendedor> negociacoes = new HashMap<>();
+    private final CacheCotacoes cotacoes;
+    private final PrazosNegociacao<NegociacaoVendedor> prazos;
+    // CFPs do lote atual, agrupados por título
+    private final Map<String, List<ACLMessage>> cfpsPendentes = new HashMap<>();
+    private int pendentes = 0;
+    private long inicioLote;
+
+    private final LongAdder cfpsRecebidos;
+    private final LongAdder propostas;
+    private final LongAdder recusas;
+    private final LongAdder vendas;
+    private final LongAdder expiradas;
+    private final LongAdder ocupado;
+    private final Histograma precoSobreMinimo;
+    private final Histograma cfpsPorLote;
+
+    public MotorVendedor(String nome, Estoque estoque, long ttlReserva, long prazoNegociacao,
+                         EstrategiaNegociacao estrategia, int maximoNegociacoes, long esperaOcupado,
+                         Consumer<ACLMessage> saida) {
+        this.nome = nome;
+        this.estoque = estoque;
+        this.reservas = new Reservas(estoque, ttlReserva);
+        this.cotacoes = new CacheCotacoes(estoque);
+        this.prazos = new PrazosNegociacao<>(prazoNegociacao);
+        this.estrategia = estrategia;
+        this.saida = saida;
+        this.maximoNegociacoes = maximoNegociacoes;
+        this.esperaOcupado = esperaOcupado;
+
+        Metricas metricas = Metricas.de(nome);
+        cfpsRecebidos = metricas.contador("cfp.recebidos");
+        propostas = metricas.contador("propostas");
+        recusas = metricas.contador("recusas");
+        vendas = metricas.contador("vendas");
+        expiradas = metricas.contador("negociacoes.expiradas");
+        ocupado = metricas.contador("cfp.recusados.ocupado");
+        precoSobreMinimo = metricas.histograma("preco.venda.por.minimo.milesimos");
+        metricas.medidor("negociacoes.abertas", negociacoes::size);
+        metricas.medidor("reservas.ativas", reservas::ativas);
+        metricas.medidor("reservas.criadas", reservas::criadas);
+        metricas.medidor("reservas.confirmadas", reservas::confirmadas);
+        metricas.medidor("reservas.liberadas", reservas::liberadas);
+        metricas.medidor("reservas.expiradas", reservas::expiradas);
+        metricas.medidor("cotacoes.acertos", cotacoes::acertos);
+        metricas.medidor("cotacoes.falhas", cotacoes::falhas);
+        cfpsPorLote = metricas.histograma("cfp.por.lote");
+    }
+
+    public void receber(ACLMessage msg, long agora) {
+        if (msg.getPerformative() == ACLMessage.CFP) {
+            adicionarPedido(msg, agora);
+        } else {
+            tratarNegociacao(msg, agora);
+        }
+    }
+
+    /**
+     * CFPs esperando resposta no lote atual.
+     */
+    public int pendentes() {
+        return pendentes;
+    }
+
+    /**
+     * Instante em que chegou o primeiro CFP do lote atual.
+     */
+    public long inicioLote() {
+        return inicioLote;
+    }
+
+    public int negociacoesAbertas() {
+        return negociacoes.size();
+    }
+
+    public Reservas reservas() {
+        return reservas;
+    }
+
+    /**
+     * Libera as reservas vencidas e aborta as negociações cujo comprador não respondeu no prazo.
+     */
+    public void expirar(long agora) {
+        reservas.expirar(agora);
+        prazos.expirar(agora, negociacao -> {
+            negociacoes.remove(negociacao.conversa());
+            saida.accept(negociacao.abortar());
+            expiradas.increment();
+            Log.debug("%s abortou a negociação %s: comprador sem resposta", nome, negociacao.conversa());
+        });
+    }
+
+    private void tratarNegociacao(ACLMessage msg, long agora) {
+        NegociacaoVendedor negociacao = negociacoes.get(msg.getConversationId());
+        if (negociacao != null && negociacao.comprador().equals(msg.getSender())) {
+            ACLMessage resposta = negociacao.tratar(msg, agora);
+            if (resposta != null) {
+                saida.accept(resposta);
+            }
+            if (negociacao.vendeu()) {
+                vendas.increment();
+                precoSobreMinimo.registrar(Math.round(1000 * negociacao.precoAtual() / negociacao.precoMinimo()));
+                Log.info("%s vendeu %dx %s por R$%.2f", nome, negociacao.quantidade(), negociacao.titulo(), negociacao.precoAtual());
+            }
+            if (negociacao.encerrada()) {
+                negociacoes.remove(negociacao.conversa());
+                prazos.remover(negociacao);
+            } else {
+                prazos.renovar(negociacao, agora);
+            }
+        }
+    }
+
+    private void adicionarPedido(ACLMessage msg, long agora) {
+        cfpsRecebidos.increment();
+        String conteudo = msg.getContent();
+        int separador = conteudo != null ? conteudo.lastIndexOf(':') : -1;
+        if (separador <= 0) {
+            recusar(msg, "pedido-invalido");
+            return;
+        }
+        if (maximoNegociacoes > 0 && negociacoes.size() + pendentes >= maximoNegociacoes) {
+            recusarOcupado(msg);
+            return;
+        }
+        String titulo = conteudo.substring(0, separador).trim();
+        if (pendentes == 0) {
+            inicioLote = agora;
+        }
+        cfpsPendentes.computeIfAbsent(titulo, t -> new ArrayList<>()).add(msg);
+        pendentes++;
+    }
+
+    /**
+     * Responde o lote de CFPs com uma consulta ao cache de cotações por título.
+     */
+    public void processarPedidos(long agora) {
+        cfpsPorLote.registrar(pendentes);
+        for (Map.Entry<String, List<ACLMessage>> grupo : cfpsPendentes.entrySet()) {
+            CacheCotacoes.Cotacao cotacao = cotacoes.cotar(grupo.getKey());
+            for (ACLMessage cfp : grupo.getValue()) {
+                processarPedido(cfp, cotacao, agora);
+            }
+        }
+        cfpsPendentes.clear();
+        pendentes = 0;
+    }
+
+    private void processarPedido(ACLMessage msg, CacheCotacoes.Cotacao cotacao, long agora) {
+        String conteudo = msg.getContent();
+        int quantidadePedido;
+        try {
+            quantidadePedido = Integer.parseInt(conteudo.substring(conteudo.lastIndexOf(':') + 1).trim());
+        } catch (NumberFormatException e) {
+            recusar(msg, "pedido-invalido");
+            return;
+        }
+        if (quantidadePedido <= 0) {
+            recusar(msg, "pedido-invalido");
+            return;
+        }
+        if (cotacao.id() < 0) {
+            recusar(msg, "livro-inexistente");
+            return;
+        }
+
+        Reservas.Reserva reserva = reservas.reservar(cotacao.id(), quantidadePedido, agora);
+        if (reserva == null) {
+            recusar(msg, "estoque-insuficiente");
+            return;
+        }
+
+        ACLMessage resposta = msg.createReply();
+        resposta.setPerformative(ACLMessage.PROPOSE);
+        cotacao.escrever(resposta, quantidadePedido);
+        NegociacaoVendedor negociacao = new NegociacaoVendedor(
+            msg.getSender(), msg.getConversationId(), estoque, reservas, cotacao.id(), quantidadePedido, reserva, estrategia);
+        saida.accept(negociacao.preparar(resposta));
+        negociacoes.put(negociacao.conversa(), negociacao);
+        prazos.renovar(negociacao, agora);
+        propostas.increment();
+    }
+
+    /**
+     * Recusa o CFP sem cotação nem reserva: REFUSE "ocupado", com a espera sugerida
+     * em ms no parâmetro "tentar-apos".
+     */
+    public void recusarOcupado(ACLMessage msg) {
+        ACLMessage resposta = msg.createReply();
+        resposta.setPerformative(ACLMessage.REFUSE);
+        resposta.setContent(OCUPADO);
+        resposta.addUserDefinedParameter(TENTAR_APOS, Long.toString(esperaOcupado));
+        saida.accept(resposta);
+        ocupado.increment();
+    }
+
+    private void recusar(ACLMessage msg, String motivo) {
+        ACLMessage resposta = msg.createReply();
+        resposta.setPerformative(ACLMessage.REFUSE);
+        resposta.setContent(motivo);
+        saida.accept(resposta);
+        recusas.increment();
+    }
+}
@@ -0,0 +1,227 @@
+package sistema_multiagente;
+
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+import jade.lang.acl.MessageTemplate;
+
+/**
+ * NEGOCIAÇÃO DO LADO DO COMPRADOR:
+ *
+ * 1. ESTADO:
+ *    - Vendedor, conversa, oferta atual, rodada e a última mensagem enviada
+ *
+ * 2. FUNCIONAMENTO:
+ *    - abrir: responde à proposta inicial do vendedor com a oferta inicial
+ *    - tratar: recebe a resposta do vendedor e devolve a mensagem a enviar
+ *      (contraproposta, aceite ou rejeição), ou null se não houver resposta
+ *    - cancelar: desiste da negociação (inclusive de um aceite ainda não enviado)
+ *      e devolve o CANCEL a enviar ao vendedor
+ *    - O aceite espera a resposta do vendedor: confirmacao(CONFIRM) fecha a
+ *      compra; CANCEL (estoque esgotado) ou falta de resposta desfazem o acordo
+ *    - manter: mensagem que renova o prazo e a reserva do vendedor enquanto
+ *      um acordo fica retido, sem responder à última oferta
+ *    - CANCEL do vendedor (prazo esgotado do lado dele) encerra sem acordo
+ *    - Não envia mensagens nem depende do agente, por isso pode ser exercitada
+ *      diretamente pelos benchmarks
+ *
+ * 3. ESTRATÉGIA:
+ *    - Uma EstrategiaNegociacao (padrão: Estrategias.PADRAO) define oferta
+ *      inicial, concessão e critério de aceite
+ *    - A última oferta do vendedor (parâmetro "ultima-oferta") é aceita se
+ *      couber no preço máximo: o vendedor não baixaria mais
+ *    - Contrapropostas acima do preço máximo só encerram a negociação quando
+ *      são a última oferta do vendedor ou na última rodada; antes disso o
+ *      vendedor ainda pode conceder
+ *    - Preços de acordo e últimas ofertas são informados à estratégia
+ */
+
+public class NegociacaoComprador {
+    private final AID vendedor;
+    private final String conversa;
+    private final String titulo;
+    private final EstrategiaNegociacao estrategia;
+    private final double ofertaInicial;
+    private final double precoMaximo;
+    private final int quantidade;
+    private final Oferta oferta = new Oferta();
+    private double precoAtual;
+    private int rodada = 0;
+    private int enviadas = 0;
+    private String aguardando;
+    // reply-with da última mensagem do vendedor
+    private String recebida;
+    private boolean concluida = false;
+    private boolean acordo = false;
+    private boolean confirmada = false;
+
+    public NegociacaoComprador(AID vendedor, String conversa, double precoVendedor, double precoMaximo, int quantidade) {
+        this(vendedor, conversa, null, precoVendedor, precoMaximo, quantidade, Estrategias.PADRAO);
+    }
+
+    public NegociacaoComprador(AID vendedor, String conversa, String titulo, double precoVendedor, double precoMaximo,
+                               int quantidade, EstrategiaNegociacao estrategia) {
+        this.vendedor = vendedor;
+        this.conversa = conversa;
+        this.titulo = titulo;
+        this.estrategia = estrategia;
+        this.precoMaximo = precoMaximo;
+        this.quantidade = quantidade;
+        this.ofertaInicial = estrategia.ofertaInicialComprador(titulo, precoVendedor, precoMaximo);
+        this.precoAtual = ofertaInicial;
+    }
+
+    /**
+     * Primeira oferta, em resposta à proposta recebida no CFP.
+     */
+    public ACLMessage abrir(ACLMessage propostaVendedor) {
+        // A resposta herda a conversa e o in-reply-to da proposta do vendedor
+        ACLMessage proposta = propostaVendedor.createReply();
+        proposta.setPerformative(ACLMessage.PROPOSE);
+        CodecOferta.escrever(proposta, precoAtual, quantidade);
+        return marcar(proposta);
+    }
+
+    /**
+     * Só aceita a resposta à última mensagem enviada nesta conversa, ou o CANCEL
+     * do vendedor que desistiu por falta de resposta (sem in-reply-to).
+     */
+    public MessageTemplate modelo() {
+        return MessageTemplate.and(
+            MessageTemplate.and(
+                MessageTemplate.MatchSender(vendedor),
+                MessageTemplate.MatchConversationId(conversa)),
+            MessageTemplate.or(
+                MessageTemplate.MatchInReplyTo(aguardando),
+                MessageTemplate.MatchPerformative(ACLMessage.CANCEL)));
+    }
+
+    /**
+     * Mesmo critério de modelo(), para quem recebe mensagens fora de um agente (Reproducao).
+     */
+    public boolean espera(ACLMessage msg) {
+        return vendedor.equals(msg.getSender()) && conversa.equals(msg.getConversationId())
+            && (msg.getPerformative() == ACLMessage.CANCEL
+                || (aguardando != null && aguardando.equals(msg.getInReplyTo())));
+    }
+
+    public ACLMessage tratar(ACLMessage msg) {
+        if (msg.getPerformative() == ACLMessage.CANCEL) {
+            // O vendedor abortou a negociação (prazo esgotado): termina sem acordo
+            concluida = true;
+            acordo = false;
+            return null;
+        }
+        rodada++;
+        recebida = msg.getReplyWith();
+
+        if (msg.getPerformative() == ACLMessage.ACCEPT_PROPOSAL) {
+            // O vendedor aceitou: não há confirmação a esperar
+            concluida = true;
+            acordo = true;
+            confirmada = true;
+            estrategia.acordo(titulo, precoAtual);
+            return null;
+        }
+        if (msg.getPerformative() != ACLMessage.PROPOSE || !CodecOferta.ler(msg, oferta)) {
+            return null;
+        }
+
+        double contraProposta = oferta.preco();
+        boolean ultima = "true".equals(msg.getUserDefinedParameter("ultima-oferta"));
+        if (ultima) {
+            estrategia.ultimaOferta(titulo, contraProposta);
+        }
+        boolean cabe = contraProposta <= precoMaximo;
+        ACLMessage resposta = msg.createReply();
+        if (!cabe && (ultima || rodada >= Estrategias.MAX_RODADAS)) {
+            resposta.setPerformative(ACLMessage.REJECT_PROPOSAL);
+            concluida = true;
+        } else if (cabe && (ultima || estrategia.compradorAceita(titulo, contraProposta, precoAtual, rodada, precoMaximo))) {
+            resposta.setPerformative(ACLMessage.ACCEPT_PROPOSAL);
+            precoAtual = contraProposta;
+            concluida = true;
+            acordo = true;
+            estrategia.acordo(titulo, contraProposta);
+            // A confirmação do vendedor responde ao aceite
+            marcar(resposta);
+        } else {
+            precoAtual = estrategia.proximaOfertaComprador(ofertaInicial, precoAtual, contraProposta, precoMaximo, rodada);
+            resposta.setPerformative(ACLMessage.PROPOSE);
+            CodecOferta.escrever(resposta, precoAtual, quantidade);
+            marcar(resposta);
+        }
+        return resposta;
+    }
+
+    /**
+     * Encerra sem acordo. O vendedor libera a reserva ao receber o CANCEL,
+     * qualquer que seja a última oferta trocada.
+     */
+    public ACLMessage cancelar() {
+        concluida = true;
+        acordo = false;
+        ACLMessage cancelamento = new ACLMessage(ACLMessage.CANCEL);
+        cancelamento.addReceiver(vendedor);
+        cancelamento.setConversationId(conversa);
+        cancelamento.setContent("cancelada");
+        return cancelamento;
+    }
+
+    /**
+     * Resposta do vendedor ao aceite, ou null se ela não veio no prazo. Retorna
+     * true se a venda foi confirmada; caso contrário a negociação fica sem acordo.
+     */
+    public boolean confirmacao(ACLMessage msg) {
+        confirmada = msg != null && msg.getPerformative() == ACLMessage.CONFIRM;
+        if (!confirmada) {
+            acordo = false;
+        }
+        return confirmada;
+    }
+
+    /**
+     * Acordo retido: mantém a negociação viva no vendedor até o aceite ou o cancelamento.
+     */
+    public ACLMessage manter() {
+        ACLMessage msg = new ACLMessage(ACLMessage.INFORM);
+        msg.addReceiver(vendedor);
+        msg.setConversationId(conversa);
+        msg.setInReplyTo(recebida);
+        msg.setContent("acordo-retido");
+        return msg;
+    }
+
+    private ACLMessage marcar(ACLMessage msg) {
+        msg.setReplyWith(conversa + "-" + vendedor.getLocalName() + "-c" + (++enviadas));
+        aguardando = msg.getReplyWith();
+        return msg;
+    }
+
+    public AID vendedor() {
+        return vendedor;
+    }
+
+    public String conversa() {
+        return conversa;
+    }
+
+    public double precoAtual() {
+        return precoAtual;
+    }
+
+    public int rodada() {
+        return rodada;
+    }
+
+    public boolean concluida() {
+        return concluida;
+    }
+
+    public boolean acordo() {
+        return acordo;
+    }
+
+    public boolean confirmada() {
+        return confirmada;
+    }
+}
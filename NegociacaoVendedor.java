@@ -0,0 +1,186 @@
+package sistema_multiagente;
+
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+
+/**
+ * NEGOCIAÇÃO DO LADO DO VENDEDOR:
+ *
+ * 1. ESTADO:
+ *    - Comprador, conversa, título, quantidade, reserva de estoque,
+ *      preço atual e a última mensagem enviada
+ *
+ * 2. FUNCIONAMENTO:
+ *    - preparar: marca a proposta inicial (reply-with) antes do envio
+ *    - tratar: recebe a mensagem do comprador e devolve a resposta a enviar
+ *      (contraproposta, confirmação ou cancelamento), ou null se não houver
+ *    - Respostas fora de ordem ou a uma oferta já superada são ignoradas
+ *    - Rejeição ou cancelamento do comprador valem a qualquer momento
+ *    - INFORM em resposta à última oferta: o comprador retém o acordo enquanto
+ *      negocia com outros vendedores; renova a reserva, sem resposta
+ *    - abortar: encerra sem resposta do comprador, liberando a reserva, e
+ *      devolve o CANCEL a enviar
+ *
+ * 3. ESTRATÉGIA:
+ *    - Uma EstrategiaNegociacao (padrão: Estrategias.PADRAO) define concessão
+ *      e quando a oferta do comprador já basta; nesse caso a resposta repete
+ *      a oferta do comprador, que o aceite fecha na mesma rodada
+ *    - A última oferta (preço mínimo) segue Estrategias.ultimaOfertaVendedor
+ *    - Aceite confirma a reserva; rejeição ou cancelamento a liberam
+ */
+
+public class NegociacaoVendedor {
+    private final AID comprador;
+    private final String conversa;
+    private final Reservas reservas;
+    private final int id;
+    private final String titulo;
+    private final int quantidade;
+    private final Reservas.Reserva reserva;
+    private final double precoMinimo;
+    private final Oferta oferta = new Oferta();
+    private final Estoque estoque;
+    private final EstrategiaNegociacao estrategia;
+    private final double precoInicial;
+    private double precoAtual;
+    private int rodadas = 0;
+    private int enviadas = 0;
+    private String aguardando;
+    private boolean encerrada = false;
+    private boolean vendeu = false;
+
+    public NegociacaoVendedor(AID comprador, String conversa, Estoque estoque, Reservas reservas,
+                              int id, int quantidade, Reservas.Reserva reserva) {
+        this(comprador, conversa, estoque, reservas, id, quantidade, reserva, Estrategias.PADRAO);
+    }
+
+    public NegociacaoVendedor(AID comprador, String conversa, Estoque estoque, Reservas reservas,
+                              int id, int quantidade, Reservas.Reserva reserva, EstrategiaNegociacao estrategia) {
+        this.comprador = comprador;
+        this.conversa = conversa;
+        this.estoque = estoque;
+        this.reservas = reservas;
+        this.id = id;
+        this.titulo = estoque.titulo(id);
+        this.quantidade = quantidade;
+        this.reserva = reserva;
+        this.estrategia = estrategia;
+        this.precoInicial = estoque.preco(id);
+        this.precoAtual = precoInicial;
+        this.precoMinimo = estoque.precoMinimo(id);
+    }
+
+    public ACLMessage preparar(ACLMessage msg) {
+        msg.setReplyWith(conversa + "-v" + (++enviadas));
+        aguardando = msg.getReplyWith();
+        return msg;
+    }
+
+    public ACLMessage tratar(ACLMessage msg, long agora) {
+        // O comprador pode desistir enquanto uma contraproposta ainda está a caminho
+        if (msg.getPerformative() == ACLMessage.REJECT_PROPOSAL || msg.getPerformative() == ACLMessage.CANCEL) {
+            reservas.liberar(reserva);
+            encerrada = true;
+            return null;
+        }
+        // Resposta fora de ordem ou a uma oferta já superada
+        if (!aguardando.equals(msg.getInReplyTo())) {
+            return null;
+        }
+
+        if (msg.getPerformative() == ACLMessage.INFORM) {
+            reservas.renovar(reserva, agora);
+            return null;
+        }
+
+        rodadas++;
+
+        if (msg.getPerformative() == ACLMessage.ACCEPT_PROPOSAL) {
+            encerrada = true;
+            ACLMessage resposta = msg.createReply();
+            if (reservas.confirmar(reserva)) {
+                estoque.definirPreco(id, precoAtual);
+                resposta.setPerformative(ACLMessage.CONFIRM);
+                resposta.setContent("venda-concluida:" + precoAtual);
+                vendeu = true;
+                estrategia.acordo(titulo, precoAtual);
+            } else {
+                resposta.setPerformative(ACLMessage.CANCEL);
+                resposta.setContent("estoque-esgotado");
+            }
+            return resposta;
+        }
+        if (msg.getPerformative() != ACLMessage.PROPOSE || !CodecOferta.ler(msg, oferta)) {
+            return null;
+        }
+
+        double ofertaComprador = oferta.preco();
+        ACLMessage resposta = msg.createReply();
+        resposta.setPerformative(ACLMessage.PROPOSE);
+        if (estrategia.vendedorAceita(titulo, ofertaComprador, precoInicial, precoAtual, precoMinimo, rodadas)) {
+            // Repete a oferta do comprador; o aceite dele fecha o acordo nesta rodada
+            CodecOferta.escrever(resposta, ofertaComprador, quantidade);
+            precoAtual = ofertaComprador;
+            reservas.renovar(reserva, agora);
+            return preparar(resposta);
+        }
+        double novaOferta = estrategia.proximaOfertaVendedor(
+            titulo, precoInicial, precoAtual, ofertaComprador, precoMinimo, rodadas);
+        if (Estrategias.ultimaOfertaVendedor(rodadas, novaOferta, precoMinimo)) {
+            CodecOferta.escrever(resposta, precoMinimo, quantidade);
+            resposta.addUserDefinedParameter("ultima-oferta", "true");
+            // O aceite da última oferta fecha por este preço (confirmação, preço de tabela e estratégia)
+            precoAtual = precoMinimo;
+        } else {
+            CodecOferta.escrever(resposta, novaOferta, quantidade);
+            precoAtual = novaOferta;
+        }
+        reservas.renovar(reserva, agora);
+        return preparar(resposta);
+    }
+
+    /**
+     * Encerra por falta de resposta do comprador.
+     */
+    public ACLMessage abortar() {
+        reservas.liberar(reserva);
+        encerrada = true;
+        ACLMessage cancelamento = new ACLMessage(ACLMessage.CANCEL);
+        cancelamento.addReceiver(comprador);
+        cancelamento.setConversationId(conversa);
+        cancelamento.setContent("prazo-esgotado");
+        return cancelamento;
+    }
+
+    public AID comprador() {
+        return comprador;
+    }
+
+    public String conversa() {
+        return conversa;
+    }
+
+    public String titulo() {
+        return titulo;
+    }
+
+    public int quantidade() {
+        return quantidade;
+    }
+
+    public double precoAtual() {
+        return precoAtual;
+    }
+
+    public double precoMinimo() {
+        return precoMinimo;
+    }
+
+    public boolean encerrada() {
+        return encerrada;
+    }
+
+    public boolean vendeu() {
+        return vendeu;
+    }
+}
@@ -0,0 +1,30 @@
+package sistema_multiagente;
+
+/**
+ * OFERTA DE NEGOCIAÇÃO:
+ *
+ * 1. VALORES:
+ *    - Preço em centavos (ponto fixo), sem erros de arredondamento de double
+ *    - Quantidade de exemplares
+ *
+ * 2. REUSO:
+ *    - Objeto mutável: cada comportamento mantém uma instância e a reaproveita
+ *      a cada mensagem decodificada, sem alocar por mensagem
+ */
+
+public final class Oferta {
+    public long centavos;
+    public int quantidade;
+
+    public double preco() {
+        return centavos / 100.0;
+    }
+
+    public static long centavos(double preco) {
+        return Math.round(preco * 100);
+    }
+
+    public static double preco(long centavos) {
+        return centavos / 100.0;
+    }
+}
@@ -0,0 +1,49 @@
+package sistema_multiagente;
+
+/**
+ * PEDIDO DE COMPRA:
+ *
+ * 1. DADOS:
+ *    - Título do livro, quantidade e preço máximo aceito pelo usuário
+ *    - Instante de chegada, para medir o tempo de espera na fila do gerente
+ *
+ * 2. FORMATO TEXTUAL:
+ *    - "Título;Quantidade;PreçoMáximo", uma linha por pedido
+ *    - Usado pelos arquivos e conexões de entrada do gerente
+ */
+
+public final class PedidoCompra {
+    public final String titulo;
+    public final int quantidade;
+    public final double precoMaximo;
+    public final long recebidoEm = System.nanoTime();
+
+    public PedidoCompra(String titulo, int quantidade, double precoMaximo) {
+        this.titulo = titulo;
+        this.quantidade = quantidade;
+        this.precoMaximo = precoMaximo;
+    }
+
+    public static PedidoCompra ler(String linha) {
+        int p2 = linha.lastIndexOf(';');
+        int p1 = linha.lastIndexOf(';', p2 - 1);
+        if (p1 <= 0) {
+            throw new IllegalArgumentException("Pedido inválido: " + linha);
+        }
+        return new PedidoCompra(
+            linha.substring(0, p1).trim(),
+            Integer.parseInt(linha.substring(p1 + 1, p2).trim()),
+            Double.parseDouble(linha.substring(p2 + 1).trim()));
+    }
+
+    /**
+     * Argumentos de criação do AgenteComprador.
+     */
+    public Object[] argumentos() {
+        return new Object[]{titulo, String.valueOf(quantidade), String.valueOf(precoMaximo)};
+    }
+
+    public String toString() {
+        return titulo + ";" + quantidade + ";" + precoMaximo;
+    }
+}
@@ -0,0 +1,68 @@
+package sistema_multiagente;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * PRAZOS DAS NEGOCIAÇÕES:
+ *
+ * 1. PRAZO:
+ *    - Cada negociação aberta tem um prazo de "prazo" milissegundos para a
+ *      próxima mensagem da contraparte
+ *    - renovar: reinicia o prazo a cada mensagem trocada
+ *    - remover: negociação encerrada normalmente
+ *
+ * 2. EXPIRAÇÃO:
+ *    - Os prazos ficam em uma RodaTemporizacao (resolução de 100 ms), então
+ *      renovar e remover custam O(1)
+ *    - expirar(agora) entrega as negociações vencidas para serem abortadas
+ *      e conta quantas expiraram
+ *
+ * 3. USO:
+ *    - Não é thread-safe: usado apenas pela thread do agente dono
+ */
+
+public class PrazosNegociacao<T> {
+    private final long prazo;
+    private final RodaTemporizacao<T> roda;
+    private final Map<T, RodaTemporizacao.Entrada<T>> entradas = new HashMap<>();
+    private long expiradas = 0;
+
+    public PrazosNegociacao(long prazo) {
+        this.prazo = prazo;
+        this.roda = new RodaTemporizacao<>(100, (int) (prazo / 100) + 1);
+    }
+
+    public void renovar(T negociacao, long agora) {
+        RodaTemporizacao.Entrada<T> anterior = entradas.put(negociacao, roda.agendar(negociacao, agora + prazo));
+        if (anterior != null) {
+            anterior.cancelar();
+        }
+    }
+
+    public void remover(T negociacao) {
+        RodaTemporizacao.Entrada<T> entrada = entradas.remove(negociacao);
+        if (entrada != null) {
+            entrada.cancelar();
+        }
+    }
+
+    /**
+     * Entrega a "expirou" as negociações sem mensagem dentro do prazo até "agora".
+     */
+    public void expirar(long agora, Consumer<T> expirou) {
+        roda.avancar(agora, negociacao -> {
+            entradas.remove(negociacao);
+            expiradas++;
+            expirou.accept(negociacao);
+        });
+    }
+
+    public int ativas() {
+        return entradas.size();
+    }
+
+    public long expiradas() {
+        return expiradas;
+    }
+}
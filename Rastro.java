@@ -0,0 +1,325 @@
+package sistema_multiagente;
+
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * RASTRO DAS NEGOCIAÇÕES:
+ *
+ * 1. GRAVAÇÃO (-Drastro.arquivo=<arquivo>, opcional):
+ *    - Cada mensagem ACL enviada por AgenteComprador e AgenteVendedor, com
+ *      performativa, remetente, destinatários, conversa, reply-with,
+ *      in-reply-to, conteúdo (texto ou binário) e o parâmetro "ultima-oferta"
+ *    - O estoque inicial de cada vendedor e cada pedido de compra recebido
+ *      pelos compradores, que bastam para a Reproducao refazer a execução
+ *    - Sem a propriedade, nada é gravado e cada chamada custa um teste de null
+ *
+ * 2. FORMATO:
+ *    - Binário (DataOutputStream), um evento por registro: tipo, instante em
+ *      ms como diferença para o evento anterior e os campos do evento
+ *    - Inteiros em tamanho variável (7 bits por byte)
+ *    - Nomes, títulos e conversas entram em um dicionário na primeira vez
+ *      em que aparecem e depois são gravados como índice; o dicionário para
+ *      de crescer em 1M entradas
+ *    - Nomes dos agentes gravados sem a plataforma (getLocalName)
+ *
+ * 3. USO:
+ *    - Um arquivo por JVM, compartilhado por todos os agentes; as escritas são
+ *      sincronizadas e o arquivo é fechado no encerramento da JVM
+ *    - No TesteCarga com "jvms=J", só a JVM principal grava (os vendedores dos
+ *      processos filhos ficam de fora do rastro)
+ *    - ler(arquivo, leitor) devolve os eventos na ordem em que foram gravados
+ */
+
+public final class Rastro {
+    private static final String CABECALHO = "rastro-negociacao-1";
+    private static final byte ESTOQUE = 'E';
+    private static final byte PEDIDO = 'P';
+    private static final byte MENSAGEM = 'M';
+    private static final int LIMITE_DICIONARIO = 1 << 20;
+
+    /**
+     * Recebe os eventos de um rastro, com o instante em ms desde o início da gravação.
+     */
+    public interface Leitor {
+        void estoque(long tempo, String vendedor, Estoque estoque);
+
+        void pedido(long tempo, String comprador, PedidoCompra pedido);
+
+        void mensagem(long tempo, ACLMessage msg);
+    }
+
+    private static final Rastro gravador = abrir(System.getProperty("rastro.arquivo"));
+
+    private final DataOutputStream saida;
+    private final Map<String, Integer> dicionario = new HashMap<>();
+    private final long inicio = System.currentTimeMillis();
+    private long ultimo = 0;
+    private long eventos = 0;
+    private boolean fechado = false;
+
+    private Rastro(DataOutputStream saida) throws IOException {
+        this.saida = saida;
+        saida.writeUTF(CABECALHO);
+        saida.writeLong(inicio);
+    }
+
+    private static Rastro abrir(String arquivo) {
+        if (arquivo == null) {
+            return null;
+        }
+        try {
+            Rastro rastro = new Rastro(new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(Paths.get(arquivo)), 1 << 16)));
+            java.lang.Runtime.getRuntime().addShutdownHook(new Thread(rastro::fechar, "rastro"));
+            Log.info("Gravando rastro das negociações em %s", arquivo);
+            return rastro;
+        } catch (IOException e) {
+            Log.erro(e, "Falha ao criar o rastro %s; nada será gravado", arquivo);
+            return null;
+        }
+    }
+
+    public static boolean ativo() {
+        return gravador != null;
+    }
+
+    public static void estoque(String vendedor, Estoque estoque) {
+        if (gravador != null) {
+            gravador.gravarEstoque(vendedor, estoque);
+        }
+    }
+
+    public static void pedido(String comprador, PedidoCompra pedido) {
+        if (gravador != null) {
+            gravador.gravarPedido(comprador, pedido);
+        }
+    }
+
+    /**
+     * Grava a mensagem que "remetente" está enviando (o sender ainda não foi preenchido pelo JADE).
+     */
+    public static void mensagem(String remetente, ACLMessage msg) {
+        if (gravador != null) {
+            gravador.gravarMensagem(remetente, msg);
+        }
+    }
+
+    private synchronized void gravarEstoque(String vendedor, Estoque estoque) {
+        if (fechado) {
+            return;
+        }
+        try {
+            iniciarEvento(ESTOQUE);
+            texto(vendedor);
+            int tamanho = estoque.tamanho();
+            inteiro(tamanho);
+            for (int id = 0; id < tamanho; id++) {
+                texto(estoque.titulo(id));
+                inteiro(estoque.quantidade(id));
+                saida.writeDouble(estoque.preco(id));
+                saida.writeDouble(estoque.precoMinimo(id));
+            }
+        } catch (IOException e) {
+            Log.erro(e, "Falha ao gravar o rastro");
+        }
+    }
+
+    private synchronized void gravarPedido(String comprador, PedidoCompra pedido) {
+        if (fechado) {
+            return;
+        }
+        try {
+            iniciarEvento(PEDIDO);
+            texto(comprador);
+            texto(pedido.titulo);
+            inteiro(pedido.quantidade);
+            saida.writeDouble(pedido.precoMaximo);
+        } catch (IOException e) {
+            Log.erro(e, "Falha ao gravar o rastro");
+        }
+    }
+
+    private synchronized void gravarMensagem(String remetente, ACLMessage msg) {
+        if (fechado) {
+            return;
+        }
+        try {
+            iniciarEvento(MENSAGEM);
+            saida.writeByte(msg.getPerformative());
+            texto(remetente);
+            List<String> destinatarios = new ArrayList<>();
+            Iterator<?> it = msg.getAllReceiver();
+            while (it.hasNext()) {
+                destinatarios.add(((AID) it.next()).getLocalName());
+            }
+            inteiro(destinatarios.size());
+            for (String destinatario : destinatarios) {
+                texto(destinatario);
+            }
+            texto(msg.getConversationId());
+            texto(msg.getReplyWith());
+            texto(msg.getInReplyTo());
+            texto(msg.getLanguage());
+            byte[] bytes = msg.hasByteSequenceContent() ? msg.getByteSequenceContent() : null;
+            boolean ultima = "true".equals(msg.getUserDefinedParameter("ultima-oferta"));
+            saida.writeByte((bytes != null ? 1 : 0) | (ultima ? 2 : 0));
+            if (bytes != null) {
+                inteiro(bytes.length);
+                saida.write(bytes);
+            } else {
+                texto(msg.getContent());
+            }
+        } catch (IOException e) {
+            Log.erro(e, "Falha ao gravar o rastro");
+        }
+    }
+
+    private void iniciarEvento(byte tipo) throws IOException {
+        long tempo = System.currentTimeMillis() - inicio;
+        saida.writeByte(tipo);
+        inteiro(Math.max(0, tempo - ultimo));
+        ultimo = Math.max(ultimo, tempo);
+        eventos++;
+    }
+
+    private void inteiro(long valor) throws IOException {
+        while ((valor & ~0x7FL) != 0) {
+            saida.writeByte((int) (valor & 0x7F) | 0x80);
+            valor >>>= 7;
+        }
+        saida.writeByte((int) valor);
+    }
+
+    /**
+     * 0 = null, 1 = texto fora do dicionário, 2 = texto novo no dicionário, n >= 3 = entrada n - 3.
+     */
+    private void texto(String s) throws IOException {
+        if (s == null) {
+            inteiro(0);
+            return;
+        }
+        Integer indice = dicionario.get(s);
+        if (indice != null) {
+            inteiro(indice + 3);
+        } else if (dicionario.size() < LIMITE_DICIONARIO) {
+            dicionario.put(s, dicionario.size());
+            inteiro(2);
+            saida.writeUTF(s);
+        } else {
+            inteiro(1);
+            saida.writeUTF(s);
+        }
+    }
+
+    private synchronized void fechar() {
+        fechado = true;
+        try {
+            saida.close();
+            Log.info("Rastro fechado com %d eventos", eventos);
+        } catch (IOException e) {
+            Log.erro(e, "Falha ao fechar o rastro");
+        }
+    }
+
+    /**
+     * Lê o rastro do começo ao fim, entregando cada evento ao leitor. Devolve o número de eventos.
+     */
+    public static long ler(Path arquivo, Leitor leitor) throws IOException {
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo), 1 << 16))) {
+            if (!CABECALHO.equals(entrada.readUTF())) {
+                throw new IOException("Arquivo não é um rastro de negociação: " + arquivo);
+            }
+            entrada.readLong();
+            List<String> dicionario = new ArrayList<>();
+            Map<String, AID> agentes = new HashMap<>();
+            long tempo = 0;
+            long eventos = 0;
+            int tipo;
+            while ((tipo = entrada.read()) >= 0) {
+                tempo += lerInteiro(entrada);
+                eventos++;
+                if (tipo == ESTOQUE) {
+                    String vendedor = lerTexto(entrada, dicionario);
+                    int tamanho = (int) lerInteiro(entrada);
+                    Estoque estoque = new Estoque(Math.max(16, tamanho));
+                    for (int i = 0; i < tamanho; i++) {
+                        String titulo = lerTexto(entrada, dicionario);
+                        int quantidade = (int) lerInteiro(entrada);
+                        double preco = entrada.readDouble();
+                        estoque.adicionar(titulo, quantidade, preco, entrada.readDouble());
+                    }
+                    leitor.estoque(tempo, vendedor, estoque);
+                } else if (tipo == PEDIDO) {
+                    String comprador = lerTexto(entrada, dicionario);
+                    String titulo = lerTexto(entrada, dicionario);
+                    int quantidade = (int) lerInteiro(entrada);
+                    leitor.pedido(tempo, comprador, new PedidoCompra(titulo, quantidade, entrada.readDouble()));
+                } else if (tipo == MENSAGEM) {
+                    ACLMessage msg = new ACLMessage(entrada.readByte());
+                    msg.setSender(agente(agentes, lerTexto(entrada, dicionario)));
+                    int destinatarios = (int) lerInteiro(entrada);
+                    for (int i = 0; i < destinatarios; i++) {
+                        msg.addReceiver(agente(agentes, lerTexto(entrada, dicionario)));
+                    }
+                    msg.setConversationId(lerTexto(entrada, dicionario));
+                    msg.setReplyWith(lerTexto(entrada, dicionario));
+                    msg.setInReplyTo(lerTexto(entrada, dicionario));
+                    msg.setLanguage(lerTexto(entrada, dicionario));
+                    int marcas = entrada.readByte();
+                    if ((marcas & 1) != 0) {
+                        byte[] bytes = new byte[(int) lerInteiro(entrada)];
+                        entrada.readFully(bytes);
+                        msg.setByteSequenceContent(bytes);
+                    } else {
+                        msg.setContent(lerTexto(entrada, dicionario));
+                    }
+                    if ((marcas & 2) != 0) {
+                        msg.addUserDefinedParameter("ultima-oferta", "true");
+                    }
+                    leitor.mensagem(tempo, msg);
+                } else {
+                    throw new IOException("Evento desconhecido no rastro: " + tipo);
+                }
+            }
+            return eventos;
+        } catch (EOFException e) {
+            throw new IOException("Rastro truncado: " + arquivo, e);
+        }
+    }
+
+    private static AID agente(Map<String, AID> agentes, String nome) {
+        return agentes.computeIfAbsent(nome, n -> new AID(n, AID.ISLOCALNAME));
+    }
+
+    private static long lerInteiro(DataInputStream entrada) throws IOException {
+        long valor = 0;
+        int deslocamento = 0;
+        int b;
+        do {
+            b = entrada.readUnsignedByte();
+            valor |= (long) (b & 0x7F) << deslocamento;
+            deslocamento += 7;
+        } while ((b & 0x80) != 0);
+        return valor;
+    }
+
+    private static String lerTexto(DataInputStream entrada, List<String> dicionario) throws IOException {
+        int codigo = (int) lerInteiro(entrada);
+        if (codigo == 0) {
+            return null;
+        } else if (codigo == 1) {
+            return entrada.readUTF();
+        } else if (codigo == 2) {
+            String s = entrada.readUTF();
+            dicionario.add(s);
+            return s;
+        }
+        return dicionario.get(codigo - 3);
+    }
+}
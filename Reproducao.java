@@ -0,0 +1,341 @@
+package sistema_multiagente;
+
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * REPRODUÇÃO DE RASTROS COM RELÓGIO VIRTUAL:
+ *
+ * 1. ENTRADA:
+ *    - Um rastro gravado com -Drastro.arquivo (ver Rastro): o estoque inicial
+ *      de cada vendedor e os pedidos, nos instantes em que chegaram
+ *    - As mensagens gravadas são a referência: ao final, as contagens por
+ *      performativa do rastro e da reprodução aparecem lado a lado
+ *
+ * 2. EXECUÇÃO:
+ *    - Simulação de eventos discretos em uma única thread, sem JADE: uma fila
+ *      de eventos por instante virtual (ms) e ordem de agendamento, sem esperas
+ *      reais; a mesma entrada produz sempre o mesmo resultado
+ *    - Vendedores: um MotorVendedor por vendedor do rastro, o mesmo código do
+ *      AgenteVendedor; o tique de 100 ms (reservas e prazos) e a janela de
+ *      CFPs (-Dvendedor.janela.cfp) viram eventos virtuais
+ *    - Compradores: um MotorComprador por compra, o mesmo código do
+ *      AgenteComprador, com os mesmos parâmetros (prazos, -Dcomprador.paralelo,
+ *      -Dcomprador.cfp.max, alvo, retenção, recuo); seus prazos e a busca a
+ *      cada 10 s viram eventos virtuais, e os sorteios usam semente fixa
+ *    - Os limites de admissão do vendedor (-Dvendedor.negociacoes.max) valem
+ *      também aqui; o da fila de mensagens não, pois não há fila
+ *    - Cada compra contata os vendedores com o título em estoque, como o
+ *      FiltroBloom sem falsos positivos
+ *    - Cada mensagem leva "latencia" ms virtuais para ser entregue (padrão 1)
+ *
+ * 3. SIMPLIFICAÇÕES:
+ *    - O primeiro CFP sai na chegada do pedido, como no modo "assinatura";
+ *      após "buscas" buscas sem oferta (padrão -Dcomprador.buscas.max) a
+ *      compra desiste e conta como fracasso, como no AgenteComprador
+ *    - Sem livro de ofertas: só o modo CFP é reproduzido
+ *    - DF, diário e republicação do catálogo ficam de fora
+ *
+ * 4. RELATÓRIO:
+ *    - O mesmo do TesteCarga, com durações e tempos virtuais, seguido do tempo
+ *      real gasto na reprodução
+ *
+ * Parâmetros no formato chave=valor, por exemplo:
+ *    Reproducao arquivo=carga.rastro latencia=2 buscas=3
+ */
+
+public class Reproducao {
+    private static final long TIQUE = 100;
+
+    private static final class Evento {
+        final long tempo;
+        final long ordem;
+        final Runnable acao;
+
+        Evento(long tempo, long ordem, Runnable acao) {
+            this.tempo = tempo;
+            this.ordem = ordem;
+            this.acao = acao;
+        }
+    }
+
+    private final PriorityQueue<Evento> eventos = new PriorityQueue<>(
+        Comparator.<Evento>comparingLong(e -> e.tempo).thenComparingLong(e -> e.ordem));
+    private final long latencia;
+    // Sorteios dos compradores (recuo, -Dcomprador.cfp.max), com semente fixa para a reprodução ser determinística
+    private final SplittableRandom aleatorio = new SplittableRandom(42);
+    private final int buscas;
+    private long agora = 0;
+    private long ordem = 0;
+    private final Map<String, Vendedor> vendedores = new LinkedHashMap<>();
+    // Compras por conversa de cada rodada de CFP
+    private final Map<String, Compra> compras = new HashMap<>();
+    private final Map<String, Integer> conversas = new HashMap<>();
+    private final long[] gravadas = new long[32];
+    private final long[] reproduzidas = new long[32];
+    private int pedidos = 0;
+    private long primeiroPedido = -1;
+    private int semOferta = 0;
+
+    private final MotorComprador.Medidas medidas = new MotorComprador.Medidas(Metricas.de("compradores"));
+
+    public Reproducao(long latencia, int buscas) {
+        this.latencia = latencia;
+        this.buscas = buscas;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> parametros = new HashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (igual > 0) {
+                parametros.put(arg.substring(0, igual), arg.substring(igual + 1));
+            }
+        }
+        String arquivo = parametros.get("arquivo");
+        if (arquivo == null) {
+            System.err.println("Uso: Reproducao arquivo=<rastro> [latencia=<ms>] [buscas=<n>]");
+            return;
+        }
+
+        HistoricoPrecos.limpar();
+        ColetorCarga.zerar();
+        Reproducao reproducao = new Reproducao(
+            Long.parseLong(parametros.getOrDefault("latencia", "1")),
+            Integer.parseInt(parametros.getOrDefault("buscas", String.valueOf(AgenteComprador.BUSCAS_MAXIMAS))));
+        long lidos = reproducao.carregar(arquivo);
+        System.out.println("Reprodução de " + arquivo + ": " + lidos + " eventos, "
+            + reproducao.vendedores.size() + " vendedores, " + reproducao.pedidos + " pedidos");
+
+        long inicio = System.nanoTime();
+        long duracaoVirtual = reproducao.executar();
+        double segundosReais = (System.nanoTime() - inicio) / 1e9;
+
+        TesteCarga.imprimirResultado(Math.max(duracaoVirtual, 1) / 1000.0, reproducao.pedidos);
+        System.out.printf("Compras sem oferta após %d buscas: %d%n", reproducao.buscas, reproducao.semOferta);
+        System.out.printf("Tempo real: %.2f s (%.0fx o tempo virtual)%n",
+            segundosReais, duracaoVirtual / 1000.0 / Math.max(segundosReais, 1e-9));
+        reproducao.imprimirMensagens();
+    }
+
+    /**
+     * Lê o rastro: cria os vendedores e agenda a chegada dos pedidos. Devolve o número de eventos lidos.
+     */
+    long carregar(String arquivo) throws Exception {
+        return Rastro.ler(Paths.get(arquivo), new Rastro.Leitor() {
+            public void estoque(long tempo, String vendedor, Estoque estoque) {
+                vendedores.put(vendedor, new Vendedor(vendedor, estoque));
+            }
+
+            public void pedido(long tempo, String comprador, PedidoCompra pedido) {
+                pedidos++;
+                if (primeiroPedido < 0) {
+                    primeiroPedido = tempo;
+                }
+                agendar(tempo, () -> new Compra(comprador, pedido).iniciar());
+            }
+
+            public void mensagem(long tempo, ACLMessage msg) {
+                Iterator<?> destinatarios = msg.getAllReceiver();
+                while (destinatarios.hasNext()) {
+                    destinatarios.next();
+                    gravadas[msg.getPerformative()]++;
+                }
+            }
+        });
+    }
+
+    /**
+     * Roda até não restar evento. Devolve a duração virtual, em ms, desde o primeiro pedido.
+     */
+    long executar() {
+        agendar(TIQUE, this::tique);
+        Evento evento;
+        while ((evento = eventos.poll()) != null) {
+            agora = evento.tempo;
+            evento.acao.run();
+        }
+        return primeiroPedido < 0 ? 0 : agora - primeiroPedido;
+    }
+
+    private void agendar(long tempo, Runnable acao) {
+        eventos.add(new Evento(Math.max(tempo, agora), ordem++, acao));
+    }
+
+    /**
+     * Tique de 100 ms dos vendedores; só se repete enquanto houver outros eventos.
+     */
+    private void tique() {
+        for (Vendedor vendedor : vendedores.values()) {
+            vendedor.motor.expirar(agora);
+        }
+        if (!eventos.isEmpty()) {
+            agendar(agora + TIQUE, this::tique);
+        }
+    }
+
+    private void enviar(AID remetente, ACLMessage msg) {
+        msg.setSender(remetente);
+        Iterator<?> destinatarios = msg.getAllReceiver();
+        while (destinatarios.hasNext()) {
+            AID destinatario = (AID) destinatarios.next();
+            reproduzidas[msg.getPerformative()]++;
+            agendar(agora + latencia, () -> entregar(destinatario, msg));
+        }
+    }
+
+    private void entregar(AID destinatario, ACLMessage msg) {
+        Vendedor vendedor = vendedores.get(destinatario.getLocalName());
+        if (vendedor != null) {
+            vendedor.receber(msg);
+            return;
+        }
+        Compra compra = compras.get(msg.getConversationId());
+        if (compra != null && compra.comprador.equals(destinatario)) {
+            compra.receber(msg);
+        } else {
+            descartar(destinatario, msg);
+        }
+    }
+
+    /**
+     * Como o DescartarRespostasBehaviour: proposta atrasada é rejeitada, o resto é ignorado.
+     */
+    private void descartar(AID destinatario, ACLMessage msg) {
+        if (msg.getPerformative() == ACLMessage.PROPOSE) {
+            ACLMessage rejeicao = msg.createReply();
+            rejeicao.setPerformative(ACLMessage.REJECT_PROPOSAL);
+            enviar(destinatario, rejeicao);
+        }
+    }
+
+    private void imprimirMensagens() {
+        System.out.println("Mensagens por performativa (rastro / reprodução):");
+        for (int p = 0; p < gravadas.length; p++) {
+            if (gravadas[p] > 0 || reproduzidas[p] > 0) {
+                System.out.printf("  %-16s %10d %10d%n", ACLMessage.getPerformative(p), gravadas[p], reproduzidas[p]);
+            }
+        }
+    }
+
+    private final class Vendedor {
+        final AID aid;
+        final Estoque estoque;
+        final MotorVendedor motor;
+        boolean loteAgendado = false;
+
+        Vendedor(String nome, Estoque estoque) {
+            this.aid = new AID(nome, AID.ISLOCALNAME);
+            this.estoque = estoque;
+            this.motor = new MotorVendedor(nome, estoque, AgenteVendedor.TTL_RESERVA,
+                AgenteVendedor.PRAZO_NEGOCIACAO, AgenteVendedor.ESTRATEGIA, AgenteVendedor.MAXIMO_NEGOCIACOES,
+                AgenteVendedor.ESPERA_OCUPADO, msg -> enviar(aid, msg));
+        }
+
+        boolean temEmEstoque(String titulo) {
+            int id = estoque.id(titulo);
+            return id >= 0 && estoque.quantidade(id) > 0;
+        }
+
+        void receber(ACLMessage msg) {
+            motor.receber(msg, agora);
+            if (motor.pendentes() > 0 && !loteAgendado) {
+                loteAgendado = true;
+                agendar(motor.inicioLote() + AgenteVendedor.JANELA_CFP, () -> {
+                    loteAgendado = false;
+                    motor.processarPedidos(agora);
+                });
+            }
+        }
+    }
+
+    /**
+     * Uma compra do rastro, conduzida pelo MotorComprador como no AgenteComprador.
+     */
+    private final class Compra implements MotorComprador.Ouvinte {
+        final AID comprador;
+        final MotorComprador motor;
+        final List<String> rodadas = new ArrayList<>();
+        // Instante do evento de prazo agendado (-1: nenhum)
+        long acordarEm = -1;
+
+        Compra(String nome, PedidoCompra pedido) {
+            this.comprador = new AID(nome, AID.ISLOCALNAME);
+            this.motor = new MotorComprador(nome, pedido, buscas, medidas, aleatorio,
+                () -> agora * 1_000_000L, this, agora);
+        }
+
+        /**
+         * Vendedores com o título em estoque, como o FiltroBloom sem falsos positivos.
+         */
+        List<AID> contatos() {
+            List<AID> contatos = new ArrayList<>();
+            for (Vendedor vendedor : vendedores.values()) {
+                if (vendedor.temEmEstoque(motor.pedido().titulo)) {
+                    contatos.add(vendedor.aid);
+                }
+            }
+            return contatos;
+        }
+
+        void iniciar() {
+            // Como no modo "assinatura": o primeiro CFP sai na criação e não conta como busca
+            motor.contatar(contatos(), agora);
+            acordar();
+        }
+
+        void receber(ACLMessage msg) {
+            if (!motor.espera(msg)) {
+                descartar(comprador, msg);
+                return;
+            }
+            motor.receber(msg, agora);
+            acordar();
+        }
+
+        /**
+         * Agenda o próximo prazo do motor; eventos de prazos já substituídos são ignorados.
+         */
+        void acordar() {
+            long prazo = motor.proximoPrazo();
+            if (prazo == Long.MAX_VALUE || prazo == acordarEm) {
+                return;
+            }
+            acordarEm = prazo;
+            agendar(prazo, () -> {
+                if (acordarEm == prazo) {
+                    acordarEm = -1;
+                    motor.expirar(agora);
+                    acordar();
+                }
+            });
+        }
+
+        public String novaConversa() {
+            String nome = comprador.getLocalName();
+            String conversa = "negociacao-" + nome + "-" + conversas.merge(nome, 1, Integer::sum);
+            compras.put(conversa, this);
+            rodadas.add(conversa);
+            return conversa;
+        }
+
+        public void enviar(ACLMessage msg) {
+            Reproducao.this.enviar(comprador, msg);
+        }
+
+        public void buscar() {
+            motor.contatar(contatos(), agora);
+        }
+
+        public void encerrada(MotorComprador compra) {
+            for (String conversa : rodadas) {
+                compras.remove(conversa);
+            }
+            if (compra.desistiu()) {
+                semOferta++;
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package sistema_multiagente;
+
+/**
+ * RESERVAS COM PRAZO DE VALIDADE:
+ *
+ * 1. RESERVA:
+ *    - Cada proposta enviada pelo vendedor separa as unidades no Estoque
+ *    - A reserva vence após "ttl" milissegundos sem nova proposta
+ *    - Uma nova proposta na mesma negociação renova o prazo
+ *
+ * 2. ENCERRAMENTO:
+ *    - Aceite do comprador: confirma a reserva e baixa o estoque
+ *    - Rejeição do comprador: libera as unidades imediatamente
+ *    - Prazo vencido: a roda de temporização libera as unidades
+ *
+ * 3. MÉTRICAS:
+ *    - Reservas criadas, confirmadas (acertos), liberadas e expiradas
+ */
+
+public class Reservas {
+    public static final class Reserva {
+        private final int id;
+        private final int quantidade;
+        private RodaTemporizacao.Entrada<Reserva> prazo;
+        private boolean ativa = true;
+
+        private Reserva(int id, int quantidade) {
+            this.id = id;
+            this.quantidade = quantidade;
+        }
+
+        public boolean ativa() {
+            return ativa;
+        }
+    }
+
+    private final Estoque estoque;
+    private final long ttl;
+    private final RodaTemporizacao<Reserva> roda;
+
+    private long criadas = 0;
+    private long confirmadas = 0;
+    private long liberadas = 0;
+    private long expiradas = 0;
+
+    public Reservas(Estoque estoque, long ttl) {
+        this.estoque = estoque;
+        this.ttl = ttl;
+        this.roda = new RodaTemporizacao<>(100, (int) (ttl / 100) + 1);
+    }
+
+    /**
+     * Separa as unidades e agenda o vencimento. Retorna null se não houver unidades disponíveis.
+     */
+    public Reserva reservar(int id, int quantidade, long agora) {
+        if (!estoque.reservar(id, quantidade)) {
+            return null;
+        }
+        Reserva reserva = new Reserva(id, quantidade);
+        reserva.prazo = roda.agendar(reserva, agora + ttl);
+        criadas++;
+        return reserva;
+    }
+
+    public void renovar(Reserva reserva, long agora) {
+        if (!reserva.ativa) {
+            return;
+        }
+        reserva.prazo.cancelar();
+        reserva.prazo = roda.agendar(reserva, agora + ttl);
+    }
+
+    /**
+     * Baixa as unidades reservadas. Se a reserva já venceu, tenta vender do disponível.
+     */
+    public boolean confirmar(Reserva reserva) {
+        if (reserva.ativa) {
+            encerrar(reserva);
+            estoque.confirmar(reserva.id, reserva.quantidade);
+            confirmadas++;
+            return true;
+        }
+        return estoque.vender(reserva.id, reserva.quantidade);
+    }
+
+    public void liberar(Reserva reserva) {
+        if (!reserva.ativa) {
+            return;
+        }
+        encerrar(reserva);
+        estoque.liberar(reserva.id, reserva.quantidade);
+        liberadas++;
+    }
+
+    /**
+     * Libera todas as reservas vencidas até "agora".
+     */
+    public void expirar(long agora) {
+        roda.avancar(agora, reserva -> {
+            reserva.ativa = false;
+            estoque.liberar(reserva.id, reserva.quantidade);
+            expiradas++;
+        });
+    }
+
+    private void encerrar(Reserva reserva) {
+        reserva.ativa = false;
+        reserva.prazo.cancelar();
+    }
+
+    public long ativas() {
+        return criadas - confirmadas - liberadas - expiradas;
+    }
+
+    public long criadas() {
+        return criadas;
+    }
+
+    public long confirmadas() {
+        return confirmadas;
+    }
+
+    public long liberadas() {
+        return liberadas;
+    }
+
+    public long expiradas() {
+        return expiradas;
+    }
+
+    public String resumo() {
+        long finalizadas = confirmadas + liberadas + expiradas;
+        double taxaAcerto = finalizadas == 0 ? 0 : 100.0 * confirmadas / finalizadas;
+        double taxaExpiracao = finalizadas == 0 ? 0 : 100.0 * expiradas / finalizadas;
+        return String.format("reservas criadas=%d confirmadas=%d (%.1f%%) liberadas=%d expiradas=%d (%.1f%%)",
+            criadas, confirmadas, taxaAcerto, liberadas, expiradas, taxaExpiracao);
+    }
+}
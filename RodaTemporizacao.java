@@ -0,0 +1,118 @@
+package sistema_multiagente;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * RODA DE TEMPORIZAÇÃO:
+ *
+ * 1. ESTRUTURA:
+ *    - Vetor circular de posições, cada uma cobrindo "resolucao" milissegundos
+ *    - Um prazo é guardado na posição do primeiro múltiplo de "resolucao" maior
+ *      ou igual a ele, então a posição só é percorrida depois que todos os seus
+ *      prazos venceram: cada entrada dispara no máximo uma resolução (mais o
+ *      intervalo entre avanços) depois do prazo
+ *    - Agendar e cancelar custam O(1), independente de quantos prazos existem
+ *
+ * 2. AVANÇO:
+ *    - avancar(agora) percorre apenas as posições vencidas desde a última chamada
+ *    - Prazos de voltas futuras da roda permanecem na posição até vencerem
+ *    - Entradas canceladas são removidas quando a posição é percorrida
+ *
+ * 3. USO:
+ *    - Não é thread-safe: deve ser usada somente pela thread do agente dono
+ */
+
+public class RodaTemporizacao<T> {
+    public static final class Entrada<T> {
+        private final T valor;
+        private final long prazo;
+        private boolean ativa = true;
+
+        private Entrada(T valor, long prazo) {
+            this.valor = valor;
+            this.prazo = prazo;
+        }
+
+        public T valor() {
+            return valor;
+        }
+
+        public long prazo() {
+            return prazo;
+        }
+
+        public boolean ativa() {
+            return ativa;
+        }
+
+        public void cancelar() {
+            ativa = false;
+        }
+    }
+
+    private final long resolucao;
+    private final ArrayDeque<Entrada<T>>[] posicoes;
+    private final int mascara;
+    private long marcaAtual = -1;
+    // Menor posição agendada antes do primeiro avanço
+    private long primeiraMarca = Long.MAX_VALUE;
+    private int pendentes = 0;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public RodaTemporizacao(long resolucao, int tamanho) {
+        int potencia = Integer.highestOneBit(Math.max(1, tamanho - 1)) << 1;
+        this.resolucao = resolucao;
+        this.posicoes = new ArrayDeque[potencia];
+        this.mascara = potencia - 1;
+        for (int i = 0; i < potencia; i++) {
+            posicoes[i] = new ArrayDeque<>();
+        }
+    }
+
+    public Entrada<T> agendar(T valor, long prazo) {
+        Entrada<T> entrada = new Entrada<>(valor, prazo);
+        long marca = Math.floorDiv(prazo + resolucao - 1, resolucao);
+        // Prazo já vencido vai para a próxima posição a ser percorrida
+        if (marcaAtual >= 0 && marca <= marcaAtual) {
+            marca = marcaAtual + 1;
+        } else if (marcaAtual < 0) {
+            primeiraMarca = Math.min(primeiraMarca, marca);
+        }
+        posicoes[(int) (marca & mascara)].add(entrada);
+        pendentes++;
+        return entrada;
+    }
+
+    /**
+     * Dispara todas as entradas ativas cujo prazo é menor ou igual a "agora".
+     */
+    public void avancar(long agora, Consumer<T> expirou) {
+        long alvo = agora / resolucao;
+        if (marcaAtual < 0) {
+            marcaAtual = Math.min(alvo, primeiraMarca) - 1;
+        }
+        // Uma volta completa já cobre todas as posições
+        long inicio = Math.max(marcaAtual + 1, alvo - mascara);
+        for (long marca = inicio; marca <= alvo; marca++) {
+            Iterator<Entrada<T>> it = posicoes[(int) (marca & mascara)].iterator();
+            while (it.hasNext()) {
+                Entrada<T> entrada = it.next();
+                if (!entrada.ativa) {
+                    it.remove();
+                    pendentes--;
+                } else if (entrada.prazo <= agora) {
+                    it.remove();
+                    pendentes--;
+                    entrada.ativa = false;
+                    expirou.accept(entrada.valor);
+                }
+            }
+        }
+        marcaAtual = Math.max(marcaAtual, alvo);
+    }
+
+    public int pendentes() {
+        return pendentes;
+    }
+}
@@ -0,0 +1,114 @@
+package sistema_multiagente;
+
+import jade.core.Agent;
+import jade.domain.DFService;
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * TAREFAS BLOQUEANTES FORA DA THREAD DO AGENTE:
+ *
+ * 1. EXECUÇÃO:
+ *    - Operações que bloqueiam (consultas ao DF, esperas entre tentativas) rodam
+ *      em um executor limitado, compartilhado por todos os agentes da JVM
+ *    - -Dtarefas.threads (padrão 8) threads daemon e fila de até 4096 tarefas
+ *    - Com -Dtarefas.threads=0 a tarefa roda na própria thread do agente, como
+ *      antes; serve de comparação para medir o efeito do bloqueio
+ *
+ * 2. ENTREGA DO RESULTADO:
+ *    - O resultado, ou a falha, volta para a thread do agente pela fila O2A
+ *      (ComportamentoO2A), então os callbacks podem alterar o estado do agente
+ *    - O agente precisa ter a comunicação O2A habilitada e um ComportamentoO2A
+ *    - Fila cheia é entregue como falha (RejectedExecutionException)
+ *
+ * 3. DF:
+ *    - buscarNoDF e modificarNoDF usam o DFService a partir da thread do executor;
+ *      a resposta do DF é retirada da fila do agente por template, então os
+ *      comportamentos do agente não podem consumir mensagens vindas do DF
+ *    - -Ddf.atraso=<ms> (padrão 0) simula um DF lento antes de cada operação
+ */
+
+public final class TarefasBloqueantes {
+    private static final int THREADS = Integer.getInteger("tarefas.threads", 8);
+    private static final long ATRASO_DF = Long.getLong("df.atraso", 0);
+
+    /**
+     * Operação bloqueante cujo resultado é entregue ao agente.
+     */
+    public interface Tarefa<T> {
+        T executar() throws Exception;
+    }
+
+    private static final ExecutorService executor = THREADS > 0 ? criarExecutor() : null;
+
+    private TarefasBloqueantes() {
+    }
+
+    private static ExecutorService criarExecutor() {
+        AtomicInteger threads = new AtomicInteger();
+        return new ThreadPoolExecutor(THREADS, THREADS, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(4096), tarefa -> {
+                Thread thread = new Thread(tarefa, "tarefa-bloqueante-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    /**
+     * Executa a tarefa fora da thread do agente e chama aoConcluir ou aoFalhar na thread do agente.
+     */
+    public static <T> void executar(Agent agente, Tarefa<T> tarefa, Consumer<T> aoConcluir, Consumer<Exception> aoFalhar) {
+        if (executor == null) {
+            T resultado;
+            try {
+                resultado = tarefa.executar();
+            } catch (Exception e) {
+                aoFalhar.accept(e);
+                return;
+            }
+            aoConcluir.accept(resultado);
+            return;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    T resultado = tarefa.executar();
+                    ComportamentoO2A.agendar(agente, () -> aoConcluir.accept(resultado));
+                } catch (Exception e) {
+                    ComportamentoO2A.agendar(agente, () -> aoFalhar.accept(e));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            aoFalhar.accept(e);
+        }
+    }
+
+    public static void buscarNoDF(Agent agente, DFAgentDescription modelo,
+                                  Consumer<DFAgentDescription[]> aoConcluir, Consumer<Exception> aoFalhar) {
+        executar(agente, () -> {
+            simularAtraso();
+            return DFService.search(agente, modelo);
+        }, aoConcluir, aoFalhar);
+    }
+
+    public static void modificarNoDF(Agent agente, DFAgentDescription descricao,
+                                     Runnable aoConcluir, Consumer<Exception> aoFalhar) {
+        executar(agente, () -> {
+            simularAtraso();
+            DFService.modify(agente, descricao);
+            return null;
+        }, resultado -> aoConcluir.run(), aoFalhar);
+    }
+
+    /**
+     * Atraso simulado do DF (-Ddf.atraso), pago pela thread que faz a operação.
+     */
+    private static void simularAtraso() throws InterruptedException {
+        if (ATRASO_DF > 0) {
+            Thread.sleep(ATRASO_DF);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package sistema_multiagente;
+
+import jade.core.Profile;
+import jade.core.ProfileImpl;
+import jade.core.Runtime;
+import jade.wrapper.AgentContainer;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * TESTE DE CARGA (SEM INTERFACE):
+ *
+ * 1. AMBIENTE:
+ *    - Container principal sem GUI e "containers - 1" containers periféricos
+ *    - Vendedores e compradores distribuídos entre os containers em rodízio
+ *    - Com "jvms=J", os vendedores saem desta JVM: são criados em J processos
+ *      filhos, cada um com um container periférico ligado ao principal por
+ *      localhost; as propriedades vendedor.*, negociacao.*, log.*, df.* e
+ *      tarefas.* são repassadas
+ *
+ * 2. CATÁLOGOS GERADOS:
+ *    - "titulos" títulos distintos, cada um com um preço de referência
+ *    - Cada vendedor recebe "titulosPorVendedor" títulos sorteados, com preço
+ *      próximo à referência e preço mínimo entre 80% e 95% do preço
+ *    - Com "fragmentos=S", o vendedor v fica com o fragmento v % S do catálogo
+ *      (ver Fragmento) e só sorteia títulos desse fragmento
+ *    - Os catálogos dependem apenas da semente, então os processos filhos
+ *      geram os mesmos catálogos que o principal
+ *    - Com -Dnegociacao.modo=livro, cria também o AgenteMercado no container
+ *      principal, e as compras passam pelo livro de ofertas
+ *
+ * 3. CHEGADA DE PEDIDOS:
+ *    - Um novo comprador a cada 1/taxa segundos, até "compradores" pedidos
+ *    - Cada comprador pede um título sorteado com preço máximo entre 80% e 120%
+ *      da referência
+ *
+ * 4. RELATÓRIO:
+ *    - Negociações concluídas por segundo, p50/p99 do tempo até o acordo,
+ *      p50/p99 do tempo de resposta do vendedor durante a negociação,
+ *      mensagens por acordo e maior uso de heap observado
+ *    - Com -Ddf.atraso=<ms>, mostra o efeito de um DF lento; -Dtarefas.threads=0
+ *      volta a fazer as operações do DF na thread do agente, para comparação
+ *
+ * Parâmetros no formato chave=valor, por exemplo:
+ *    TesteCarga vendedores=20 compradores=2000 taxa=100 containers=2
+ *    TesteCarga vendedores=40 compradores=4000 taxa=200 fragmentos=4 jvms=4
+ */
+
+public class TesteCarga {
+    private static final String PRONTO = "vendedores-prontos";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> parametros = new HashMap<>();
+        for (String arg : args) {
+            int igual = arg.indexOf('=');
+            if (igual > 0) {
+                parametros.put(arg.substring(0, igual), arg.substring(igual + 1));
+            }
+        }
+        int vendedores = inteiro(parametros, "vendedores", 10);
+        int compradores = inteiro(parametros, "compradores", 1000);
+        int taxa = inteiro(parametros, "taxa", 50);
+        int containers = inteiro(parametros, "containers", 1);
+        int titulos = inteiro(parametros, "titulos", 100);
+        int titulosPorVendedor = inteiro(parametros, "titulosPorVendedor", 20);
+        int espera = inteiro(parametros, "espera", 60);
+        long semente = inteiro(parametros, "semente", 42);
+        int fragmentos = inteiro(parametros, "fragmentos", 0);
+        int jvms = inteiro(parametros, "jvms", 0);
+
+        Random aleatorio = new Random(semente);
+        double[] referencia = new double[titulos];
+        Object[][] catalogos = catalogos(aleatorio, referencia, vendedores, titulosPorVendedor, compradores, fragmentos);
+
+        if ("periferico".equals(parametros.get("papel"))) {
+            periferico(inteiro(parametros, "indice", 0), jvms, catalogos);
+            return;
+        }
+
+        System.out.println("Teste de carga: " + vendedores + " vendedores, " + compradores + " compradores, "
+            + taxa + " pedidos/s, " + containers + " containers"
+            + (fragmentos > 0 ? ", " + fragmentos + " fragmentos" : "")
+            + (jvms > 0 ? ", vendedores em " + jvms + " JVMs" : ""));
+
+        Runtime rt = Runtime.instance();
+        rt.setCloseVM(true);
+        Profile p = new ProfileImpl();
+        p.setParameter(Profile.MAIN_HOST, "localhost");
+        p.setParameter(Profile.MAIN_PORT, "2099");
+        p.setParameter(Profile.GUI, "false");
+
+        List<AgentContainer> ambiente = new ArrayList<>();
+        ambiente.add(rt.createMainContainer(p));
+        for (int i = 1; i < containers; i++) {
+            Profile periferico = new ProfileImpl();
+            periferico.setParameter(Profile.MAIN_HOST, "localhost");
+            periferico.setParameter(Profile.MAIN_PORT, "2099");
+            periferico.setParameter(Profile.CONTAINER_NAME, "Carga-" + i);
+            ambiente.add(rt.createAgentContainer(periferico));
+        }
+
+        if (AgenteMercado.MODO_LIVRO) {
+            ambiente.get(0).createNewAgent("Mercado", "sistema_multiagente.AgenteMercado", null).start();
+        }
+
+        List<Process> filhos = new ArrayList<>();
+        if (jvms > 0) {
+            for (int k = 0; k < jvms; k++) {
+                filhos.add(iniciarFilho(k, args));
+            }
+        } else {
+            for (int v = 0; v < vendedores; v++) {
+                ambiente.get(v % containers).createNewAgent("Vendedor" + v, "sistema_multiagente.AgenteVendedor", catalogos[v]).start();
+            }
+        }
+
+        // Chegada dos pedidos
+        ColetorCarga.zerar();
+        AtomicInteger criados = new AtomicInteger();
+        long[] heapMaximo = new long[1];
+        ScheduledExecutorService agendador = Executors.newScheduledThreadPool(2);
+        long inicio = System.nanoTime();
+        agendador.scheduleAtFixedRate(() -> {
+            int n = criados.getAndIncrement();
+            if (n >= compradores) {
+                return;
+            }
+            int t = aleatorio.nextInt(titulos);
+            double precoMaximo = Math.round(referencia[t] * (0.8 + aleatorio.nextDouble() * 0.4) * 100) / 100.0;
+            Object[] pedido = {titulo(t), "1", String.valueOf(precoMaximo)};
+            try {
+                ambiente.get(n % containers).createNewAgent("comprador-carga-" + n, "sistema_multiagente.AgenteComprador", pedido).start();
+            } catch (Exception e) {
+                System.err.println("Erro ao criar comprador: " + e.getMessage());
+            }
+        }, 0, 1_000_000_000L / taxa, TimeUnit.NANOSECONDS);
+        agendador.scheduleAtFixedRate(() -> {
+            java.lang.Runtime jvm = java.lang.Runtime.getRuntime();
+            heapMaximo[0] = Math.max(heapMaximo[0], jvm.totalMemory() - jvm.freeMemory());
+        }, 0, 500, TimeUnit.MILLISECONDS);
+
+        // Aguarda todos os desfechos ou o tempo limite após o último pedido
+        long limite = inicio + TimeUnit.SECONDS.toNanos(compradores / taxa + espera);
+        while (ColetorCarga.acordos() + ColetorCarga.fracassos() < compradores && System.nanoTime() < limite) {
+            Thread.sleep(200);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        agendador.shutdownNow();
+
+        imprimirResultado(segundos, compradores);
+        System.out.printf("Heap máximo: %.1f MB%n", heapMaximo[0] / (1024.0 * 1024.0));
+
+        for (Process filho : filhos) {
+            filho.destroy();
+        }
+        rt.shutDown();
+    }
+
+    /**
+     * Relatório dos desfechos registrados no ColetorCarga; também usado pela Reproducao.
+     */
+    static void imprimirResultado(double segundos, int pedidos) {
+        long acordos = ColetorCarga.acordos();
+        Histograma tempos = ColetorCarga.tempoAteAcordo();
+        System.out.println("=== Resultado ===");
+        System.out.printf("Duração: %.1f s%n", segundos);
+        long encerradas = acordos + ColetorCarga.parciais() + ColetorCarga.fracassos();
+        System.out.printf("Acordos: %d, parciais: %d, fracassos: %d, sem desfecho: %d%n",
+            acordos, ColetorCarga.parciais(), ColetorCarga.fracassos(), pedidos - encerradas);
+        System.out.printf("Negociações/s: %.1f%n", acordos / segundos);
+        System.out.printf("Tempo até acordo: p50 %.1f ms, p99 %.1f ms%n",
+            tempos.percentil(50) / 1e6, tempos.percentil(99) / 1e6);
+        Histograma respostas = Metricas.de("compradores").histograma("negociacao.resposta.ns");
+        System.out.printf("Resposta do vendedor na negociação: p50 %.1f ms, p99 %.1f ms%n",
+            respostas.percentil(50) / 1e6, respostas.percentil(99) / 1e6);
+        System.out.printf("Mensagens por acordo: %.1f%n", acordos == 0 ? 0.0 : (double) ColetorCarga.mensagens() / acordos);
+        for (String modo : new String[] {"assinatura", "polling"}) {
+            Histograma primeiroCfp = Metricas.de("compradores").histograma(AgenteComprador.metricaPrimeiroCfp(modo));
+            if (primeiroCfp.total() > 0) {
+                System.out.printf("Primeiro CFP (descoberta %s): p50 %.1f ms, p99 %.1f ms%n",
+                    modo, primeiroCfp.percentil(50) / 1e6, primeiroCfp.percentil(99) / 1e6);
+            }
+        }
+    }
+
+    /**
+     * Gera o catálogo de cada vendedor. Preenche "referencia" com o preço de referência de cada título.
+     */
+    private static Object[][] catalogos(Random aleatorio, double[] referencia, int vendedores,
+                                        int titulosPorVendedor, int compradores, int fragmentos) {
+        int titulos = referencia.length;
+        for (int t = 0; t < titulos; t++) {
+            referencia[t] = 20 + aleatorio.nextInt(8000) / 100.0;
+        }
+        List<List<Integer>> porFragmento = new ArrayList<>();
+        for (int f = 0; f < Math.max(fragmentos, 1); f++) {
+            porFragmento.add(new ArrayList<>());
+        }
+        for (int t = 0; t < titulos; t++) {
+            porFragmento.get(fragmentos > 0 ? Fragmento.doTitulo(titulo(t), fragmentos) : 0).add(t);
+        }
+
+        Object[][] catalogos = new Object[vendedores][];
+        for (int v = 0; v < vendedores; v++) {
+            List<Integer> disponiveis = porFragmento.get(fragmentos > 0 ? v % fragmentos : 0);
+            int quantidade = Math.min(titulosPorVendedor, disponiveis.size());
+            Object[] estoque = new Object[fragmentos > 0 ? quantidade + 1 : quantidade];
+            Set<Integer> escolhidos = new HashSet<>();
+            for (int i = 0; i < quantidade; i++) {
+                int t;
+                do {
+                    t = disponiveis.get(aleatorio.nextInt(disponiveis.size()));
+                } while (!escolhidos.add(t));
+                double preco = Math.round(referencia[t] * (0.9 + aleatorio.nextDouble() * 0.2) * 100) / 100.0;
+                double minimo = Math.round(preco * (0.8 + aleatorio.nextDouble() * 0.15) * 100) / 100.0;
+                estoque[i] = titulo(t) + ":" + (1 + aleatorio.nextInt(compradores)) + ":" + preco + ":" + minimo;
+            }
+            if (fragmentos > 0) {
+                estoque[quantidade] = "fragmento=" + (v % fragmentos) + "/" + fragmentos;
+            }
+            catalogos[v] = estoque;
+        }
+        return catalogos;
+    }
+
+    /**
+     * Sobe um processo filho com os mesmos parâmetros e espera seus vendedores se registrarem.
+     * A saída do filho é repassada para a saída deste processo.
+     */
+    private static Process iniciarFilho(int indice, String[] args) throws Exception {
+        List<String> comando = new ArrayList<>();
+        comando.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        comando.add("-cp");
+        comando.add(System.getProperty("java.class.path"));
+        for (String chave : System.getProperties().stringPropertyNames()) {
+            if (chave.startsWith("vendedor.") || chave.startsWith("negociacao.") || chave.startsWith("log.")
+                    || chave.startsWith("df.") || chave.startsWith("tarefas.")) {
+                comando.add("-D" + chave + "=" + System.getProperty(chave));
+            }
+        }
+        comando.add(TesteCarga.class.getName());
+        comando.add("papel=periferico");
+        comando.add("indice=" + indice);
+        comando.addAll(Arrays.asList(args));
+
+        Process filho = new ProcessBuilder(comando).redirectErrorStream(true).start();
+        BufferedReader saida = new BufferedReader(new InputStreamReader(filho.getInputStream(), StandardCharsets.UTF_8));
+        String linha;
+        while ((linha = saida.readLine()) != null && !linha.equals(PRONTO)) {
+            System.out.println("[jvm " + indice + "] " + linha);
+        }
+        if (linha == null) {
+            throw new IllegalStateException("JVM " + indice + " terminou antes de criar os vendedores");
+        }
+        Thread repasse = new Thread(() -> {
+            try {
+                String resto;
+                while ((resto = saida.readLine()) != null) {
+                    System.out.println("[jvm " + indice + "] " + resto);
+                }
+            } catch (IOException e) {
+                // O filho foi encerrado
+            }
+        }, "saida-jvm-" + indice);
+        repasse.setDaemon(true);
+        repasse.start();
+        return filho;
+    }
+
+    /**
+     * Papel do processo filho: cria os vendedores v com v % jvms == indice em um container
+     * periférico e permanece ativo até o processo principal fechar a entrada padrão.
+     */
+    private static void periferico(int indice, int jvms, Object[][] catalogos) throws Exception {
+        Runtime rt = Runtime.instance();
+        rt.setCloseVM(true);
+        Profile p = new ProfileImpl();
+        p.setParameter(Profile.MAIN_HOST, "localhost");
+        p.setParameter(Profile.MAIN_PORT, "2099");
+        p.setParameter(Profile.CONTAINER_NAME, "Vendedores-" + indice);
+        AgentContainer container = rt.createAgentContainer(p);
+        for (int v = indice; v < catalogos.length; v += jvms) {
+            container.createNewAgent("Vendedor" + v, "sistema_multiagente.AgenteVendedor", catalogos[v]).start();
+        }
+        // Tempo para os registros no DF chegarem aos compradores
+        Thread.sleep(2000);
+        System.out.println(PRONTO);
+        System.out.flush();
+
+        while (System.in.read() >= 0) {
+            // Aguarda o fim da entrada padrão
+        }
+        System.exit(0);
+    }
+
+    private static String titulo(int t) {
+        return "Livro " + t;
+    }
+
+    private static int inteiro(Map<String, String> parametros, String chave, int padrao) {
+        String valor = parametros.get(chave);
+        return valor != null ? Integer.parseInt(valor) : padrao;
+    }
+}
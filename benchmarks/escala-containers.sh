@@ -0,0 +1,15 @@
+#!/bin/sh
+# Mede negociações por segundo com os vendedores espalhados em 1, 2, 4 e 8 JVMs,
+# com o catálogo dividido em um fragmento por JVM.
+# Uso: benchmarks/escala-containers.sh [parâmetros extras do TesteCarga]
+set -e
+cd "$(dirname "$0")/.."
+mvn -B -q install -DskipTests
+mvn -B -q dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+CP="target/classes:$(cat target/classpath.txt)"
+
+for JVMS in 1 2 4 8; do
+    printf "%s JVMs: " "$JVMS"
+    java -cp "$CP" sistema_multiagente.Main carga vendedores=40 compradores=4000 taxa=200 titulos=400 \
+        fragmentos="$JVMS" jvms="$JVMS" "$@" | grep "Negociações/s"
+done
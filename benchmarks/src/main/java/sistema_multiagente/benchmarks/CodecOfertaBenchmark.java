@@ -0,0 +1,88 @@
+package sistema_multiagente.benchmarks;
+
+import jade.lang.acl.ACLMessage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import sistema_multiagente.CodecBinario;
+import sistema_multiagente.CodecOferta;
+import sistema_multiagente.CodecTexto;
+import sistema_multiagente.Oferta;
+
+/**
+ * Vazão de codificação/decodificação do conteúdo das ofertas.
+ *
+ * - splitAntigo: o parser original (String.split + Double.parseDouble)
+ * - texto / binario: os dois formatos do CodecOferta
+ *
+ * Para medir alocação por mensagem, execute com "-prof gc".
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecOfertaBenchmark {
+    // Campos não finais: o JIT não pode dobrar a codificação em constante.
+    private double preco = 31.85;
+    private long centavos = 3185;
+    private int quantidade = 3;
+    private final Oferta oferta = new Oferta();
+    private ACLMessage saida;
+    private ACLMessage textoAntigo;
+    private ACLMessage texto;
+    private ACLMessage binario;
+
+    @Setup
+    public void preparar() {
+        saida = new ACLMessage(ACLMessage.PROPOSE);
+        textoAntigo = new ACLMessage(ACLMessage.PROPOSE);
+        textoAntigo.setContent(45.5 * 0.7 + ":" + 3);
+        texto = new ACLMessage(ACLMessage.PROPOSE);
+        CodecTexto.INSTANCIA.codificar(texto, 3185, 3);
+        binario = new ACLMessage(ACLMessage.PROPOSE);
+        CodecBinario.INSTANCIA.codificar(binario, 3185, 3);
+    }
+
+    @Benchmark
+    public ACLMessage codificarAntigo() {
+        saida.setContent(preco + ":" + quantidade);
+        return saida;
+    }
+
+    @Benchmark
+    public ACLMessage codificarTexto() {
+        CodecTexto.INSTANCIA.codificar(saida, centavos, quantidade);
+        return saida;
+    }
+
+    @Benchmark
+    public ACLMessage codificarBinario() {
+        CodecBinario.INSTANCIA.codificar(saida, centavos, quantidade);
+        return saida;
+    }
+
+    @Benchmark
+    public double decodificarSplitAntigo() {
+        String[] parts = textoAntigo.getContent().split(":");
+        return Double.parseDouble(parts[0]) + Integer.parseInt(parts[1]);
+    }
+
+    @Benchmark
+    public long decodificarTextoAntigo() {
+        CodecOferta.ler(textoAntigo, oferta);
+        return oferta.centavos + oferta.quantidade;
+    }
+
+    @Benchmark
+    public long decodificarTexto() {
+        CodecOferta.ler(texto, oferta);
+        return oferta.centavos + oferta.quantidade;
+    }
+
+    @Benchmark
+    public long decodificarBinario() {
+        CodecOferta.ler(binario, oferta);
+        return oferta.centavos + oferta.quantidade;
+    }
+}
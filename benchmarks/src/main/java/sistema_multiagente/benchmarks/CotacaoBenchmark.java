@@ -0,0 +1,63 @@
+package sistema_multiagente.benchmarks;
+
+import jade.lang.acl.ACLMessage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import sistema_multiagente.CacheCotacoes;
+import sistema_multiagente.CodecOferta;
+import sistema_multiagente.Estoque;
+
+/**
+ * Custo da cotação de abertura de um CFP no vendedor, para um título popular.
+ *
+ * - semCache: consulta ao Estoque e codificação da proposta a cada CFP
+ * - comCache: cotação do CacheCotacoes, com o conteúdo já codificado
+ * - lote: 32 CFPs do mesmo título respondidos com uma única cotação
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CotacaoBenchmark {
+    private static final String TITULO = "Dom Casmurro";
+
+    private Estoque estoque;
+    private CacheCotacoes cotacoes;
+    private ACLMessage resposta;
+
+    @Setup
+    public void preparar() {
+        estoque = new Estoque();
+        for (int i = 0; i < 1000; i++) {
+            estoque.adicionar("Livro " + i, 10, 30 + i % 50, 25);
+        }
+        estoque.adicionar(TITULO, 1000, 45.5, 35);
+        cotacoes = new CacheCotacoes(estoque);
+        resposta = new ACLMessage(ACLMessage.PROPOSE);
+    }
+
+    @Benchmark
+    public ACLMessage semCache() {
+        int id = estoque.id(TITULO);
+        CodecOferta.escrever(resposta, estoque.preco(id), 1);
+        return resposta;
+    }
+
+    @Benchmark
+    public ACLMessage comCache() {
+        cotacoes.cotar(TITULO).escrever(resposta, 1);
+        return resposta;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(32)
+    public ACLMessage lote() {
+        CacheCotacoes.Cotacao cotacao = cotacoes.cotar(TITULO);
+        for (int i = 0; i < 32; i++) {
+            cotacao.escrever(resposta, 1);
+        }
+        return resposta;
+    }
+}
@@ -0,0 +1,61 @@
+package sistema_multiagente.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import sistema_multiagente.DiarioVendas;
+import sistema_multiagente.Estoque;
+
+/**
+ * Custo de uma venda (reserva + confirmação) no Estoque, com e sem DiarioVendas.
+ *
+ * - semDiario: apenas o Estoque em memória
+ * - comDiario: cada venda gera dois registros no diário mapeado; o force() é
+ *   feito em grupo, no máximo a cada 100 ms, como no agente vendedor
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DiarioVendasBenchmark {
+    private Path pasta;
+    private Estoque memoria;
+    private Estoque persistido;
+    private DiarioVendas diario;
+
+    @Setup
+    public void preparar() throws IOException {
+        memoria = new Estoque();
+        memoria.adicionar("Dom Casmurro", Integer.MAX_VALUE, 45.5, 35);
+        pasta = Files.createTempDirectory("diario-bench");
+        persistido = new Estoque();
+        persistido.adicionar("Dom Casmurro", Integer.MAX_VALUE, 45.5, 35);
+        diario = new DiarioVendas(pasta, "bench");
+        diario.iniciar(persistido);
+    }
+
+    @TearDown
+    public void encerrar() throws IOException {
+        diario.fechar();
+        try (var arquivos = Files.list(pasta)) {
+            arquivos.forEach(arquivo -> arquivo.toFile().delete());
+        }
+        Files.deleteIfExists(pasta);
+    }
+
+    @Benchmark
+    public boolean semDiario() {
+        return memoria.vender(0, 1);
+    }
+
+    @Benchmark
+    public boolean comDiario() {
+        boolean vendeu = persistido.vender(0, 1);
+        diario.sincronizar(System.currentTimeMillis());
+        return vendeu;
+    }
+}
@@ -0,0 +1,42 @@
+package sistema_multiagente.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import sistema_multiagente.Estrategias;
+
+/**
+ * Custo das funções de preço de comprador e vendedor, isoladas dos agentes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EstrategiasBenchmark {
+    @Param({"45.50", "100.00"})
+    public double precoVendedor;
+
+    public double precoMaximo = 60.00;
+    public double precoMinimo = 40.00;
+
+    @Benchmark
+    public double ofertaInicialComprador() {
+        return Estrategias.ofertaInicialComprador(precoVendedor);
+    }
+
+    @Benchmark
+    public double rodadaComprador() {
+        double atual = Estrategias.ofertaInicialComprador(precoVendedor);
+        if (Estrategias.compradorAceita(precoVendedor, atual, 1, precoMaximo)) {
+            return precoVendedor;
+        }
+        return Estrategias.proximaOfertaComprador(atual, precoVendedor, precoMaximo);
+    }
+
+    @Benchmark
+    public double rodadaVendedor() {
+        double novaOferta = Estrategias.proximaOfertaVendedor(precoVendedor, precoVendedor * 0.7, precoMinimo);
+        return Estrategias.ultimaOfertaVendedor(1, novaOferta, precoMinimo) ? precoMinimo : novaOferta;
+    }
+}
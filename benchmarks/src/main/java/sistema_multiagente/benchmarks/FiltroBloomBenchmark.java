@@ -0,0 +1,62 @@
+package sistema_multiagente.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import sistema_multiagente.Estoque;
+import sistema_multiagente.FiltroBloom;
+
+/**
+ * Custo do filtro de títulos publicado pelos vendedores no DF, para um
+ * catálogo de 10000 títulos.
+ *
+ * - consultar: teste de um título no comprador, no lugar de um CFP e um REFUSE
+ * - montar: filtro refeito pelo vendedor quando um título esgota
+ * - ler: decodificação no comprador a cada notificação do DF
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FiltroBloomBenchmark {
+    private static final int TITULOS = 10000;
+
+    private Estoque estoque;
+    private FiltroBloom filtro;
+    private String publicado;
+    // Metade dos títulos consultados está no catálogo, metade não
+    private final String[] consultas = new String[2 * TITULOS];
+    private int proximo = 0;
+
+    @Setup
+    public void preparar() {
+        estoque = new Estoque();
+        for (int i = 0; i < TITULOS; i++) {
+            estoque.adicionar("Livro " + i, 10, 30 + i % 50, 25);
+        }
+        filtro = FiltroBloom.doEstoque(estoque, 10);
+        publicado = filtro.toString();
+        for (int i = 0; i < consultas.length; i++) {
+            consultas[i] = "Livro " + i;
+        }
+    }
+
+    @Benchmark
+    public boolean consultar() {
+        proximo = (proximo + 1) % consultas.length;
+        return filtro.talvezContenha(consultas[proximo]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public FiltroBloom montar() {
+        return FiltroBloom.doEstoque(estoque, 10);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public FiltroBloom ler() {
+        return FiltroBloom.ler(publicado);
+    }
+}
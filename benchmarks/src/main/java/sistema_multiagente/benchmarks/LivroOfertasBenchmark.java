@@ -0,0 +1,64 @@
+package sistema_multiagente.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import sistema_multiagente.LivroOfertas;
+
+/**
+ * Casamento no livro de ofertas do AgenteMercado, com "profundidade" ordens
+ * de cada lado já no livro de cada um dos 100 títulos.
+ *
+ * - negociar: uma venda e uma compra que se cruzam (um negócio), cada uma
+ *   entrando no livro com prioridade aleatória
+ * - cancelar: uma compra que fica no livro e é cancelada em seguida
+ *
+ * Rodar com -prof gc para conferir que não há alocação por ordem.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LivroOfertasBenchmark {
+    private static final int TITULOS = 100;
+
+    @Param({"10", "1000"})
+    public int profundidade;
+
+    private LivroOfertas livro;
+    private final int[] livros = new int[TITULOS];
+    private final SplittableRandom aleatorio = new SplittableRandom(42);
+    private long negocios = 0;
+
+    @Setup
+    public void preparar() {
+        livro = new LivroOfertas((compra, venda, centavos, quantidade) -> negocios += quantidade);
+        for (int t = 0; t < TITULOS; t++) {
+            livros[t] = livro.livro("Livro " + t);
+            // Compras até R$40,00 e vendas a partir de R$45,00: o livro em repouso não cruza
+            for (int i = 0; i < profundidade; i++) {
+                livro.casar(livro.compra(livros[t], 3000 + aleatorio.nextInt(1000), 1));
+                livro.casar(livro.venda(livros[t], 4500 + aleatorio.nextInt(1000), 5500, 1));
+            }
+        }
+    }
+
+    @Benchmark
+    public long negociar() {
+        int t = livros[aleatorio.nextInt(TITULOS)];
+        // A venda entra abaixo do melhor preço de venda e é levada pela compra seguinte
+        livro.casar(livro.venda(t, 4200 + aleatorio.nextInt(200), 5000, 1));
+        livro.casar(livro.compra(t, 4400, 1));
+        return negocios;
+    }
+
+    @Benchmark
+    public int cancelar() {
+        int t = livros[aleatorio.nextInt(TITULOS)];
+        int ordem = livro.compra(t, 3000 + aleatorio.nextInt(1000), 1);
+        livro.casar(ordem);
+        return livro.cancelar(ordem);
+    }
+}
@@ -0,0 +1,60 @@
+package sistema_multiagente.benchmarks;
+
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import sistema_multiagente.CodecOferta;
+
+/**
+ * Custo de criar e preencher as mensagens ACL trocadas a cada rodada.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MensagensBenchmark {
+    private ACLMessage proposta;
+
+    @Setup
+    public void preparar() {
+        proposta = new ACLMessage(ACLMessage.PROPOSE);
+        proposta.setSender(new AID("Vendedor1", AID.ISLOCALNAME));
+        proposta.addReceiver(new AID("comprador-1", AID.ISLOCALNAME));
+        proposta.setConversationId("negociacao-comprador-1-1");
+        proposta.setReplyWith("negociacao-comprador-1-1-v1");
+        CodecOferta.escrever(proposta, 45.50, 3);
+    }
+
+    @Benchmark
+    public ACLMessage criarCfp() {
+        ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+        cfp.addReceiver(proposta.getSender());
+        cfp.setContent("Dom Casmurro:1");
+        cfp.setConversationId("negociacao-comprador-1-1");
+        cfp.setReplyWith("comprador-1-1");
+        return cfp;
+    }
+
+    @Benchmark
+    public ACLMessage createReply() {
+        return proposta.createReply();
+    }
+
+    @Benchmark
+    public ACLMessage createReplyComConteudo() {
+        ACLMessage resposta = proposta.createReply();
+        resposta.setPerformative(ACLMessage.PROPOSE);
+        CodecOferta.escrever(resposta, 31.85, 1);
+        resposta.setReplyWith("negociacao-comprador-1-1-c1");
+        return resposta;
+    }
+
+    @Benchmark
+    public ACLMessage setContent() {
+        proposta.setContent("31.85:1");
+        return proposta;
+    }
+}
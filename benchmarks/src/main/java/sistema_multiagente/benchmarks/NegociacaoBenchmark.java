@@ -0,0 +1,85 @@
+package sistema_multiagente.benchmarks;
+
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import sistema_multiagente.CodecOferta;
+import sistema_multiagente.Estoque;
+import sistema_multiagente.NegociacaoComprador;
+import sistema_multiagente.NegociacaoVendedor;
+import sistema_multiagente.Reservas;
+
+/**
+ * Negociação completa entre um comprador e um vendedor dentro da JVM.
+ *
+ * As mensagens passam diretamente de NegociacaoComprador para NegociacaoVendedor,
+ * sem a plataforma JADE: mede-se só a lógica de negociação, codificação e
+ * criação de mensagens, do CFP até o aceite ou a rejeição.
+ *
+ * Cada invocação volta o preço de tabela ao original (o acordo o redefine) e
+ * avança a roda das reservas, para que todas meçam a mesma negociação.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class NegociacaoBenchmark {
+    private static final double PRECO_TABELA = 45.50;
+
+    @Param({"50.00", "44.00", "30.00"})
+    public double precoMaximo;
+
+    private final AID comprador = new AID("comprador-1", AID.ISLOCALNAME);
+    private final AID vendedor = new AID("Vendedor1", AID.ISLOCALNAME);
+    private Estoque estoque;
+    private Reservas reservas;
+    private int id;
+    private int conversas = 0;
+
+    @Setup(Level.Iteration)
+    public void preparar() {
+        estoque = new Estoque();
+        id = estoque.carregar("Dom Casmurro:" + Integer.MAX_VALUE / 2 + ":" + PRECO_TABELA + ":40.00");
+        reservas = new Reservas(estoque, 30000);
+    }
+
+    @Benchmark
+    public void negociar(Blackhole bh) {
+        String conversa = "negociacao-comprador-1-" + (++conversas);
+        long agora = System.currentTimeMillis();
+        estoque.definirPreco(id, PRECO_TABELA);
+        reservas.expirar(agora);
+
+        ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+        cfp.setSender(comprador);
+        cfp.setConversationId(conversa);
+        cfp.setContent("Dom Casmurro:1");
+
+        ACLMessage proposta = cfp.createReply();
+        proposta.setSender(vendedor);
+        proposta.setPerformative(ACLMessage.PROPOSE);
+        CodecOferta.escrever(proposta, estoque.preco(id), estoque.disponivel(id));
+        NegociacaoVendedor ladoVendedor = new NegociacaoVendedor(
+            comprador, conversa, estoque, reservas, id, 1, reservas.reservar(id, 1, agora));
+        ladoVendedor.preparar(proposta);
+
+        NegociacaoComprador ladoComprador = new NegociacaoComprador(
+            vendedor, conversa, estoque.preco(id), precoMaximo, 1);
+        ACLMessage msg = ladoComprador.abrir(proposta);
+        while (msg != null) {
+            msg.setSender(comprador);
+            msg = ladoVendedor.tratar(msg, agora);
+            if (msg == null || ladoComprador.concluida()) {
+                break;
+            }
+            msg.setSender(vendedor);
+            msg = ladoComprador.tratar(msg);
+        }
+        bh.consume(ladoComprador.rodada());
+        bh.consume(ladoVendedor.vendeu());
+    }
+}
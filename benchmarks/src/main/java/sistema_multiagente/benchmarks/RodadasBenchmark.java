@@ -0,0 +1,106 @@
+package sistema_multiagente.benchmarks;
+
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import sistema_multiagente.CodecOferta;
+import sistema_multiagente.EstrategiaNegociacao;
+import sistema_multiagente.Estrategias;
+import sistema_multiagente.Estoque;
+import sistema_multiagente.HistoricoPrecos;
+import sistema_multiagente.NegociacaoComprador;
+import sistema_multiagente.NegociacaoVendedor;
+import sistema_multiagente.Reservas;
+
+/**
+ * Negociação completa dentro da JVM para cada estratégia, com a mesma
+ * estratégia nos dois lados.
+ *
+ * O tempo medido é o de uma negociação; ao final de cada configuração são
+ * impressas as rodadas por acordo e a fração de negociações com acordo.
+ * Na estratégia adaptativa, o histórico começa vazio e é preenchido pelos
+ * próprios acordos do benchmark.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RodadasBenchmark {
+    @Param({"padrao", "tempo", "adaptativa"})
+    public String estrategia;
+
+    @Param({"50.00", "44.00"})
+    public double precoMaximo;
+
+    private final AID comprador = new AID("comprador-1", AID.ISLOCALNAME);
+    private final AID vendedor = new AID("Vendedor1", AID.ISLOCALNAME);
+    private EstrategiaNegociacao negociacao;
+    private Estoque estoque;
+    private Reservas reservas;
+    private int id;
+    private int conversas = 0;
+    private long negociacoes = 0;
+    private long acordos = 0;
+    private long rodadas = 0;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        HistoricoPrecos.limpar();
+        negociacao = Estrategias.porNome(estrategia);
+        estoque = new Estoque();
+        id = estoque.carregar("Dom Casmurro:" + Integer.MAX_VALUE / 2 + ":45.50:40.00");
+        reservas = new Reservas(estoque, 30000);
+    }
+
+    @TearDown(Level.Trial)
+    public void relatar() {
+        System.out.printf("%n%s, preço máximo %.2f: %.2f rodadas por acordo, %.1f%% com acordo%n",
+            estrategia, precoMaximo, acordos == 0 ? 0.0 : (double) rodadas / acordos, 100.0 * acordos / negociacoes);
+    }
+
+    @Benchmark
+    public boolean negociar() {
+        String conversa = "negociacao-comprador-1-" + (++conversas);
+        long agora = System.currentTimeMillis();
+        // O preço do título volta ao original: cada negociação parte da mesma cotação.
+        // A roda das reservas também avança, para não acumular entradas canceladas.
+        estoque.definirPreco(id, 45.50);
+        reservas.expirar(agora);
+
+        ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+        cfp.setSender(comprador);
+        cfp.setConversationId(conversa);
+        cfp.setContent("Dom Casmurro:1");
+
+        ACLMessage proposta = cfp.createReply();
+        proposta.setSender(vendedor);
+        proposta.setPerformative(ACLMessage.PROPOSE);
+        CodecOferta.escrever(proposta, estoque.preco(id), 1);
+        NegociacaoVendedor ladoVendedor = new NegociacaoVendedor(
+            comprador, conversa, estoque, reservas, id, 1, reservas.reservar(id, 1, agora), negociacao);
+        ladoVendedor.preparar(proposta);
+
+        NegociacaoComprador ladoComprador = new NegociacaoComprador(
+            vendedor, conversa, "Dom Casmurro", estoque.preco(id), precoMaximo, 1, negociacao);
+        ACLMessage msg = ladoComprador.abrir(proposta);
+        while (msg != null) {
+            msg.setSender(comprador);
+            msg = ladoVendedor.tratar(msg, agora);
+            if (msg == null || ladoComprador.concluida()) {
+                break;
+            }
+            msg.setSender(vendedor);
+            msg = ladoComprador.tratar(msg);
+        }
+
+        negociacoes++;
+        if (ladoVendedor.vendeu()) {
+            acordos++;
+            rodadas += ladoComprador.rodada();
+        }
+        return ladoVendedor.vendeu();
+    }
+}
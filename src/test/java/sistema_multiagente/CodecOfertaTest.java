@@ -0,0 +1,91 @@
+package sistema_multiagente;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jade.lang.acl.ACLMessage;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Ida e volta dos dois formatos de oferta e leitura do formato antigo.
+ */
+class CodecOfertaTest {
+    private final Oferta oferta = new Oferta();
+
+    private boolean ler(String conteudo) {
+        ACLMessage msg = new ACLMessage(ACLMessage.PROPOSE);
+        msg.setContent(conteudo);
+        return CodecOferta.ler(msg, oferta);
+    }
+
+    @Test
+    void textoIdaEVolta() {
+        ACLMessage msg = new ACLMessage(ACLMessage.PROPOSE);
+        for (long centavos : new long[] {0, 5, 10, 3185, 4550, 100000, -150}) {
+            CodecTexto.INSTANCIA.codificar(msg, centavos, 3);
+            assertEquals(CodecTexto.LINGUAGEM, msg.getLanguage());
+            assertTrue(CodecOferta.ler(msg, oferta));
+            assertEquals(centavos, oferta.centavos);
+            assertEquals(3, oferta.quantidade);
+        }
+        CodecTexto.INSTANCIA.codificar(msg, 3185, 3);
+        assertEquals("31.85:3", msg.getContent());
+        CodecTexto.INSTANCIA.codificar(msg, 5, 1);
+        assertEquals("0.05:1", msg.getContent());
+    }
+
+    @Test
+    void binarioIdaEVolta() {
+        ACLMessage msg = new ACLMessage(ACLMessage.PROPOSE);
+        for (long centavos : new long[] {0, 3185, Long.MAX_VALUE, -150}) {
+            CodecBinario.INSTANCIA.codificar(msg, centavos, Integer.MAX_VALUE);
+            assertEquals(CodecBinario.LINGUAGEM, msg.getLanguage());
+            assertTrue(CodecOferta.ler(msg, oferta));
+            assertEquals(centavos, oferta.centavos);
+            assertEquals(Integer.MAX_VALUE, oferta.quantidade);
+        }
+    }
+
+    @Test
+    void binarioComTamanhoErradoEhInvalido() {
+        ACLMessage msg = new ACLMessage(ACLMessage.PROPOSE);
+        msg.setLanguage(CodecBinario.LINGUAGEM);
+        msg.setByteSequenceContent(new byte[11]);
+        assertFalse(CodecOferta.ler(msg, oferta));
+    }
+
+    @Test
+    void leFormatoAntigoDeDoubleToString() {
+        // 45.5 * 0.7 no formato original (Double.toString)
+        assertTrue(ler("31.849999999999998:3"));
+        assertEquals(3185, oferta.centavos);
+        assertEquals(3, oferta.quantidade);
+
+        assertTrue(ler("45.5:1"));
+        assertEquals(4550, oferta.centavos);
+
+        assertTrue(ler("1.0E7:2"));
+        assertEquals(1_000_000_000L, oferta.centavos);
+        assertEquals(2, oferta.quantidade);
+    }
+
+    @Test
+    void arredondaParaCentavos() {
+        assertTrue(ler("10.004:1"));
+        assertEquals(1000, oferta.centavos);
+        assertTrue(ler("10.005:1"));
+        assertEquals(1001, oferta.centavos);
+        assertTrue(ler("0.995:1"));
+        assertEquals(100, oferta.centavos);
+
+        assertEquals(3185, Oferta.centavos(45.5 * 0.7));
+        assertEquals(31.85, Oferta.preco(3185));
+    }
+
+    @Test
+    void textoInvalido() {
+        assertFalse(ler("31.85"));
+        assertFalse(ler("31.85:"));
+        assertFalse(ler("abc:1"));
+        assertFalse(CodecOferta.ler(new ACLMessage(ACLMessage.PROPOSE), oferta));
+    }
+}
@@ -0,0 +1,67 @@
+package sistema_multiagente;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Contabilidade de reservas do estoque: disponível, reservado e quantidade.
+ */
+class EstoqueTest {
+    private final Estoque estoque = new Estoque();
+
+    @Test
+    void reservaSeparaUnidadesSemBaixarOEstoque() {
+        int id = estoque.carregar("Dom Casmurro:5:45.50:40.00");
+
+        assertTrue(estoque.reservar(id, 3));
+        assertEquals(5, estoque.quantidade(id));
+        assertEquals(3, estoque.reservado(id));
+        assertEquals(2, estoque.disponivel(id));
+        assertFalse(estoque.reservar(id, 3));
+        assertEquals(3, estoque.reservado(id));
+    }
+
+    @Test
+    void confirmarBaixaELiberarDevolve() {
+        int id = estoque.carregar("Dom Casmurro:5:45.50:40.00");
+        estoque.reservar(id, 2);
+        estoque.reservar(id, 1);
+
+        estoque.confirmar(id, 2);
+        assertEquals(3, estoque.quantidade(id));
+        assertEquals(1, estoque.reservado(id));
+        assertEquals(2, estoque.disponivel(id));
+
+        estoque.liberar(id, 1);
+        assertEquals(3, estoque.quantidade(id));
+        assertEquals(0, estoque.reservado(id));
+        assertEquals(3, estoque.disponivel(id));
+    }
+
+    @Test
+    void venderFalhaSemUnidadesDisponiveis() {
+        int id = estoque.carregar("Dom Casmurro:2:45.50:40.00");
+        estoque.reservar(id, 1);
+
+        assertFalse(estoque.vender(id, 2));
+        assertEquals(2, estoque.quantidade(id));
+        assertEquals(1, estoque.reservado(id));
+
+        assertTrue(estoque.vender(id, 1));
+        assertEquals(1, estoque.quantidade(id));
+        assertEquals(1, estoque.reservado(id));
+        assertEquals(0, estoque.disponivel(id));
+    }
+
+    @Test
+    void carregarLeTituloComDoisPontos() {
+        int id = estoque.carregar("Memórias: Brás Cubas:4:39.90:30.00");
+
+        assertEquals(id, estoque.id("Memórias: Brás Cubas"));
+        assertEquals(4, estoque.quantidade(id));
+        assertEquals(39.90, estoque.preco(id));
+        assertEquals(30.00, estoque.precoMinimo(id));
+        assertEquals(-1, estoque.id("Dom Casmurro"));
+    }
+}
@@ -0,0 +1,112 @@
+package sistema_multiagente;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jade.domain.FIPAAgentManagement.DFAgentDescription;
+import jade.domain.FIPAAgentManagement.Property;
+import jade.domain.FIPAAgentManagement.ServiceDescription;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Filtro de títulos e fragmento do catálogo: pertinência e publicação no DF.
+ */
+class FiltroBloomTest {
+    private static final int TITULOS = 1000;
+
+    private static DFAgentDescription descricao(Property... propriedades) {
+        ServiceDescription servico = new ServiceDescription();
+        servico.setType("venda-livros");
+        for (Property propriedade : propriedades) {
+            servico.addProperties(propriedade);
+        }
+        DFAgentDescription descricao = new DFAgentDescription();
+        descricao.addServices(servico);
+        return descricao;
+    }
+
+    private static FiltroBloom cheio() {
+        FiltroBloom filtro = new FiltroBloom(TITULOS, 10);
+        for (int i = 0; i < TITULOS; i++) {
+            filtro.adicionar("Livro " + i);
+        }
+        return filtro;
+    }
+
+    @Test
+    void semFalsosNegativos() {
+        FiltroBloom filtro = cheio();
+        for (int i = 0; i < TITULOS; i++) {
+            assertTrue(filtro.talvezContenha("Livro " + i), "Livro " + i);
+        }
+
+        // ~1% de falsos positivos com 10 bits por título; 3% deixa margem ao hash
+        int falsos = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filtro.talvezContenha("Ausente " + i)) {
+                falsos++;
+            }
+        }
+        assertTrue(falsos < 300, "falsos positivos: " + falsos);
+    }
+
+    @Test
+    void doEstoqueIgnoraTitulosEsgotados() {
+        Estoque estoque = new Estoque();
+        estoque.carregar("Dom Casmurro:3:45.50:40.00");
+        estoque.carregar("Iracema:0:30.00:25.00");
+
+        FiltroBloom filtro = FiltroBloom.doEstoque(estoque, 10);
+        assertTrue(filtro.talvezContenha("Dom Casmurro"));
+        assertFalse(filtro.talvezContenha("Iracema"));
+    }
+
+    @Test
+    void propriedadeDoDfIdaEVolta() {
+        FiltroBloom filtro = cheio();
+        FiltroBloom lido = FiltroBloom.daDescricao(descricao(filtro.propriedade()));
+
+        assertEquals(filtro.toString(), lido.toString());
+        for (int i = 0; i < TITULOS; i++) {
+            assertTrue(lido.talvezContenha("Livro " + i));
+        }
+    }
+
+    @Test
+    void semPropriedadeOuInvalidaAceitaTudo() {
+        assertSame(FiltroBloom.TODOS, FiltroBloom.daDescricao(descricao()));
+        assertSame(FiltroBloom.TODOS, FiltroBloom.daDescricao(
+            descricao(new Property(FiltroBloom.PROPRIEDADE, "sem-barra"))));
+        assertThrows(IllegalArgumentException.class, () -> FiltroBloom.ler("0/AAAAAAAAAAA="));
+        assertTrue(FiltroBloom.TODOS.talvezContenha("Qualquer"));
+    }
+
+    @Test
+    void cadaTituloEstaEmUmUnicoFragmento() {
+        Fragmento[] fragmentos = new Fragmento[4];
+        for (int i = 0; i < fragmentos.length; i++) {
+            fragmentos[i] = Fragmento.ler(i + "/" + fragmentos.length);
+        }
+        for (int t = 0; t < TITULOS; t++) {
+            int contem = 0;
+            for (Fragmento fragmento : fragmentos) {
+                if (fragmento.contem("Livro " + t)) {
+                    contem++;
+                }
+            }
+            assertEquals(1, contem, "Livro " + t);
+        }
+        assertTrue(Fragmento.NENHUM.contem("Qualquer"));
+    }
+
+    @Test
+    void fragmentoDoDfIdaEVolta() {
+        Fragmento fragmento = new Fragmento(2, 5);
+        Fragmento lido = Fragmento.daDescricao(descricao(fragmento.propriedade()));
+
+        assertEquals("2/5", lido.toString());
+        assertSame(Fragmento.NENHUM, Fragmento.daDescricao(descricao()));
+        assertSame(Fragmento.NENHUM, Fragmento.daDescricao(
+            descricao(new Property(Fragmento.PROPRIEDADE, "5/5"))));
+        assertThrows(IllegalArgumentException.class, () -> Fragmento.ler("1"));
+    }
+}
@@ -0,0 +1,102 @@
+package sistema_multiagente;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Casamento do livro de ofertas: prioridade por preço e chegada, preço do negócio e execuções parciais.
+ */
+class LivroOfertasTest {
+    // Cada negócio como {compra, venda, centavos, quantidade}
+    private final List<long[]> negocios = new ArrayList<>();
+    private final LivroOfertas livro = new LivroOfertas(
+        (compra, venda, centavos, quantidade) -> negocios.add(new long[] {compra, venda, centavos, quantidade}));
+    private final int domCasmurro = livro.livro("Dom Casmurro");
+
+    private int vender(long limite, long teto, int quantidade) {
+        int ordem = livro.venda(domCasmurro, limite, teto, quantidade);
+        livro.casar(ordem);
+        return ordem;
+    }
+
+    @Test
+    void compraCasaPorPrecoEDepoisPorChegada() {
+        int cara = vender(4000, 4500, 1);
+        int primeira = vender(3800, 4400, 1);
+        int segunda = vender(3800, 4600, 1);
+
+        int compra = livro.compra(domCasmurro, 5000, 3);
+        assertFalse(livro.casar(compra));
+
+        assertEquals(3, negocios.size());
+        // Menor limite primeiro; no mesmo limite, a que chegou antes
+        assertArrayEquals(new long[] {compra, primeira, 4400, 1}, negocios.get(0));
+        assertArrayEquals(new long[] {compra, segunda, 4600, 1}, negocios.get(1));
+        assertArrayEquals(new long[] {compra, cara, 4500, 1}, negocios.get(2));
+        assertEquals(0, livro.abertas());
+    }
+
+    @Test
+    void precoEhOMenorEntreTetoELimiteDoComprador() {
+        vender(4000, 4500, 2);
+
+        livro.casar(livro.compra(domCasmurro, 4200, 1));
+        livro.casar(livro.compra(domCasmurro, 4800, 1));
+
+        assertEquals(4200, negocios.get(0)[2]);
+        assertEquals(4500, negocios.get(1)[2]);
+    }
+
+    @Test
+    void limitesQueNaoCruzamFicamNoLivro() {
+        vender(4000, 4500, 1);
+        int compra = livro.compra(domCasmurro, 3900, 1);
+
+        assertTrue(livro.casar(compra));
+        assertTrue(negocios.isEmpty());
+        assertEquals(2, livro.abertas());
+        assertEquals(3900, livro.melhorCompra(domCasmurro));
+        assertEquals(4000, livro.melhorVenda(domCasmurro));
+
+        // Outro título não cruza com este livro
+        int outroLivro = livro.livro("Iracema");
+        assertTrue(livro.casar(livro.compra(outroLivro, 5000, 1)));
+        assertTrue(negocios.isEmpty());
+        assertEquals(-1, livro.melhorVenda(outroLivro));
+    }
+
+    @Test
+    void execucoesParciaisDeixamORestanteNoLivro() {
+        int venda = vender(4000, 4500, 5);
+
+        livro.casar(livro.compra(domCasmurro, 5000, 2));
+        assertEquals(3, livro.quantidade(venda));
+        assertEquals(1, livro.abertas());
+
+        int compra = livro.compra(domCasmurro, 5000, 4);
+        assertTrue(livro.casar(compra));
+        assertEquals(3, negocios.get(1)[3]);
+        assertEquals(1, livro.quantidade(compra));
+        assertEquals(5000, livro.melhorCompra(domCasmurro));
+        assertEquals(-1, livro.melhorVenda(domCasmurro));
+
+        assertEquals(1, livro.cancelar(compra));
+        assertEquals(0, livro.cancelar(compra));
+        assertEquals(0, livro.abertas());
+    }
+
+    @Test
+    void vendaQueChegaCasaComAMelhorCompra() {
+        int baixa = livro.compra(domCasmurro, 4100, 1);
+        livro.casar(baixa);
+        int alta = livro.compra(domCasmurro, 4300, 1);
+        livro.casar(alta);
+
+        int venda = livro.venda(domCasmurro, 4000, 4500, 2);
+        assertFalse(livro.casar(venda));
+        assertArrayEquals(new long[] {alta, venda, 4300, 1}, negocios.get(0));
+        assertArrayEquals(new long[] {baixa, venda, 4100, 1}, negocios.get(1));
+    }
+}
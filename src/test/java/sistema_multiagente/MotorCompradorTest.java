@@ -0,0 +1,142 @@
+package sistema_multiagente;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+import java.util.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Rodada, negociação, confirmação, recuo e desistência de uma compra no MotorComprador.
+ */
+class MotorCompradorTest {
+    private final AID vendedor1 = new AID("Vendedor1", AID.ISLOCALNAME);
+    private final AID vendedor2 = new AID("Vendedor2", AID.ISLOCALNAME);
+    private final List<ACLMessage> enviadas = new ArrayList<>();
+    private int buscas = 0;
+    private MotorComprador encerrada;
+
+    private final MotorComprador.Ouvinte ouvinte = new MotorComprador.Ouvinte() {
+        private int conversas = 0;
+
+        public String novaConversa() {
+            return "negociacao-comprador-1-" + (++conversas);
+        }
+
+        public void enviar(ACLMessage msg) {
+            enviadas.add(msg);
+        }
+
+        public void buscar() {
+            buscas++;
+        }
+
+        public void encerrada(MotorComprador compra) {
+            encerrada = compra;
+        }
+    };
+
+    private MotorComprador motor(int buscasMaximas) {
+        return new MotorComprador("comprador-1", new PedidoCompra("Dom Casmurro", 1, 60.0), buscasMaximas,
+            new MotorComprador.Medidas(Metricas.de("teste-motor-comprador")), new SplittableRandom(1),
+            System::nanoTime, ouvinte, 0);
+    }
+
+    private ACLMessage ultima() {
+        return enviadas.get(enviadas.size() - 1);
+    }
+
+    private ACLMessage proposta(ACLMessage cfp, AID vendedor, double preco) {
+        ACLMessage proposta = cfp.createReply();
+        proposta.setSender(vendedor);
+        proposta.setPerformative(ACLMessage.PROPOSE);
+        proposta.setReplyWith(cfp.getConversationId() + "-" + vendedor.getLocalName());
+        CodecOferta.escrever(proposta, preco, 1);
+        return proposta;
+    }
+
+    private ACLMessage resposta(ACLMessage msg, AID vendedor, int performativa) {
+        ACLMessage resposta = msg.createReply();
+        resposta.setSender(vendedor);
+        resposta.setPerformative(performativa);
+        return resposta;
+    }
+
+    @Test
+    void negociaComAMelhorOfertaERejeitaAsDemais() {
+        MotorComprador motor = motor(0);
+        assertTrue(motor.contatar(List.of(vendedor1, vendedor2), 0));
+        ACLMessage cfp = ultima();
+
+        ACLMessage cara = proposta(cfp, vendedor2, 55.0);
+        assertTrue(motor.espera(cara));
+        motor.receber(cara, 1);
+        motor.receber(proposta(cfp, vendedor1, 50.0), 2);
+
+        // K = 1: a proposta mais cara é rejeitada e a mais barata recebe a oferta inicial
+        ACLMessage oferta = enviadas.get(enviadas.size() - 2);
+        assertEquals(ACLMessage.PROPOSE, oferta.getPerformative());
+        assertEquals(vendedor1, oferta.getAllReceiver().next());
+        assertEquals(ACLMessage.REJECT_PROPOSAL, ultima().getPerformative());
+        assertEquals(vendedor2, ultima().getAllReceiver().next());
+
+        motor.receber(resposta(oferta, vendedor1, ACLMessage.ACCEPT_PROPOSAL), 3);
+        assertSame(motor, encerrada);
+        assertTrue(motor.acordo());
+        assertEquals(Long.MAX_VALUE, motor.proximoPrazo());
+    }
+
+    @Test
+    void aceiteSemConfirmacaoNoPrazoTerminaSemAcordo() {
+        MotorComprador motor = motor(0);
+        motor.contatar(List.of(vendedor1), 0);
+        motor.receber(proposta(ultima(), vendedor1, 50.0), 1);
+
+        ACLMessage contraproposta = resposta(ultima(), vendedor1, ACLMessage.PROPOSE);
+        contraproposta.setReplyWith("v1-2");
+        contraproposta.addUserDefinedParameter("ultima-oferta", "true");
+        CodecOferta.escrever(contraproposta, 50.0, 1);
+        motor.receber(contraproposta, 2);
+        assertEquals(ACLMessage.ACCEPT_PROPOSAL, ultima().getPerformative());
+        assertNull(encerrada);
+
+        motor.expirar(2 + AgenteComprador.PRAZO_NEGOCIACAO);
+        assertSame(motor, encerrada);
+        assertFalse(motor.acordo());
+    }
+
+    @Test
+    void recusaOcupadoRecuaAntesDaProximaBusca() {
+        MotorComprador motor = motor(0);
+        motor.contatar(List.of(vendedor1), 0);
+        ACLMessage recusa = resposta(ultima(), vendedor1, ACLMessage.REFUSE);
+        recusa.setContent(MotorVendedor.OCUPADO);
+        recusa.addUserDefinedParameter(MotorVendedor.TENTAR_APOS, "400");
+        motor.receber(recusa, 10);
+
+        // Metade fixa e metade sorteada da dica: entre 200 e 400 ms
+        long prazo = motor.proximoPrazo();
+        assertTrue(prazo >= 210 && prazo <= 410, "prazo " + prazo);
+        motor.expirar(prazo - 1);
+        assertEquals(0, buscas);
+        motor.expirar(prazo);
+        assertEquals(1, buscas);
+    }
+
+    @Test
+    void desisteDepoisDoLimiteDeBuscas() {
+        MotorComprador motor = motor(2);
+        for (long agora = 10000; agora <= 20000; agora += 10000) {
+            motor.expirar(agora);
+            motor.contatar(List.of(), agora);
+        }
+        assertEquals(2, buscas);
+        assertNull(encerrada);
+
+        motor.expirar(30000);
+        assertSame(motor, encerrada);
+        assertTrue(motor.desistiu());
+        assertFalse(motor.acordo());
+    }
+}
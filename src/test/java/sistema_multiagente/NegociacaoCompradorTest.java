@@ -0,0 +1,57 @@
+package sistema_multiagente;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Desfechos da negociação do comprador diante das mensagens do vendedor.
+ */
+class NegociacaoCompradorTest {
+    private final AID comprador = new AID("comprador-1", AID.ISLOCALNAME);
+    private final AID vendedor = new AID("Vendedor1", AID.ISLOCALNAME);
+
+    private ACLMessage proposta(double preco) {
+        ACLMessage cfp = new ACLMessage(ACLMessage.CFP);
+        cfp.setSender(comprador);
+        cfp.setConversationId("negociacao-comprador-1-1");
+        cfp.setReplyWith("comprador-1-1");
+        ACLMessage proposta = cfp.createReply();
+        proposta.setSender(vendedor);
+        proposta.setPerformative(ACLMessage.PROPOSE);
+        proposta.setReplyWith("negociacao-comprador-1-1-v1");
+        CodecOferta.escrever(proposta, preco, 1);
+        return proposta;
+    }
+
+    @Test
+    void cancelDoVendedorPorPrazoEncerraSemAcordo() {
+        NegociacaoComprador negociacao = new NegociacaoComprador(vendedor, "negociacao-comprador-1-1", 50.0, 60.0, 1);
+        negociacao.abrir(proposta(50.0));
+
+        // Como NegociacaoVendedor.abortar: sem in-reply-to
+        ACLMessage cancelamento = new ACLMessage(ACLMessage.CANCEL);
+        cancelamento.setSender(vendedor);
+        cancelamento.setConversationId("negociacao-comprador-1-1");
+        cancelamento.setContent("prazo-esgotado");
+
+        assertTrue(negociacao.espera(cancelamento));
+        assertNull(negociacao.tratar(cancelamento));
+        assertTrue(negociacao.concluida());
+        assertFalse(negociacao.acordo());
+    }
+
+    @Test
+    void cancelDeOutroVendedorNaoEhEsperado() {
+        NegociacaoComprador negociacao = new NegociacaoComprador(vendedor, "negociacao-comprador-1-1", 50.0, 60.0, 1);
+        negociacao.abrir(proposta(50.0));
+
+        ACLMessage cancelamento = new ACLMessage(ACLMessage.CANCEL);
+        cancelamento.setSender(new AID("Vendedor2", AID.ISLOCALNAME));
+        cancelamento.setConversationId("negociacao-comprador-1-1");
+
+        assertFalse(negociacao.espera(cancelamento));
+    }
+}
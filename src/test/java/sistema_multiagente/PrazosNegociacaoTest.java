@@ -0,0 +1,63 @@
+package sistema_multiagente;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Prazos das negociações do vendedor, com expirar() a cada 100 ms como no
+ * tique do AgenteVendedor.
+ */
+class PrazosNegociacaoTest {
+    private static final long TIQUE = 100;
+
+    @Test
+    void expiraNoPrazoSemEsperarUmaVoltaDaRoda() {
+        PrazosNegociacao<String> prazos = new PrazosNegociacao<>(30_000);
+        List<long[]> expiradas = new ArrayList<>();
+        long agora = 0;
+        prazos.expirar(agora, n -> fail("nenhuma negociação aberta"));
+        for (int n = 0; n < 100; n++) {
+            // Última mensagem em instantes espalhados entre dois tiques
+            long mensagem = 1_000 + n * 37;
+            for (; agora < mensagem; agora += TIQUE) {
+                prazos.expirar(agora, n2 -> fail("expirou antes do prazo"));
+            }
+            prazos.renovar("negociacao-" + n, mensagem);
+        }
+        for (; agora <= 40_000; agora += TIQUE) {
+            long instante = agora;
+            prazos.expirar(agora, n -> {
+                long mensagem = 1_000 + Integer.parseInt(n.substring(n.indexOf('-') + 1)) * 37L;
+                expiradas.add(new long[] {mensagem + 30_000, instante});
+            });
+        }
+        assertEquals(100, expiradas.size());
+        assertEquals(100, prazos.expiradas());
+        assertEquals(0, prazos.ativas());
+        for (long[] expirada : expiradas) {
+            long atraso = expirada[1] - expirada[0];
+            assertTrue(atraso >= 0 && atraso < 100, "prazo " + expirada[0] + " expirou em " + expirada[1]);
+        }
+    }
+
+    @Test
+    void renovarAdiaERemoverCancela() {
+        PrazosNegociacao<String> prazos = new PrazosNegociacao<>(1_000);
+        List<String> expiradas = new ArrayList<>();
+        prazos.expirar(0, expiradas::add);
+        prazos.renovar("a", 0);
+        prazos.renovar("b", 0);
+        prazos.renovar("a", 800);
+        prazos.remover("b");
+        for (long agora = TIQUE; agora <= 1_700; agora += TIQUE) {
+            prazos.expirar(agora, expiradas::add);
+            assertTrue(expiradas.isEmpty(), "expirou em " + agora);
+        }
+        prazos.expirar(1_800, expiradas::add);
+        assertEquals(List.of("a"), expiradas);
+        assertEquals(0, prazos.ativas());
+    }
+}
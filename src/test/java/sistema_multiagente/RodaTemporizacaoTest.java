@@ -0,0 +1,96 @@
+package sistema_multiagente;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Vencimento na RodaTemporizacao e nas Reservas, com avanços a cada 100 ms
+ * como no tique do AgenteVendedor.
+ */
+class RodaTemporizacaoTest {
+    private static final long RESOLUCAO = 100;
+    private static final long TIQUE = 100;
+
+    @Test
+    void disparaAteUmaResolucaoDepoisDoPrazo() {
+        // Mesma configuração das Reservas com TTL de 30 s: 301 posições, arredondadas para 512
+        RodaTemporizacao<Long> roda = new RodaTemporizacao<>(RESOLUCAO, 301);
+        List<long[]> disparos = new ArrayList<>();
+        long agora = 0;
+        roda.avancar(agora, prazo -> fail("nada agendado ainda"));
+        for (long criacao = 0; criacao < 1000; criacao += 7) {
+            roda.agendar(30_000 + criacao + 50, 30_000 + criacao + 50);
+        }
+        for (agora = TIQUE; agora <= 40_000; agora += TIQUE) {
+            long instante = agora;
+            roda.avancar(agora, prazo -> disparos.add(new long[] {prazo, instante}));
+        }
+        assertEquals(143, disparos.size());
+        for (long[] disparo : disparos) {
+            long atraso = disparo[1] - disparo[0];
+            assertTrue(atraso >= 0 && atraso < RESOLUCAO, "prazo " + disparo[0] + " disparou em " + disparo[1]);
+        }
+        assertEquals(0, roda.pendentes());
+    }
+
+    @Test
+    void prazoNoFimDaPosicaoAtualNaoEsperaUmaVolta() {
+        RodaTemporizacao<String> roda = new RodaTemporizacao<>(RESOLUCAO, 301);
+        List<Long> disparos = new ArrayList<>();
+        roda.avancar(30_000, v -> disparos.add(-1L));
+        // Vence no meio da posição do próximo avanço
+        roda.agendar("reserva", 30_150);
+        for (long agora = 30_000; agora <= 90_000; agora += TIQUE) {
+            long instante = agora;
+            roda.avancar(agora, v -> disparos.add(instante));
+        }
+        assertEquals(List.of(30_200L), disparos);
+    }
+
+    @Test
+    void agendadoAntesDoPrimeiroAvancoDisparaNoPrimeiroAvanco() {
+        RodaTemporizacao<String> roda = new RodaTemporizacao<>(RESOLUCAO, 11);
+        roda.agendar("a", 250);
+        roda.agendar("b", 900);
+        List<String> disparos = new ArrayList<>();
+        roda.avancar(1_000, disparos::add);
+        assertEquals(List.of("a", "b"), disparos);
+    }
+
+    @Test
+    void canceladaNaoDispara() {
+        RodaTemporizacao<String> roda = new RodaTemporizacao<>(RESOLUCAO, 11);
+        roda.avancar(0, v -> { });
+        RodaTemporizacao.Entrada<String> entrada = roda.agendar("a", 500);
+        entrada.cancelar();
+        List<String> disparos = new ArrayList<>();
+        roda.avancar(2_000, disparos::add);
+        assertTrue(disparos.isEmpty());
+        assertEquals(0, roda.pendentes());
+    }
+
+    @Test
+    void reservaVenceNoTtl() {
+        Estoque estoque = new Estoque();
+        int id = estoque.adicionar("Dom Casmurro", 10, 50.0, 30.0);
+        Reservas reservas = new Reservas(estoque, 30_000);
+        long agora = 0;
+        reservas.expirar(agora);
+        for (agora = TIQUE; agora < 1_000; agora += TIQUE) {
+            reservas.expirar(agora);
+        }
+        // Criada entre dois tiques, vence em 31 050
+        assertNotNull(reservas.reservar(id, 2, 1_050));
+        for (; agora < 31_050; agora += TIQUE) {
+            reservas.expirar(agora);
+            assertEquals(8, estoque.disponivel(id), "liberada cedo em " + agora);
+        }
+        reservas.expirar(agora);
+        assertEquals(31_100, agora);
+        assertEquals(10, estoque.disponivel(id));
+        assertEquals(0, reservas.ativas());
+    }
+}